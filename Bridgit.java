@@ -1,4 +1,37 @@
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+import com.sun.management.ThreadMXBean;
 import tester.*;
 import javalib.impworld.*;
 import java.awt.Color;
@@ -131,6 +164,51 @@ abstract class Cell implements Tile {
     return turn;
   }
 
+  // EFFECT: put the given Cell in this Cell's place in the given row and
+  // column, linked to this Cell's neighbors
+  public void replaceWith(Cell newTile, int row, int column, ArrayList<ArrayList<Cell>> cells) {
+    newTile.linkUp(this.up);
+    this.up.linkDown(newTile);
+    newTile.linkDown(this.down);
+    this.down.linkUp(newTile);
+    newTile.linkLeft(this.left);
+    this.left.linkRight(newTile);
+    newTile.linkRight(this.right);
+    this.right.linkLeft(newTile);
+
+    cells.get(row).set(column, newTile);
+  }
+
+  // EFFECT: replace this claimed Cell in the given row and column with a
+  // WCell, undoing a click
+  // returns the player that had claimed it, whose turn it is again
+  public int unclick(int row, int column, ArrayList<ArrayList<Cell>> cells) {
+    this.replaceWith(new WCell(), row, column, cells);
+
+    if (this.path(1)) {
+      return 1;
+    }
+    else {
+      return 2;
+    }
+  }
+
+  // EFFECT: undo the last claim of the given Connectivity, which was this
+  // Cell, and replace this Cell with a WCell
+  // returns the player that had claimed it, whose turn it is again
+  public int unclick(int row, int column, ArrayList<ArrayList<Cell>> cells,
+      Connectivity connect) {
+    connect.unclaim();
+    return this.unclick(row, column, cells);
+  }
+
+  // return the turn of the current player, nothing is claimed so the given
+  // Connectivity stays the same
+  public int click(int turn, int row, int column, ArrayList<ArrayList<Cell>> arr,
+      Connectivity connect) {
+    return this.click(turn, row, column, arr);
+  }
+
   // EFFECT: add the links of this Cell into this links
   public ArrayList<Tile> addLinks() {
     ArrayList<Tile> arr = new ArrayList<Tile>();
@@ -175,39 +253,35 @@ class WCell extends Cell {
   // a RCell or a BCell depending on the player's turn
   // return the turn of the next player
   public int click(int turn, int row, int column, ArrayList<ArrayList<Cell>> cells) {
-    Cell currTile = cells.get(row).remove(column);
-
     if (turn == 1) {
-      Cell newTile = new RCell();
-
-      newTile.linkUp(currTile.up);
-      currTile.up.linkDown(newTile);
-      newTile.linkDown(currTile.down);
-      currTile.down.linkUp(newTile);
-      newTile.linkLeft(currTile.left);
-      currTile.left.linkRight(newTile);
-      newTile.linkRight(currTile.right);
-      currTile.right.linkLeft(newTile);
-
-      cells.get(row).add(column, newTile);
+      this.replaceWith(new RCell(), row, column, cells);
       return 2;
     }
     else {
-      Cell newTile = new BCell();
+      this.replaceWith(new BCell(), row, column, cells);
+      return 1;
+    }
+  }
 
-      newTile.linkUp(currTile.up);
-      currTile.up.linkDown(newTile);
-      newTile.linkDown(currTile.down);
-      currTile.down.linkUp(newTile);
-      newTile.linkLeft(currTile.left);
-      currTile.left.linkRight(newTile);
-      newTile.linkRight(currTile.right);
-      currTile.right.linkLeft(newTile);
+  // EFFECT: claim this WCell in the given Connectivity and replace it with
+  // a RCell or a BCell depending on the player's turn
+  // return the turn of the next player
+  public int click(int turn, int row, int column, ArrayList<ArrayList<Cell>> cells,
+      Connectivity connect) {
+    connect.claim(turn, row, column);
+    return this.click(turn, row, column, cells);
+  }
 
-      cells.get(row).add(column, newTile);
+  // return 0, a WCell has no click to undo
+  public int unclick(int row, int column, ArrayList<ArrayList<Cell>> cells) {
+    return 0;
+  }
 
-      return 1;
-    }
+  // return 0, a WCell has no click to undo so the given Connectivity stays
+  // the same
+  public int unclick(int row, int column, ArrayList<ArrayList<Cell>> cells,
+      Connectivity connect) {
+    return 0;
   }
 
   // a WCell is not a valid path
@@ -254,846 +328,9661 @@ class RCell extends Cell {
   }
 }
 
-//Represents the Bridgit Game
-class Bridgit extends World {
+//Represents a disjoint set of the numbers 0 to size - 1 that merges sets by
+//rank and compresses the paths it walks
+class UnionFind {
+  int[] parent;
+  int[] rank;
 
-  int grid;
-  ArrayList<ArrayList<Cell>> cells;
-  int turn;
+  UnionFind(int size) {
+    this.parent = new int[size];
+    this.rank = new int[size];
 
-  // original constructor
-  Bridgit(int grid) {
-    this.grid = grid;
-    this.cells = new ArrayList<ArrayList<Cell>>();
-    this.turn = 1;
+    for (int i = 0; i < size; i++) {
+      this.parent[i] = i;
+    }
+  }
 
-    if (this.grid % 2 == 0 || this.grid < 3) {
-      throw new IllegalArgumentException("the number needs to be odd and greater than 3");
+  // find the representative of the set the given number is in, pointing every
+  // number on the way directly at the representative
+  public int find(int i) {
+    int root = i;
+
+    while (this.parent[root] != root) {
+      root = this.parent[root];
     }
 
-    this.makeGame(this.grid);
+    while (this.parent[i] != root) {
+      int next = this.parent[i];
+      this.parent[i] = root;
+      i = next;
+    }
 
+    return root;
   }
 
-  // for testing
-  Bridgit(int grid, ArrayList<ArrayList<Cell>> cells) {
-    this.grid = grid;
-    this.cells = cells;
+  // EFFECT: merge the sets of the two given numbers, hanging the shorter tree
+  // under the taller one
+  public void union(int a, int b) {
+    int rootA = this.find(a);
+    int rootB = this.find(b);
+
+    if (rootA == rootB) {
+      return;
+    }
+
+    if (this.rank[rootA] < this.rank[rootB]) {
+      this.parent[rootA] = rootB;
+    }
+    else if (this.rank[rootA] > this.rank[rootB]) {
+      this.parent[rootB] = rootA;
+    }
+    else {
+      this.parent[rootB] = rootA;
+      this.rank[rootA] += 1;
+    }
   }
 
-  // EFFECT: make the Cells and link them together and the Cells to that
-  // needs to be linked to EmptyCell
-  public void makeGame(int grid) {
-    this.cells = new ArrayList<ArrayList<Cell>>();
-    Tile empty = new EmptyCell();
+  // are the two given numbers in the same set?
+  public boolean connected(int a, int b) {
+    return this.find(a) == this.find(b);
+  }
+}
 
-    for (int i = 0; i < grid; i++) {
-      this.cells.add(new ArrayList<Cell>());
+//Represents a disjoint set that can go back to an earlier state: it merges
+//by rank without compressing paths, so each union changes one parent and
+//maybe one rank, and a log of those changes can be undone in reverse
+class RollbackUnionFind extends UnionFind {
+  // each union as the root that was hung under another, times 2, plus 1 if
+  // the other root's rank went up
+  int[] log;
+  int logSize;
+
+  RollbackUnionFind(int size) {
+    super(size);
+    this.log = new int[16];
+  }
 
-      for (int j = 0; j < grid; j++) {
-        // add Cells to the even row
-        if (i % 2 == 0) {
-          // add WCells on every even column
-          if (j % 2 == 0) {
-            this.cells.get(i).add(new WCell());
-          }
+  // find the representative of the set the given number is in, without
+  // changing any parent so unions can be undone
+  public int find(int i) {
+    while (this.parent[i] != i) {
+      i = this.parent[i];
+    }
 
-          // add RCells on every odd column
-          else {
-            this.cells.get(i).add(new RCell());
-          }
-        }
+    return i;
+  }
 
-        // add Cells to the odd rows
-        else {
-          // add RCells on every even column
-          if (j % 2 == 0) {
-            this.cells.get(i).add(new BCell());
-          }
+  // EFFECT: merge the sets of the two given numbers, hanging the shorter tree
+  // under the taller one, and log it
+  public void union(int a, int b) {
+    int rootA = this.find(a);
+    int rootB = this.find(b);
 
-          // add WCells on every odd column
-          else {
-            this.cells.get(i).add(new WCell());
-          }
-        }
+    if (rootA == rootB) {
+      return;
+    }
 
-        Tile currentTile = this.cells.get(i).get(j);
+    if (this.logSize == this.log.length) {
+      this.log = Arrays.copyOf(this.log, 2 * this.log.length);
+    }
 
-        // link the Cells on the top row to the Empty Cell above
-        if (i == 0) {
-          currentTile.linkUp(empty);
-        }
-        // link the cells up and down
-        else {
-          Tile up = this.cells.get(i - 1).get(j);
-          currentTile.linkUp(up);
-          up.linkDown(currentTile);
-        }
+    if (this.rank[rootA] < this.rank[rootB]) {
+      this.parent[rootA] = rootB;
+      this.log[this.logSize] = rootA << 1;
+    }
+    else if (this.rank[rootA] > this.rank[rootB]) {
+      this.parent[rootB] = rootA;
+      this.log[this.logSize] = rootB << 1;
+    }
+    else {
+      this.parent[rootB] = rootA;
+      this.rank[rootA] += 1;
+      this.log[this.logSize] = (rootB << 1) | 1;
+    }
 
-        // link the Cells on the last row to the Empty Cell below
-        if (i == this.grid - 1) {
-          currentTile.linkDown(empty);
+    this.logSize += 1;
+  }
 
-          // make every odd cell, i.e RCell, a target
-          if (j % 2 == 1) {
-            currentTile.makeTarget();
-          }
-        }
+  // returns a mark to roll back to that undoes every later union
+  public int checkpoint() {
+    return this.logSize;
+  }
 
-        // link the Cells on the first column to the Empty Cell on the left
-        if (j == 0) {
-          currentTile.linkLeft(empty);
-        }
-        // link the Cells left and right
-        else {
-          Tile left = this.cells.get(i).get(j - 1);
-          currentTile.linkLeft(left);
-          left.linkRight(currentTile);
-        }
+  // EFFECT: undo every union since the given mark, the last one first
+  public void rollback(int mark) {
+    while (this.logSize > mark) {
+      this.logSize -= 1;
 
-        // link the Cells on the last column to the Empty Cell on the right
-        if (j == this.grid - 1) {
-          currentTile.linkRight(empty);
+      int entry = this.log[this.logSize];
+      int child = entry >>> 1;
 
-          // make every odd cell, i.e BCell, a target
-          if (i % 2 == 1) {
-            currentTile.makeTarget();
-          }
-        }
+      if ((entry & 1) != 0) {
+        this.rank[this.parent[child]] -= 1;
       }
+
+      this.parent[child] = child;
     }
   }
 
-  // draws the game and tells which player's turn it is
-  public WorldScene makeScene() {
-    WorldScene scene = this.getEmptyScene();
-    int edge = scene.height / this.grid;
-    int edge2 = edge / 2;
-    int edge4 = edge / 4;
+  // EFFECT: forget the log, so the unions so far can't be undone
+  public void commit() {
+    this.logSize = 0;
+  }
+}
 
-    WorldImage board = new RectangleImage(scene.height, scene.width, "solid", Color.white);
+//Represents the Zobrist keys of Bridgit positions, where the key of a
+//position is the XOR of the keys of its colored Cells and of the turn when
+//it is player 2's, so claiming a Cell changes a key with two XORs
+//The key of a Cell is a fixed mix of its index and color instead of a random
+//table, so keys cost no memory and stay the same between runs
+class Zobrist {
 
-    for (int i = 0; i < this.grid; i++) {
-      for (int j = 0; j < this.grid; j++) {
-        board = this.cells.get(i).get(j).drawAt(j, i, this.grid, board);
+  // returns the key of the Cell of the given index owned by the given player
+  public long cell(int index, int player) {
+    return this.mix(2L * index + player);
+  }
+
+  // returns the key that is in a position when it is player 2's turn
+  public long turn() {
+    return this.mix(-1L);
+  }
+
+  // returns the key of the Cells of the given owners, indexed by
+  // row * grid + column like Connectivity, with the given turn
+  public long key(int[] owner, int turn) {
+    long key = 0;
+
+    for (int i = 0; i < owner.length; i++) {
+      if (owner[i] != 0) {
+        key ^= this.cell(i, owner[i]);
       }
     }
 
-    if (this.turn == 1) {
-      board = new OverlayOffsetAlign(AlignModeX.LEFT, AlignModeY.TOP,
-          new TextImage("P1", edge2, Color.red), -edge4, -edge4, board);
+    if (turn == 2) {
+      key ^= this.turn();
     }
-    else {
-      board = new OverlayOffsetAlign(AlignModeX.LEFT, AlignModeY.TOP,
-          new TextImage("P2", edge2, Color.blue), -edge4, -edge4, board);
+
+    return key;
+  }
+
+  // returns the given number scrambled so every bit depends on every bit,
+  // the finalizer of SplitMix64
+  long mix(long x) {
+    long z = x * 0x9E3779B97F4A7C15L + 0x632BE59BD9B4E019L;
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+}
+
+//Represents a fixed size table of search results for positions by their
+//Zobrist key, which threads can share without locks
+//Each bucket has two entries, the first keeps the deepest result of the
+//current search and the second always takes the newest one. An entry is
+//stored as the key XOR the data next to the data, so an entry torn by two
+//threads writing at once doesn't match its key and reads as a miss
+class TranspositionTable {
+  static final int EXACT = 1;
+  static final int LOWER = 2;
+  static final int UPPER = 3;
+
+  long[] keys;
+  long[] data;
+  int mask;
+  int age;
+
+  // the number of buckets is rounded up to a power of two
+  TranspositionTable(int buckets) {
+    int size = 1;
+
+    while (size < buckets) {
+      size *= 2;
     }
 
-    scene.placeImageXY(board, scene.width / 2, scene.height / 2);
+    this.keys = new long[2 * size];
+    this.data = new long[2 * size];
+    this.mask = size - 1;
+    this.age = 0;
+  }
 
-    return scene;
+  // EFFECT: start a new search, so results of older searches get replaced
+  public void newSearch() {
+    this.age = (this.age + 1) & 0xFF;
   }
 
-  // draws the game with a given canvas width and height and tell which player's
-  // turn it is
-  // I'm doing this because makeScene() is dependent on the canvas size that
-  // bigbang provides so if we don't initialize bigbang
-  public WorldScene makeSceneTest(int width, int height) {
-    WorldScene scene = new WorldScene(width, height);
-    int edge = scene.height / this.grid;
-    int edge2 = edge / 2;
-    int edge4 = edge / 4;
+  // returns the data stored for the given key, or 0 if there is none
+  public long probe(long key) {
+    int slot = 2 * ((int) key & this.mask);
 
-    WorldImage board = new RectangleImage(scene.height, scene.width, "solid", Color.white);
+    for (int i = slot; i < slot + 2; i++) {
+      long entry = this.data[i];
 
-    for (int i = 0; i < this.cells.size(); i++) {
-      for (int j = 0; j < this.cells.get(0).size(); j++) {
-        board = this.cells.get(i).get(j).drawAt(j, i, this.grid, board);
+      if (entry != 0 && (this.keys[i] ^ entry) == key) {
+        return entry;
       }
     }
 
-    if (this.turn == 1) {
-      board = new OverlayOffsetAlign(AlignModeX.LEFT, AlignModeY.TOP,
-          new TextImage("P1", edge2, Color.red), -edge4, -edge4, board);
+    return 0;
+  }
+
+  // EFFECT: store the given result for the given key, in the deep entry of its
+  // bucket if it is at least as deep or the deep entry is from an older search
+  // and in the newest entry otherwise
+  public void store(long key, int move, int value, int depth, int flag) {
+    int slot = 2 * ((int) key & this.mask);
+    long entry = this.pack(move, value, depth, flag);
+    long deep = this.data[slot];
+
+    if (deep == 0 || (this.keys[slot] ^ deep) == key || this.depthOf(deep) <= depth
+        || this.ageOf(deep) != this.age) {
+      this.keys[slot] = key ^ entry;
+      this.data[slot] = entry;
     }
     else {
-      board = new OverlayOffsetAlign(AlignModeX.LEFT, AlignModeY.TOP,
-          new TextImage("P2", edge2, Color.blue), -edge4, -edge4, board);
+      this.keys[slot + 1] = key ^ entry;
+      this.data[slot + 1] = entry;
     }
+  }
 
-    scene.placeImageXY(board, scene.width / 2, scene.height / 2);
+  // returns the given result packed into one long that is never 0
+  long pack(int move, int value, int depth, int flag) {
+    return (move & 0xFFFFL) | ((value & 0xFFFFL) << 16) | ((depth & 0xFFL) << 32)
+        | ((long) flag << 40) | ((long) this.age << 48) | (1L << 63);
+  }
 
-    return scene;
+  // returns the move of the given entry
+  public int moveOf(long entry) {
+    return (int) (entry & 0xFFFF);
   }
 
-  // EFFECT: if a valid Cell is clicked, make the WCell become a BCell or
-  // RCell depending on the player's turn, update the turn, and end the game if
-  // a player has won
-  public void onMouseClicked(Posn pos) {
-    WorldScene scene = this.getEmptyScene();
-    int edge = scene.height / this.grid;
-    int edgeRow = pos.y / edge;
-    int edgeColumn = pos.x / edge;
-    int newTurn = this.turn;
+  // returns the value of the given entry
+  public int valueOf(long entry) {
+    return (short) (entry >>> 16);
+  }
 
-    // checks for valid clicks
-    if (edgeColumn > 0 && edgeRow > 0 && edgeColumn < this.grid - 1 && edgeRow < this.grid - 1) {
-      Cell clicked = this.cells.get(edgeRow).get(edgeColumn);
-      newTurn = clicked.click(this.turn, edgeRow, edgeColumn, this.cells);
+  // returns the depth of the given entry
+  public int depthOf(long entry) {
+    return (int) ((entry >>> 32) & 0xFF);
+  }
+
+  // returns whether the value of the given entry is EXACT, LOWER or UPPER
+  public int flagOf(long entry) {
+    return (int) ((entry >>> 40) & 0xFF);
+  }
+
+  // returns the search the given entry was stored in
+  int ageOf(long entry) {
+    return (int) ((entry >>> 48) & 0xFF);
+  }
+}
+
+//Represents who owns each Cell of a board and the groups of connected Cells
+//of each player, with a source and a target for the two edges each player
+//needs to connect, so a win is a single query instead of a search
+class Connectivity {
+  int grid;
+  // 0 for a WCell, 1 for a RCell and 2 for a BCell, indexed by row * grid + column
+  int[] owner;
+  int source;
+  int target;
+  RollbackUnionFind red;
+  RollbackUnionFind blue;
+  // the Zobrist key of the owners, without the turn
+  Zobrist zobrist = new Zobrist();
+  long key;
+  // the Cells claimed since the start of the game, and where the log of the
+  // player's sets was before each one, so claims can be undone
+  int[] claims;
+  int[] marks;
+  int claimed;
+
+  // for a new game
+  Connectivity(int grid) {
+    this.init(grid);
 
-      ArrayList<Tile> worklist = new ArrayList<Tile>();
-      // player's 1 turn
-      if (this.turn == 0) {
-        for (int i = 1; i < this.grid; i += 2) {
-          Tile addTile = this.cells.get(0).get(i);
-          worklist.add(addTile);
+    for (int i = 0; i < grid; i++) {
+      for (int j = 0; j < grid; j++) {
+        if (i % 2 == 0 && j % 2 == 1) {
+          this.claim(1, i, j);
         }
-      }
-      // player's 2 turn
-      else {
-        for (int i = 1; i < this.grid; i += 2) {
-          Tile addTile = this.cells.get(i).get(0);
-          worklist.add(addTile);
+        else if (i % 2 == 1 && j % 2 == 0) {
+          this.claim(2, i, j);
         }
       }
-
-      if (this.checkWin(worklist, this.turn)) {
-        this.endOfWorld("Player " + this.turn + " has won");
-      }
     }
 
-    this.turn = newTurn;
+    this.commit();
   }
 
-  // EFFECT: if a valid Cell is clicked, make the WCell become a BCell or
-  // RCell depending on the player's turn, update the turn, and end the game if
-  // a player has won
-  // This is made for testing since onMouseClicked the height and width of the
-  // board is dependent on big bang
-  public void onMouseClickedTest(Posn pos, int height, int column) {
-    WorldScene scene = new WorldScene(height, column);
-    int edge = scene.height / this.grid;
-    int edgeRow = pos.y / edge;
-    int edgeColumn = pos.x / edge;
-    int newTurn = this.turn;
+  // for a board of the given Cells
+  Connectivity(int grid, ArrayList<ArrayList<Cell>> cells) {
+    this.init(grid);
 
-    // checks for valid clicks
-    if (edgeColumn > 0 && edgeRow > 0 && edgeColumn < this.grid - 1 && edgeRow < this.grid - 1) {
-      Cell clicked = this.cells.get(edgeRow).get(edgeColumn);
-      newTurn = clicked.click(this.turn, edgeRow, edgeColumn, this.cells);
+    for (int i = 0; i < cells.size(); i++) {
+      for (int j = 0; j < cells.get(i).size(); j++) {
+        Cell c = cells.get(i).get(j);
 
-      ArrayList<Tile> worklist = new ArrayList<Tile>();
-      // player's 1 turn
-      if (this.turn == 1) {
-        for (int i = 1; i < this.grid; i += 2) {
-          Tile addTile = this.cells.get(0).get(i);
-          worklist.add(addTile);
+        if (c.path(1)) {
+          this.claim(1, i, j);
         }
-      }
-      // player's 2 turn
-      else {
-        for (int i = 1; i < this.grid; i += 2) {
-          Tile addTile = this.cells.get(i).get(0);
-          worklist.add(addTile);
+        else if (c.path(2)) {
+          this.claim(2, i, j);
         }
       }
-
-      if (this.checkWin(worklist, this.turn)) {
-        this.endOfWorld("Player " + this.turn + " has won");
-      }
     }
 
-    this.turn = newTurn;
+    this.commit();
   }
 
-  // determines if a player has won by checking if there is a path
-  // from any source in the given worklist to the target using
-  // depth first search
-  public boolean checkWin(ArrayList<Tile> worklist, int turn) {
-    ArrayList<Tile> seenList = new ArrayList<Tile>();
+  // EFFECT: make an empty board of the given size
+  void init(int grid) {
+    this.grid = grid;
+    this.owner = new int[grid * grid];
+    this.source = grid * grid;
+    this.target = grid * grid + 1;
+    this.red = new RollbackUnionFind(grid * grid + 2);
+    this.blue = new RollbackUnionFind(grid * grid + 2);
+    this.claims = new int[16];
+    this.marks = new int[16];
+  }
 
-    while (worklist.size() > 0) {
-      Tile next = worklist.remove(0);
-      ArrayList<Tile> nextLinks = next.addLinks();
+  // EFFECT: make the Cells claimed so far the start, which can't be undone
+  void commit() {
+    this.red.commit();
+    this.blue.commit();
+    this.claimed = 0;
+  }
 
-      if (next.isTarget()) {
-        return true;
-      }
-      else if (seenList.contains(next)) {
-        // do nothing
-      }
-      else {
-        for (Tile t : nextLinks) {
-          if (t.path(turn)) {
-            worklist.add(0, t);
-          }
-        }
-        seenList.add(next);
-      }
+  // EFFECT: give the Cell at the given row and column to the player of the
+  // given turn and join it to that player's neighboring Cells and edges
+  public void claim(int turn, int row, int column) {
+    int player = 2;
+    RollbackUnionFind sets = this.blue;
+    int index = row * this.grid + column;
+
+    if (turn == 1) {
+      player = 1;
+      sets = this.red;
+    }
+
+    if (this.claimed == this.claims.length) {
+      this.claims = Arrays.copyOf(this.claims, 2 * this.claimed);
+      this.marks = Arrays.copyOf(this.marks, 2 * this.claimed);
+    }
+
+    this.claims[this.claimed] = index;
+    this.marks[this.claimed] = sets.checkpoint();
+    this.claimed += 1;
+
+    this.owner[index] = player;
+    this.key ^= this.zobrist.cell(index, player);
+
+    if (row > 0 && this.owner[index - this.grid] == player) {
+      sets.union(index, index - this.grid);
+    }
+    if (row < this.grid - 1 && this.owner[index + this.grid] == player) {
+      sets.union(index, index + this.grid);
+    }
+    if (column > 0 && this.owner[index - 1] == player) {
+      sets.union(index, index - 1);
+    }
+    if (column < this.grid - 1 && this.owner[index + 1] == player) {
+      sets.union(index, index + 1);
+    }
+
+    // player 1 connects the top to the bottom
+    if (player == 1 && row == 0) {
+      sets.union(index, this.source);
+    }
+    if (player == 1 && row == this.grid - 1) {
+      sets.union(index, this.target);
+    }
+
+    // player 2 connects the left to the right
+    if (player == 2 && column == 0) {
+      sets.union(index, this.source);
+    }
+    if (player == 2 && column == this.grid - 1) {
+      sets.union(index, this.target);
+    }
+  }
+
+  // EFFECT: undo the last claim since the start, giving the Cell back to
+  // nobody and splitting the sets it joined
+  // returns the index of the Cell, or -1 if there was nothing to undo
+  public int unclaim() {
+    if (this.claimed == 0) {
+      return -1;
+    }
+
+    this.claimed -= 1;
+
+    int index = this.claims[this.claimed];
+    int player = this.owner[index];
+
+    this.owner[index] = 0;
+    this.key ^= this.zobrist.cell(index, player);
+
+    if (player == 1) {
+      this.red.rollback(this.marks[this.claimed]);
+    }
+    else {
+      this.blue.rollback(this.marks[this.claimed]);
+    }
+
+    return index;
+  }
+
+  // has the player of the given turn connected both of their edges?
+  public boolean hasWon(int turn) {
+    if (turn == 1) {
+      return this.red.connected(this.source, this.target);
+    }
+    else {
+      return this.blue.connected(this.source, this.target);
+    }
+  }
+}
+
+//Represents the open WCells inside the edges of a board as a sparse set:
+//cells holds the moves in no particular order and pos[move] is where a move
+//is in cells, so claiming, adding back, checking and picking a move at
+//random are all O(1) and nothing is allocated after it is made
+//pos is only right for moves that are in the set, which is how contains
+//can tell and how clear can be O(1)
+class MoveList {
+  int[] cells;
+  int[] pos;
+  int size;
+
+  // for an empty set of moves below the given capacity
+  MoveList(int capacity) {
+    this.cells = new int[capacity];
+    this.pos = new int[capacity];
+  }
+
+  // for a copy of the given MoveList
+  MoveList(MoveList other) {
+    this(other.cells.length);
+    this.copyFrom(other);
+  }
+
+  // EFFECT: make this the same set as the given MoveList of the same
+  // capacity, in time for its size and not its capacity
+  public void copyFrom(MoveList other) {
+    System.arraycopy(other.cells, 0, this.cells, 0, other.size);
+    this.size = other.size;
+
+    for (int k = 0; k < this.size; k++) {
+      this.pos[this.cells[k]] = k;
+    }
+  }
+
+  // is the given move in this set?
+  public boolean contains(int move) {
+    int k = this.pos[move];
+    return k < this.size && this.cells[k] == move;
+  }
+
+  // EFFECT: add the given move if it isn't in this set
+  public void add(int move) {
+    if (!this.contains(move)) {
+      this.cells[this.size] = move;
+      this.pos[move] = this.size;
+      this.size += 1;
+    }
+  }
+
+  // EFFECT: take the given move out of this set by moving the last move into
+  // its place
+  // returns whether it was in this set
+  public boolean remove(int move) {
+    if (!this.contains(move)) {
+      return false;
+    }
+
+    int k = this.pos[move];
+    int last = this.cells[this.size - 1];
+
+    this.cells[k] = last;
+    this.pos[last] = k;
+    this.size -= 1;
+
+    return true;
+  }
+
+  // returns the move at the given place, from 0 up to size, so a random move
+  // is get(rand.nextInt(size))
+  public int get(int k) {
+    return this.cells[k];
+  }
+
+  // returns how many moves there are
+  public int size() {
+    return this.size;
+  }
+
+  // EFFECT: take every move out of this set
+  public void clear() {
+    this.size = 0;
+  }
+
+  // EFFECT: write every move into the given array
+  // returns how many were written
+  public int toArray(int[] out) {
+    System.arraycopy(this.cells, 0, out, 0, this.size);
+    return this.size;
+  }
+}
+
+//Represents the virtual connections of both players of a Bridgit game: each
+//WCell joins two Cells of player 1 and two of player 2, so to a player it is
+//a link between two of their groups, and two groups with at least two open
+//links between them are virtually connected, since the other player can
+//only take one link before they answer with the other
+//No WCell is a link between two pairs of groups, so the carriers, the open
+//links, of different virtual connections never overlap and a chain of them
+//from one edge to the other is a win whoever moves
+//The groups come from the union-find of a Connectivity, which is kept up to
+//date move by move, so update only looks at the open Cells once
+class VirtualConnections {
+  int grid;
+  int size;
+  int source;
+  int target;
+  // the two Cells each WCell joins, for each player, by index
+  int[][] endA;
+  int[][] endB;
+  // for each player, a hash table of the pairs of groups that are linked,
+  // with how many links there are and the first two of them, where a slot is
+  // only in use if its stamp is this generation
+  int mask;
+  long[][] keys;
+  int[][] counts;
+  int[][] firsts;
+  int[][] seconds;
+  int[][] stamps;
+  int generation;
+  // the slots in use, in the order they were filled
+  int[][] used;
+  int[] usedCount;
+  // the groups joined by claimed Cells and virtual connections
+  UnionFind[] sets;
+  int[] vcs;
+  boolean[] forced;
+  // open Cells between two Cells of one group of a player, which wall the
+  // Cell in so the link of the other player through it can't lead anywhere
+  // either
+  boolean[] dead;
+  Connectivity connect;
+  Zobrist zobrist = new Zobrist();
+  // scratch space for the Cells forcingMove tries
+  int[] candidates;
+
+  VirtualConnections(int grid) {
+    this.grid = grid;
+    this.size = grid * grid;
+    this.source = this.size;
+    this.target = this.size + 1;
+    this.endA = new int[3][this.size];
+    this.endB = new int[3][this.size];
+
+    for (int i = 1; i < grid - 1; i++) {
+      for (int j = 1; j < grid - 1; j++) {
+        int index = i * grid + j;
+        int vertical = 1;
+
+        // player 1's Cells are above and below the WCells of odd rows
+        if (i % 2 == 0) {
+          vertical = 2;
+        }
+
+        this.endA[vertical][index] = index - grid;
+        this.endB[vertical][index] = index + grid;
+        this.endA[3 - vertical][index] = index - 1;
+        this.endB[3 - vertical][index] = index + 1;
+      }
+    }
+
+    int capacity = Integer.highestOneBit(Math.max(2, this.size)) * 4;
+
+    this.mask = capacity - 1;
+    this.keys = new long[3][capacity];
+    this.counts = new int[3][capacity];
+    this.firsts = new int[3][capacity];
+    this.seconds = new int[3][capacity];
+    this.stamps = new int[3][capacity];
+    this.used = new int[3][this.size];
+    this.usedCount = new int[3];
+    this.sets = new UnionFind[] { null, new UnionFind(this.size + 2),
+        new UnionFind(this.size + 2) };
+    this.vcs = new int[3];
+    this.forced = new boolean[3];
+    this.dead = new boolean[this.size];
+    this.candidates = new int[this.size];
+  }
+
+  // EFFECT: find the links and virtual connections of both players on the
+  // board of the given Connectivity
+  public void update(Connectivity connect) {
+    this.connect = connect;
+    this.generation += 1;
+
+    for (int p = 1; p <= 2; p++) {
+      this.usedCount[p] = 0;
+      this.vcs[p] = 0;
+
+      for (int k = 0; k < this.size + 2; k++) {
+        this.sets[p].parent[k] = k;
+        this.sets[p].rank[k] = 0;
+      }
+    }
+
+    for (int i = 1; i < this.grid - 1; i++) {
+      for (int j = 1; j < this.grid - 1; j++) {
+        int index = i * this.grid + j;
+
+        if (connect.owner[index] == 0) {
+          boolean link1 = this.link(1, connect.red, index);
+          boolean link2 = this.link(2, connect.blue, index);
+
+          this.dead[index] = !link1 || !link2;
+        }
+      }
+    }
+
+    for (int p = 1; p <= 2; p++) {
+      UnionFind groups = connect.red;
+
+      if (p == 2) {
+        groups = connect.blue;
+      }
+
+      for (int k = 0; k < this.usedCount[p]; k++) {
+        int slot = this.used[p][k];
+
+        if (this.counts[p][slot] >= 2) {
+          long key = this.keys[p][slot];
+          this.sets[p].union((int) (key >>> 32), (int) key);
+          this.vcs[p] += 1;
+        }
+      }
+
+      this.forced[p] = this.sets[p].connected(groups.find(this.source),
+          groups.find(this.target));
+    }
+  }
+
+  // EFFECT: add the given open Cell as a link between the two groups of the
+  // given player it joins
+  // returns whether they are two groups
+  boolean link(int player, UnionFind groups, int index) {
+    int a = this.endA[player][index];
+    int b = this.endB[player][index];
+
+    if (this.connect.owner[a] != player || this.connect.owner[b] != player) {
+      return false;
+    }
+
+    int rootA = groups.find(a);
+    int rootB = groups.find(b);
+
+    if (rootA == rootB) {
+      return false;
+    }
+
+    long key = ((long) Math.min(rootA, rootB) << 32) | Math.max(rootA, rootB);
+    int slot = (int) (this.zobrist.mix(key) & this.mask);
+
+    while (this.stamps[player][slot] == this.generation && this.keys[player][slot] != key) {
+      slot = (slot + 1) & this.mask;
+    }
+
+    if (this.stamps[player][slot] != this.generation) {
+      this.stamps[player][slot] = this.generation;
+      this.keys[player][slot] = key;
+      this.counts[player][slot] = 0;
+      this.firsts[player][slot] = index;
+      this.used[player][this.usedCount[player]] = slot;
+      this.usedCount[player] += 1;
+    }
+    else if (this.counts[player][slot] == 1) {
+      this.seconds[player][slot] = index;
+    }
+
+    this.counts[player][slot] += 1;
+    return true;
+  }
+
+  // does the given player connect their edges through claimed Cells and
+  // virtual connections, a win whoever moves?
+  public boolean isForced(int player) {
+    return this.forced[player];
+  }
+
+  // returns the player that has a forced win, or 0 if neither does
+  public int forcedWinner() {
+    if (this.forced[1]) {
+      return 1;
+    }
+    else if (this.forced[2]) {
+      return 2;
+    }
+    else {
+      return 0;
+    }
+  }
+
+  // returns how many virtual connections the given player has
+  public int count(int player) {
+    return this.vcs[player];
+  }
+
+  // returns an open Cell that gives the given player a forced win if they
+  // claim it, such as the answer to a move into one of their virtual
+  // connections, or -1 if there is none or they already have one
+  // Each Cell that isn't dead is tried by claiming it in the Connectivity and
+  // undoing the claim after
+  public int forcingMove(int player) {
+    if (this.forced[player]) {
+      return -1;
+    }
+
+    Connectivity connect = this.connect;
+    int count = 0;
+    int found = -1;
+
+    for (int i = 1; i < this.grid - 1; i++) {
+      for (int j = 1; j < this.grid - 1; j++) {
+        int index = i * this.grid + j;
+
+        if (connect.owner[index] == 0 && !this.dead[index]) {
+          this.candidates[count] = index;
+          count += 1;
+        }
+      }
+    }
+
+    for (int k = 0; k < count && found < 0; k++) {
+      int index = this.candidates[k];
+
+      connect.claim(player, index / this.grid, index % this.grid);
+      this.update(connect);
+
+      if (this.forced[player]) {
+        found = index;
+      }
+
+      connect.unclaim();
+    }
+
+    this.update(connect);
+    return found;
+  }
+
+  // returns the other link of the given player's virtual connection with
+  // exactly two links that the given open Cell is one of, the Cell to answer
+  // with if the other player claims it, or -1 if it isn't one
+  public int partner(int index, int player) {
+    UnionFind groups = this.connect.red;
+
+    if (player == 2) {
+      groups = this.connect.blue;
+    }
+
+    int a = groups.find(this.endA[player][index]);
+    int b = groups.find(this.endB[player][index]);
+    long key = ((long) Math.min(a, b) << 32) | Math.max(a, b);
+    int slot = (int) (this.zobrist.mix(key) & this.mask);
+
+    while (this.stamps[player][slot] == this.generation) {
+      if (this.keys[player][slot] == key && this.counts[player][slot] == 2) {
+        if (this.firsts[player][slot] == index) {
+          return this.seconds[player][slot];
+        }
+        else if (this.seconds[player][slot] == index) {
+          return this.firsts[player][slot];
+        }
+      }
+
+      slot = (slot + 1) & this.mask;
+    }
+
+    return -1;
+  }
+
+  // is the given open Cell no use to either player, so search can skip it?
+  public boolean isDead(int index) {
+    return this.connect.owner[index] == 0 && this.dead[index];
+  }
+}
+
+//Represents an analysis of the open Cells of a Bridgit board that finds the
+//ones a search can skip. Each open Cell is a link between two groups of each
+//player, and for either player it is
+// - dead if its two groups are one group, or one of them is cut off: a group
+//   without an edge that has open links to no more than one other group,
+//   found again and again as dead links cut off more groups. No path between
+//   the edges uses a dead link, and a Cell dead to one player is no use to
+//   the other either
+// - captured if another open Cell links the same two groups, since if the
+//   other player claims one the player claims the other, so a move there by
+//   either player is no better than passing
+//A move into a dead or captured Cell is never better than any other move,
+//since a Cell more never hurts, so moves leaves them out unless nothing is
+//left. The groups are found from the board on each update, so it works on
+//any BitBoard a search makes and unmakes moves on
+class DeadCellAnalysis {
+  int grid;
+  int size;
+  int source;
+  int target;
+  // the two Cells each WCell joins, for each player, by index
+  int[][] endA;
+  int[][] endB;
+  UnionFind[] groups;
+  // the open Cells inside the edges, and the groups at the ends of each
+  int[] opens;
+  int openCount;
+  int[][] groupA;
+  int[][] groupB;
+  boolean[] dead;
+  // the players, bit 1 and bit 2, that have captured each open Cell
+  int[] captured;
+  int deadCount;
+  int capturedCount;
+  // scratch space: the first other group each group links to and whether it
+  // links to more than one, and the pairs of groups of the links to sort
+  int[] neighbor;
+  int[] degree;
+  long[] pairs;
+
+  DeadCellAnalysis(int grid) {
+    this.grid = grid;
+    this.size = grid * grid;
+    this.source = this.size;
+    this.target = this.size + 1;
+    this.endA = new int[3][this.size];
+    this.endB = new int[3][this.size];
+
+    for (int i = 1; i < grid - 1; i++) {
+      for (int j = 1; j < grid - 1; j++) {
+        int index = i * grid + j;
+        int vertical = 1;
+
+        // player 1's Cells are above and below the WCells of odd rows
+        if (i % 2 == 0) {
+          vertical = 2;
+        }
+
+        this.endA[vertical][index] = index - grid;
+        this.endB[vertical][index] = index + grid;
+        this.endA[3 - vertical][index] = index - 1;
+        this.endB[3 - vertical][index] = index + 1;
+      }
+    }
+
+    this.groups = new UnionFind[] { null, new UnionFind(this.size + 2),
+        new UnionFind(this.size + 2) };
+    this.opens = new int[this.size];
+    this.groupA = new int[3][this.size];
+    this.groupB = new int[3][this.size];
+    this.dead = new boolean[this.size];
+    this.captured = new int[this.size];
+    this.neighbor = new int[this.size + 2];
+    this.degree = new int[this.size + 2];
+    this.pairs = new long[this.size];
+  }
+
+  // EFFECT: find the dead and captured open Cells of the given board
+  public void update(BitBoard board) {
+    this.openCount = 0;
+    this.deadCount = 0;
+    this.capturedCount = 0;
+
+    for (int i = 1; i < this.grid - 1; i++) {
+      for (int j = 1; j < this.grid - 1; j++) {
+        if (i % 2 == j % 2 && board.owner(i, j) == 0) {
+          this.opens[this.openCount] = i * this.grid + j;
+          this.openCount += 1;
+        }
+      }
+    }
+
+    for (int p = 1; p <= 2; p++) {
+      this.group(board, p);
+    }
+
+    for (int k = 0; k < this.openCount; k++) {
+      int index = this.opens[k];
+
+      this.dead[index] = false;
+      this.captured[index] = 0;
+
+      for (int p = 1; p <= 2; p++) {
+        this.groupA[p][k] = this.groups[p].find(this.endA[p][index]);
+        this.groupB[p][k] = this.groups[p].find(this.endB[p][index]);
+        this.dead[index] |= this.groupA[p][k] == this.groupB[p][k];
+      }
+    }
+
+    boolean changed = true;
+
+    while (changed) {
+      changed = false;
+
+      for (int p = 1; p <= 2; p++) {
+        changed |= this.cutOff(p);
+      }
+    }
+
+    for (int p = 1; p <= 2; p++) {
+      this.capture(p);
+    }
+
+    for (int k = 0; k < this.openCount; k++) {
+      if (this.dead[this.opens[k]]) {
+        this.deadCount += 1;
+      }
+      else if (this.captured[this.opens[k]] != 0) {
+        this.capturedCount += 1;
+      }
+    }
+  }
+
+  // EFFECT: join the given player's Cells of the given board into groups,
+  // with their first edge at this.source and their last at this.target
+  void group(BitBoard board, int player) {
+    UnionFind groups = this.groups[player];
+
+    for (int k = 0; k < this.size + 2; k++) {
+      groups.parent[k] = k;
+      groups.rank[k] = 0;
+    }
+
+    for (int i = 0; i < this.grid; i++) {
+      for (int j = 0; j < this.grid; j++) {
+        if (board.owner(i, j) == player) {
+          int index = i * this.grid + j;
+
+          if (i + 1 < this.grid && board.owner(i + 1, j) == player) {
+            groups.union(index, index + this.grid);
+          }
+
+          if (j + 1 < this.grid && board.owner(i, j + 1) == player) {
+            groups.union(index, index + 1);
+          }
+
+          // player 1 connects the top to the bottom and player 2 the left to
+          // the right
+          int along = i;
+
+          if (player == 2) {
+            along = j;
+          }
+
+          if (along == 0) {
+            groups.union(index, this.source);
+          }
+          else if (along == this.grid - 1) {
+            groups.union(index, this.target);
+          }
+        }
+      }
+    }
+  }
+
+  // EFFECT: make every link of the given player that isn't dead yet but
+  // touches a cut off group dead
+  // returns whether any link became dead
+  boolean cutOff(int player) {
+    int[] a = this.groupA[player];
+    int[] b = this.groupB[player];
+    boolean changed = false;
+
+    for (int k = 0; k < this.openCount; k++) {
+      this.neighbor[a[k]] = -1;
+      this.neighbor[b[k]] = -1;
+    }
+
+    for (int k = 0; k < this.openCount; k++) {
+      if (!this.dead[this.opens[k]]) {
+        this.link(a[k], b[k]);
+        this.link(b[k], a[k]);
+      }
+    }
+
+    int first = this.groups[player].find(this.source);
+    int last = this.groups[player].find(this.target);
+
+    for (int k = 0; k < this.openCount; k++) {
+      int index = this.opens[k];
+
+      if (!this.dead[index]
+          && ((a[k] != first && a[k] != last && this.degree[a[k]] < 2)
+              || (b[k] != first && b[k] != last && this.degree[b[k]] < 2))) {
+        this.dead[index] = true;
+        changed = true;
+      }
+    }
+
+    return changed;
+  }
+
+  // EFFECT: count the given other group as a neighbor of the given group, up
+  // to two different ones
+  void link(int group, int other) {
+    if (this.neighbor[group] == -1) {
+      this.neighbor[group] = other;
+      this.degree[group] = 1;
+    }
+    else if (this.neighbor[group] != other) {
+      this.degree[group] = 2;
+    }
+  }
+
+  // EFFECT: mark the links of the given player that aren't dead and link the
+  // same two groups as another such link as captured by them
+  void capture(int player) {
+    int[] a = this.groupA[player];
+    int[] b = this.groupB[player];
+    long groups = this.size + 2;
+    int count = 0;
+
+    for (int k = 0; k < this.openCount; k++) {
+      if (!this.dead[this.opens[k]]) {
+        long pair = Math.min(a[k], b[k]) * groups + Math.max(a[k], b[k]);
+        this.pairs[count] = (pair << 21) | k;
+        count += 1;
+      }
+    }
+
+    Arrays.sort(this.pairs, 0, count);
+
+    for (int k = 1; k < count; k++) {
+      if (this.pairs[k] >>> 21 == this.pairs[k - 1] >>> 21) {
+        this.captured[this.opens[(int) (this.pairs[k] & 0x1FFFFF)]] |= player;
+        this.captured[this.opens[(int) (this.pairs[k - 1] & 0x1FFFFF)]] |= player;
+      }
+    }
+  }
+
+  // is the given open Cell dead?
+  public boolean isDead(int index) {
+    return this.dead[index];
+  }
+
+  // returns the players, bit 1 and bit 2, that have captured the given open
+  // Cell, 0 if none has
+  public int capturedBy(int index) {
+    return this.captured[index];
+  }
+
+  // EFFECT: write the open Cells that are neither dead nor captured into the
+  // given array, or one open Cell if every one is
+  // returns how many were written
+  public int moves(int[] out) {
+    int count = 0;
+
+    for (int k = 0; k < this.openCount; k++) {
+      int index = this.opens[k];
+
+      if (!this.dead[index] && this.captured[index] == 0) {
+        out[count] = index;
+        count += 1;
+      }
+    }
+
+    if (count == 0 && this.openCount > 0) {
+      out[0] = this.opens[0];
+      count = 1;
+    }
+
+    return count;
+  }
+}
+
+//Represents a Bridgit board as bitsets of the red, blue and white Cells,
+//where each row of the board is a few longs and bit j of a row is column j,
+//so a whole board is three small arrays instead of a graph of Cells
+class BitBoard {
+  int grid;
+  // the number of longs in each row
+  int words;
+  long[] red;
+  long[] blue;
+  long[] white;
+  int turn;
+  // the Zobrist key of this position
+  Zobrist zobrist;
+  long key;
+  // the open WCells inside the edges
+  MoveList open;
+  // scratch space for finding the Cells connected to an edge
+  long[] reach;
+
+  // for a new game
+  BitBoard(int grid) {
+    if (grid % 2 == 0 || grid < 3) {
+      throw new IllegalArgumentException("the number needs to be odd and greater than 3");
+    }
+
+    this.init(grid);
+
+    for (int i = 0; i < grid; i++) {
+      for (int j = 0; j < grid; j++) {
+        if (i % 2 == 0 && j % 2 == 1) {
+          this.set(this.red, i, j);
+        }
+        else if (i % 2 == 1 && j % 2 == 0) {
+          this.set(this.blue, i, j);
+        }
+        else {
+          this.set(this.white, i, j);
+        }
+      }
+    }
+
+    this.fillOpen();
+    this.key = this.computeKey();
+  }
+
+  // for a board of the given Cells with the given turn
+  BitBoard(int grid, ArrayList<ArrayList<Cell>> cells, int turn) {
+    this.init(grid);
+    this.turn = turn;
+
+    for (int i = 0; i < cells.size(); i++) {
+      for (int j = 0; j < cells.get(i).size(); j++) {
+        Cell c = cells.get(i).get(j);
+
+        if (c.path(1)) {
+          this.set(this.red, i, j);
+        }
+        else if (c.path(2)) {
+          this.set(this.blue, i, j);
+        }
+        else {
+          this.set(this.white, i, j);
+        }
+      }
+    }
+
+    this.fillOpen();
+    this.key = this.computeKey();
+  }
+
+  // for a copy of the given BitBoard
+  BitBoard(BitBoard other) {
+    this.grid = other.grid;
+    this.words = other.words;
+    this.red = other.red.clone();
+    this.blue = other.blue.clone();
+    this.white = other.white.clone();
+    this.turn = other.turn;
+    this.zobrist = other.zobrist;
+    this.key = other.key;
+    this.open = new MoveList(other.open);
+  }
+
+  // EFFECT: make this board the same as the given board of the same size,
+  // without allocating
+  public void copyFrom(BitBoard other) {
+    System.arraycopy(other.red, 0, this.red, 0, this.red.length);
+    System.arraycopy(other.blue, 0, this.blue, 0, this.blue.length);
+    System.arraycopy(other.white, 0, this.white, 0, this.white.length);
+    this.turn = other.turn;
+    this.key = other.key;
+    this.open.copyFrom(other.open);
+  }
+
+  // EFFECT: make an empty board of the given size with player 1 to move
+  void init(int grid) {
+    this.grid = grid;
+    this.words = (grid + 63) / 64;
+    this.red = new long[grid * this.words];
+    this.blue = new long[grid * this.words];
+    this.white = new long[grid * this.words];
+    this.turn = 1;
+    this.zobrist = new Zobrist();
+    this.open = new MoveList(grid * grid);
+  }
+
+  // EFFECT: put every WCell inside the edges into this.open
+  void fillOpen() {
+    int[] moves = new int[this.grid * this.grid];
+    int count = this.openCells(moves);
+
+    for (int k = 0; k < count; k++) {
+      this.open.add(moves[k]);
+    }
+  }
+
+  // returns the Zobrist key of this position from scratch
+  public long computeKey() {
+    int[] owner = new int[this.grid * this.grid];
+
+    for (int i = 0; i < this.grid; i++) {
+      for (int j = 0; j < this.grid; j++) {
+        owner[i * this.grid + j] = this.owner(i, j);
+      }
+    }
+
+    return this.zobrist.key(owner, this.turn);
+  }
+
+  // EFFECT: turn on the bit of the given row and column in the given bitset
+  void set(long[] bits, int row, int column) {
+    bits[row * this.words + (column >> 6)] |= 1L << (column & 63);
+  }
+
+  // EFFECT: turn off the bit of the given row and column in the given bitset
+  void clear(long[] bits, int row, int column) {
+    bits[row * this.words + (column >> 6)] &= ~(1L << (column & 63));
+  }
+
+  // is the bit of the given row and column on in the given bitset?
+  boolean get(long[] bits, int row, int column) {
+    return (bits[row * this.words + (column >> 6)] & (1L << (column & 63))) != 0;
+  }
+
+  // returns 0 for a WCell, 1 for a RCell and 2 for a BCell at the given row
+  // and column
+  public int owner(int row, int column) {
+    if (this.get(this.red, row, column)) {
+      return 1;
+    }
+    else if (this.get(this.blue, row, column)) {
+      return 2;
+    }
+    else {
+      return 0;
+    }
+  }
+
+  // EFFECT: if the Cell at the given row and column is a WCell inside the
+  // edges, make it red or blue depending on the player's turn
+  // return the turn of the next player
+  public int click(int row, int column) {
+    if (row > 0 && column > 0 && row < this.grid - 1 && column < this.grid - 1
+        && this.get(this.white, row, column)) {
+      this.clear(this.white, row, column);
+      this.open.remove(row * this.grid + column);
+      this.key ^= this.zobrist.cell(row * this.grid + column, this.turn) ^ this.zobrist.turn();
+
+      if (this.turn == 1) {
+        this.set(this.red, row, column);
+        this.turn = 2;
+      }
+      else {
+        this.set(this.blue, row, column);
+        this.turn = 1;
+      }
+    }
+
+    return this.turn;
+  }
+
+  // EFFECT: if the Cell at the given row and column is a claimed Cell inside
+  // the edges, make it a WCell again and give the turn back to the player
+  // that claimed it, undoing click
+  // return the turn of the next player
+  public int unclick(int row, int column) {
+    int player = this.owner(row, column);
+
+    if (row > 0 && column > 0 && row < this.grid - 1 && column < this.grid - 1 && player != 0) {
+      if (player == 1) {
+        this.clear(this.red, row, column);
+      }
+      else {
+        this.clear(this.blue, row, column);
+      }
+
+      this.set(this.white, row, column);
+      this.open.add(row * this.grid + column);
+      this.turn = player;
+      this.key ^= this.zobrist.cell(row * this.grid + column, player) ^ this.zobrist.turn();
+    }
+
+    return this.turn;
+  }
+
+  // EFFECT: write the index, row * grid + column, of every WCell inside the
+  // edges into the given array in order, this.open has them without a scan
+  // returns how many were written
+  public int openCells(int[] out) {
+    int count = 0;
+
+    for (int i = 1; i < this.grid - 1; i++) {
+      for (int w = 0; w < this.words; w++) {
+        long bits = this.white[i * this.words + w];
+
+        while (bits != 0) {
+          int column = (w << 6) + Long.numberOfTrailingZeros(bits);
+          bits &= bits - 1;
+
+          if (column > 0 && column < this.grid - 1) {
+            out[count] = i * this.grid + column;
+            count += 1;
+          }
+        }
+      }
+    }
+
+    return count;
+  }
+
+  // has the player of the given turn connected both of their edges?
+  // player 1 connects the top to the bottom and player 2 the left to the right
+  public boolean hasWon(int turn) {
+    if (this.reach == null) {
+      this.reach = new long[this.grid * this.words];
+    }
+
+    if (turn == 1) {
+      return this.spread(this.red, true);
+    }
+    else {
+      return this.spread(this.blue, false);
+    }
+  }
+
+  // grows this reach from the given player's first edge through their own
+  // Cells by shifting whole rows at a time until nothing new is reached
+  // returns whether the reach touches the player's last edge
+  boolean spread(long[] own, boolean topToBottom) {
+    int last = this.grid - 1;
+    long lastBit = 1L << (last & 63);
+    int lastWord = last >> 6;
+
+    for (int k = 0; k < this.reach.length; k++) {
+      this.reach[k] = 0;
+    }
+
+    // start from the first edge
+    if (topToBottom) {
+      for (int w = 0; w < this.words; w++) {
+        this.reach[w] = own[w];
+      }
+    }
+    else {
+      for (int i = 0; i < this.grid; i++) {
+        this.reach[i * this.words] = own[i * this.words] & 1L;
+      }
+    }
+
+    boolean changed = true;
+
+    while (changed) {
+      changed = false;
+
+      // sweep down then up so a winding path needs few passes
+      for (int k = 0; k < 2 * this.grid; k++) {
+        int i = k;
+
+        if (k >= this.grid) {
+          i = 2 * this.grid - 1 - k;
+        }
+
+        if (this.spreadRow(own, i)) {
+          changed = true;
+        }
+      }
+    }
+
+    if (topToBottom) {
+      for (int w = 0; w < this.words; w++) {
+        if (this.reach[last * this.words + w] != 0) {
+          return true;
+        }
+      }
+    }
+    else {
+      for (int i = 0; i < this.grid; i++) {
+        if ((this.reach[i * this.words + lastWord] & lastBit) != 0) {
+          return true;
+        }
+      }
+    }
+
+    return false;
+  }
+
+  // EFFECT: add to the given row of this reach every own Cell next to a
+  // reached Cell above, below, left or right of it
+  // returns whether anything was added
+  boolean spreadRow(long[] own, int row) {
+    int start = row * this.words;
+    boolean added = false;
+    boolean grew = true;
+
+    while (grew) {
+      grew = false;
+
+      for (int w = 0; w < this.words; w++) {
+        int k = start + w;
+        long bits = this.reach[k];
+        long next = bits | (bits << 1) | (bits >>> 1);
+
+        if (w > 0) {
+          next |= this.reach[k - 1] >>> 63;
+        }
+        if (w < this.words - 1) {
+          next |= this.reach[k + 1] << 63;
+        }
+        if (row > 0) {
+          next |= this.reach[k - this.words];
+        }
+        if (row < this.grid - 1) {
+          next |= this.reach[k + this.words];
+        }
+
+        next &= own[k];
+
+        if (next != bits) {
+          this.reach[k] = next;
+          grew = true;
+          added = true;
+        }
+      }
+    }
+
+    return added;
+  }
+
+  // draws this board with a given canvas width and height and tells which
+  // player's turn it is, the same way as Bridgit.makeSceneTest
+  public WorldScene draw(int width, int height) {
+    WorldScene scene = new WorldScene(width, height);
+    int edge = scene.height / this.grid;
+    int edge2 = edge / 2;
+    int edge4 = edge / 4;
+    WorldImage board = new RectangleImage(scene.height, scene.width, "solid", Color.white);
+
+    for (int i = 0; i < this.grid; i++) {
+      for (int j = 0; j < this.grid; j++) {
+        Color color = Color.white;
+
+        if (this.owner(i, j) == 1) {
+          color = Color.red;
+        }
+        else if (this.owner(i, j) == 2) {
+          color = Color.blue;
+        }
+
+        WorldImage draw = new RectangleImage(edge, edge, "solid", color);
+        board = new OverlayOffsetAlign(AlignModeX.LEFT, AlignModeY.TOP, draw,
+            -j * draw.getWidth(), -i * draw.getHeight(), board);
+      }
+    }
+
+    if (this.turn == 1) {
+      board = new OverlayOffsetAlign(AlignModeX.LEFT, AlignModeY.TOP,
+          new TextImage("P1", edge2, Color.red), -edge4, -edge4, board);
+    }
+    else {
+      board = new OverlayOffsetAlign(AlignModeX.LEFT, AlignModeY.TOP,
+          new TextImage("P2", edge2, Color.blue), -edge4, -edge4, board);
+    }
+
+    scene.placeImageXY(board, scene.width / 2, scene.height / 2);
+
+    return scene;
+  }
+}
+
+//Represents a computer player of Bridgit
+interface BridgitPlayer {
+
+  // returns the index, row * grid + column, of the WCell the player whose
+  // turn it is on the given board should claim
+  public int chooseMove(BitBoard board);
+
+  // EFFECT: think about the given board while the other player does, by
+  // default nothing
+  public default void ponder(BitBoard board) {
+    // most players don't ponder
+  }
+
+  // EFFECT: stop thinking about the other player's turn, by default nothing
+  public default void stopPondering() {
+    // most players don't ponder
+  }
+}
+
+//Represents a position in a Monte Carlo search tree, reached by claiming
+//move for player, whose statistics are shared by every search thread
+class MctsNode {
+  MctsNode parent;
+  int move;
+  int player;
+  // the moves from this position in a random order, each thread that expands
+  // this node takes the next one
+  int[] untried;
+  int untriedCount;
+  AtomicInteger expanded;
+  AtomicReferenceArray<MctsNode> children;
+  // counted when a thread walks through, so threads avoid each other's paths
+  // until their playouts come back, this is the virtual loss
+  AtomicInteger visits;
+  // the playouts through this node that player won
+  AtomicInteger wins;
+
+  MctsNode(MctsNode parent, int move, int player, BitBoard board, MctsWorker worker) {
+    this.parent = parent;
+    this.move = move;
+    this.player = player;
+    this.untried = new int[board.open.size()];
+    this.untriedCount = board.open.toArray(this.untried);
+    this.expanded = new AtomicInteger(0);
+    this.children = new AtomicReferenceArray<MctsNode>(this.untriedCount);
+    this.visits = new AtomicInteger(0);
+    this.wins = new AtomicInteger(0);
+
+    for (int i = this.untriedCount - 1; i > 0; i--) {
+      int j = worker.nextInt(i + 1);
+      int move2 = this.untried[i];
+      this.untried[i] = this.untried[j];
+      this.untried[j] = move2;
+    }
+  }
+
+  // returns the index of the untried move the calling thread gets to expand,
+  // or -1 if every move has a child
+  public int claimUntried() {
+    if (this.expanded.get() >= this.untriedCount) {
+      return -1;
+    }
+
+    int index = this.expanded.getAndIncrement();
+
+    if (index >= this.untriedCount) {
+      return -1;
+    }
+    else {
+      return index;
+    }
+  }
+
+  // returns the child with the best upper confidence bound, or null if no
+  // child has been published yet
+  public MctsNode select(double explore) {
+    double logVisits = Math.log(this.visits.get());
+    MctsNode best = null;
+    double bestValue = Double.NEGATIVE_INFINITY;
+
+    for (int i = 0; i < this.untriedCount; i++) {
+      MctsNode child = this.children.get(i);
+
+      if (child != null) {
+        double visits = child.visits.get();
+        double value = child.wins.get() / visits + explore * Math.sqrt(logVisits / visits);
+
+        if (value > bestValue) {
+          best = child;
+          bestValue = value;
+        }
+      }
+    }
+
+    return best;
+  }
+
+  // returns the child that was visited the most
+  public MctsNode mostVisited() {
+    MctsNode best = null;
+
+    for (int i = 0; i < this.untriedCount; i++) {
+      MctsNode child = this.children.get(i);
+
+      if (child != null && (best == null || child.visits.get() > best.visits.get())) {
+        best = child;
+      }
+    }
+
+    return best;
+  }
+}
+
+//Represents a computer player that picks its move with a Monte Carlo tree
+//search on the given number of threads sharing one tree, stopping after the
+//given number of playouts or milliseconds
+//The tree under its move is kept for the next search, which starts from the
+//node of the other player's answer, and the player can keep searching that
+//tree on background threads while the other player thinks
+class MctsPlayer implements BridgitPlayer {
+  int maxPlayouts;
+  long maxMillis;
+  int threads;
+  double explore;
+  long seed;
+  // the number of playouts of the last search and how fast they were done
+  int playouts;
+  double playoutsPerSecond;
+  AtomicInteger started;
+  long deadline;
+  // the tree is no bigger than maxNodes, after that playouts go on from
+  // the leaves without adding nodes
+  int maxNodes;
+  AtomicInteger nodes;
+  // the node of the last move and the Zobrist key of its position
+  MctsNode tree;
+  long treeKey;
+  Zobrist zobrist;
+  // the visits the last search started with from an earlier search
+  int reused;
+  // the threads searching during the other player's turn
+  Thread[] ponderers;
+  MctsWorker[] ponderWorkers;
+  volatile boolean pondering;
+  volatile boolean cancelled;
+
+  // original constructor
+  MctsPlayer(int maxPlayouts, long maxMillis) {
+    this(maxPlayouts, maxMillis, 1, System.nanoTime());
+  }
+
+  // for searching on the given number of threads
+  MctsPlayer(int maxPlayouts, long maxMillis, int threads) {
+    this(maxPlayouts, maxMillis, threads, System.nanoTime());
+  }
+
+  // for testing
+  MctsPlayer(int maxPlayouts, long maxMillis, long seed) {
+    this(maxPlayouts, maxMillis, 1, seed);
+  }
+
+  // for testing on the given number of threads
+  MctsPlayer(int maxPlayouts, long maxMillis, int threads, long seed) {
+    if (threads < 1) {
+      throw new IllegalArgumentException("there needs to be at least one thread");
+    }
+
+    this.maxPlayouts = maxPlayouts;
+    this.maxMillis = maxMillis;
+    this.threads = threads;
+    this.explore = Math.sqrt(2);
+    this.seed = seed | 1;
+    this.maxNodes = 1 << 20;
+    this.nodes = new AtomicInteger(0);
+    this.zobrist = new Zobrist();
+  }
+
+  // returns the move that was searched the most after every thread has run
+  // playouts on the shared tree until the budget runs out
+  public int chooseMove(BitBoard board) {
+    this.stopPondering();
+
+    MctsWorker[] workers = this.workers(board);
+    MctsNode root = this.rootFor(board, workers[0]);
+
+    if (root.untriedCount == 0) {
+      this.tree = null;
+      return -1;
+    }
+
+    this.search(root, workers);
+
+    MctsNode best = root.mostVisited();
+
+    // no playouts fit in the budget
+    if (best == null) {
+      this.tree = null;
+      return root.untried[0];
+    }
+
+    this.tree = best;
+    this.treeKey = board.key ^ this.zobrist.cell(best.move, board.turn) ^ this.zobrist.turn();
+
+    return best.move;
+  }
+
+  // returns a worker for each thread on the given board
+  MctsWorker[] workers(BitBoard board) {
+    MctsWorker[] workers = new MctsWorker[this.threads];
+
+    for (int i = 0; i < this.threads; i++) {
+      workers[i] = new MctsWorker(this, board, this.seed + 0x9E3779B97F4A7C15L * i);
+    }
+
+    return workers;
+  }
+
+  // EFFECT: drop every node of the kept tree but the given board's, and count
+  // the nodes left
+  // returns the node of the given board in the kept tree, the kept tree
+  // itself or one of its children or grandchildren, or a new node if it
+  // isn't there
+  MctsNode rootFor(BitBoard board, MctsWorker worker) {
+    MctsNode root = this.find(this.tree, this.treeKey, board.key, 2);
+
+    if (root == null) {
+      this.reused = 0;
+      this.nodes.set(1);
+      root = new MctsNode(null, -1, 3 - board.turn, board, worker);
+    }
+    else {
+      this.reused = root.visits.get();
+      this.nodes.set(this.count(root));
+      root.parent = null;
+    }
+
+    this.tree = root;
+    this.treeKey = board.key;
+
+    return root;
+  }
+
+  // returns the node under the given node, whose position has the given key,
+  // at most the given number of moves down with the given key, or null
+  MctsNode find(MctsNode node, long nodeKey, long key, int depth) {
+    if (node == null) {
+      return null;
+    }
+    else if (nodeKey == key) {
+      return node;
+    }
+    else if (depth == 0) {
+      return null;
+    }
+
+    for (int i = 0; i < node.untriedCount; i++) {
+      MctsNode child = node.children.get(i);
+
+      if (child != null) {
+        long childKey = nodeKey ^ this.zobrist.cell(child.move, child.player)
+            ^ this.zobrist.turn();
+        MctsNode found = this.find(child, childKey, key, depth - 1);
+
+        if (found != null) {
+          return found;
+        }
+      }
+    }
+
+    return null;
+  }
+
+  // returns how many nodes there are in the tree of the given node
+  int count(MctsNode node) {
+    ArrayList<MctsNode> worklist = new ArrayList<MctsNode>();
+    int count = 0;
+
+    worklist.add(node);
+
+    while (worklist.size() > 0) {
+      MctsNode next = worklist.remove(worklist.size() - 1);
+      count += 1;
+
+      for (int i = 0; i < next.untriedCount; i++) {
+        MctsNode child = next.children.get(i);
+
+        if (child != null) {
+          worklist.add(child);
+        }
+      }
+    }
+
+    return count;
+  }
+
+  // EFFECT: search the given board on background threads until
+  // stopPondering, keeping the tree for the next chooseMove
+  public void ponder(BitBoard board) {
+    this.stopPondering();
+
+    MctsWorker[] workers = this.workers(board);
+    MctsNode root = this.rootFor(board, workers[0]);
+
+    if (root.untriedCount == 0) {
+      return;
+    }
+
+    this.started = new AtomicInteger(0);
+    this.pondering = true;
+    this.ponderWorkers = workers;
+    this.ponderers = new Thread[workers.length];
+
+    for (int i = 0; i < workers.length; i++) {
+      workers[i].root = root;
+      this.ponderers[i] = new Thread(workers[i], "mcts-ponder-" + i);
+      this.ponderers[i].setDaemon(true);
+      this.ponderers[i].start();
+    }
+  }
+
+  // EFFECT: stop the background threads and wait for them to finish their
+  // playouts
+  public void stopPondering() {
+    if (this.ponderers == null) {
+      return;
+    }
+
+    this.cancelled = true;
+
+    for (Thread ponderer : this.ponderers) {
+      try {
+        ponderer.join();
+      }
+      catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    this.playouts = 0;
+
+    for (MctsWorker worker : this.ponderWorkers) {
+      this.playouts += worker.playouts;
+    }
+
+    this.ponderers = null;
+    this.ponderWorkers = null;
+    this.pondering = false;
+    this.cancelled = false;
+  }
+
+  // EFFECT: run the given workers on the given root, this thread running the
+  // first of them, and record how many playouts were done and how fast
+  void search(MctsNode root, MctsWorker[] workers) {
+    long start = System.nanoTime();
+    Thread[] others = new Thread[workers.length - 1];
+
+    long now = System.currentTimeMillis();
+
+    this.started = new AtomicInteger(0);
+    this.deadline = now + Math.min(this.maxMillis, Long.MAX_VALUE - now);
+
+    for (int i = 1; i < workers.length; i++) {
+      workers[i].root = root;
+      others[i - 1] = new Thread(workers[i], "mcts-" + i);
+      others[i - 1].start();
+    }
+
+    workers[0].root = root;
+    workers[0].run();
+
+    for (Thread other : others) {
+      try {
+        other.join();
+      }
+      catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    this.playouts = 0;
+
+    for (MctsWorker worker : workers) {
+      this.playouts += worker.playouts;
+    }
+
+    this.playoutsPerSecond = this.playouts / ((System.nanoTime() - start) / 1e9);
+  }
+
+  // does a thread of this search get to start another playout?
+  boolean keepGoing(int done) {
+    if (this.cancelled) {
+      return false;
+    }
+    else if (this.pondering) {
+      return true;
+    }
+
+    return this.started.getAndIncrement() < this.maxPlayouts
+        && ((done & 63) != 0 || System.currentTimeMillis() < this.deadline);
+  }
+
+  // returns how many playouts the last search did and how fast
+  public String report() {
+    return this.playouts + " playouts on " + this.threads + " threads, "
+        + (long) this.playoutsPerSecond + " playouts/s";
+  }
+}
+
+//Represents one thread of a Monte Carlo tree search, with its own scratch
+//board and random numbers so playouts don't allocate or share anything
+class MctsWorker implements Runnable {
+  MctsPlayer search;
+  BitBoard board;
+  MctsNode root;
+  long seed;
+  int playouts;
+  BitBoard walk;
+  int[] moves;
+
+  MctsWorker(MctsPlayer search, BitBoard board, long seed) {
+    this.search = search;
+    this.board = board;
+    this.seed = seed | 1;
+    this.walk = new BitBoard(board);
+    this.moves = new int[board.grid * board.grid];
+  }
+
+  // EFFECT: select with UCT, expand one child, play randomly to a full board
+  // and back up the winner, until the search says to stop
+  public void run() {
+    int grid = this.board.grid;
+    double explore = this.search.explore;
+
+    while (this.search.keepGoing(this.playouts)) {
+      this.walk.copyFrom(this.board);
+      MctsNode node = this.root;
+      node.visits.incrementAndGet();
+
+      while (true) {
+        int index = -1;
+
+        if (this.search.nodes.get() < this.search.maxNodes) {
+          index = node.claimUntried();
+        }
+
+        // expansion
+        if (index >= 0) {
+          int move = node.untried[index];
+          int player = this.walk.turn;
+          this.walk.click(move / grid, move % grid);
+          this.search.nodes.incrementAndGet();
+
+          MctsNode child = new MctsNode(node, move, player, this.walk, this);
+          child.visits.incrementAndGet();
+          node.children.set(index, child);
+          node = child;
+          break;
+        }
+
+        // selection
+        MctsNode next = node.select(explore);
+
+        if (next == null) {
+          break;
+        }
+
+        next.visits.incrementAndGet();
+        this.walk.click(next.move / grid, next.move % grid);
+        node = next;
+      }
+
+      // backup, the visits were counted on the way down
+      int winner = this.playout(this.walk);
+
+      while (node != null) {
+        if (node.player == winner) {
+          node.wins.incrementAndGet();
+        }
+
+        node = node.parent;
+      }
+
+      this.playouts += 1;
+    }
+  }
+
+  // EFFECT: fill every open Cell of the given board in a random order,
+  // alternating players
+  // returns the player that won, every full board has exactly one
+  int playout(BitBoard board) {
+    int count = board.open.toArray(this.moves);
+    int player = board.turn;
+
+    // the moves are taken off this.moves instead, one at a time
+    board.open.clear();
+
+    while (count > 0) {
+      int pick = this.nextInt(count);
+      int move = this.moves[pick];
+
+      count -= 1;
+      this.moves[pick] = this.moves[count];
+
+      int row = move / board.grid;
+      int column = move % board.grid;
+
+      board.clear(board.white, row, column);
+
+      if (player == 1) {
+        board.set(board.red, row, column);
+      }
+      else {
+        board.set(board.blue, row, column);
+      }
+
+      player = 3 - player;
+    }
+
+    if (board.hasWon(1)) {
+      return 1;
+    }
+    else {
+      return 2;
+    }
+  }
+
+  // returns a random number from 0 up to the given bound from this seed
+  int nextInt(int bound) {
+    this.seed ^= this.seed << 13;
+    this.seed ^= this.seed >>> 7;
+    this.seed ^= this.seed << 17;
+
+    return (int) ((this.seed >>> 33) % bound);
+  }
+}
+
+//Represents a computer player for the end of a game, where searching every
+//move to the end beats sampling: an alpha-beta search deepened a move at a
+//time until the time runs out, trying first the move the TranspositionTable
+//kept for a position and then the moves that cut off the most searches
+//before, and scoring positions it can't see past with a ResistanceEvaluator
+//Values are for the player to move, WIN - ply for a win ply moves away
+class AlphaBetaPlayer implements BridgitPlayer {
+  static final int WIN = 30000;
+  static final int MAX_EVAL = 10000;
+  // values beyond this are wins and losses, not evaluations
+  static final int DECIDED = WIN - 1000;
+  // how often, in nodes, the search looks at the clock
+  static final int CHECK_EVERY = 64;
+
+  long maxMillis;
+  int maxDepth;
+  TranspositionTable table;
+  // the cutoffs of each move weighted by the depth left, kept between moves
+  int[] history;
+  ResistanceEvaluator evaluator;
+  // whether to skip dead and captured Cells, and what finds them
+  boolean prune;
+  DeadCellAnalysis analysis;
+  // the board searched, made and unmade in place, and its moves at each ply
+  BitBoard board;
+  int[][] moves;
+  long deadline;
+  boolean stopped;
+  // the best move of the deepening under way
+  int rootMove;
+  // what the last search did
+  long nodes;
+  long nanos;
+  int depth;
+  int value;
+
+  AlphaBetaPlayer(long maxMillis, int maxDepth) {
+    this.maxMillis = maxMillis;
+    this.maxDepth = maxDepth;
+    this.table = new TranspositionTable(1 << 16);
+    this.prune = true;
+  }
+
+  // returns the best move found for the given board in the time and depth
+  // allowed, or -1 if there are no moves
+  public int chooseMove(BitBoard board) {
+    long start = System.nanoTime();
+
+    this.deadline = start + this.maxMillis * 1000000;
+    this.prepare(board);
+    this.table.newSearch();
+    this.nodes = 0;
+    this.depth = 0;
+    this.value = 0;
+    this.stopped = false;
+
+    if (board.open.size() == 0) {
+      this.nanos = System.nanoTime() - start;
+      return -1;
+    }
+
+    int best = board.open.get(0);
+    int limit = Math.min(this.maxDepth, board.open.size());
+
+    for (int d = 1; d <= limit; d++) {
+      this.rootMove = -1;
+
+      int result = this.search(d, 0, -WIN, WIN);
+
+      // a search cut short doesn't know its best move
+      if (this.stopped) {
+        break;
+      }
+
+      best = this.rootMove;
+      this.depth = d;
+      this.value = result;
+
+      if (Math.abs(result) > DECIDED) {
+        break;
+      }
+    }
+
+    this.nanos = System.nanoTime() - start;
+    return best;
+  }
+
+  // EFFECT: make the scratch space fit the given board, copy the board in and
+  // let older cutoffs count for less
+  void prepare(BitBoard board) {
+    if (this.board == null || this.board.grid != board.grid) {
+      this.board = new BitBoard(board);
+      this.history = new int[board.grid * board.grid];
+      this.evaluator = new ResistanceEvaluator(board.grid);
+      this.analysis = new DeadCellAnalysis(board.grid);
+      this.moves = new int[Math.min(this.maxDepth, board.open.cells.length) + 1][board.open.cells.length];
+    }
+    else {
+      this.board.copyFrom(board);
+    }
+
+    for (int k = 0; k < this.history.length; k++) {
+      this.history[k] /= 2;
+    }
+  }
+
+  // returns the value of this.board for the player to move, searching the
+  // given number of moves deeper, as long as it is between alpha and beta,
+  // and a bound on it otherwise
+  int search(int depth, int ply, int alpha, int beta) {
+    this.nodes += 1;
+
+    if ((this.nodes & (CHECK_EVERY - 1)) == 0 && System.nanoTime() > this.deadline) {
+      this.stopped = true;
+    }
+
+    if (this.stopped) {
+      return 0;
+    }
+
+    if (depth == 0 || this.board.open.size() == 0) {
+      return this.evaluate();
+    }
+
+    long key = this.board.key;
+    long entry = this.table.probe(key);
+    int tableMove = -1;
+
+    if (entry != 0) {
+      tableMove = this.table.moveOf(entry);
+
+      if (ply > 0 && this.table.depthOf(entry) >= depth) {
+        int stored = this.fromTable(this.table.valueOf(entry), ply);
+        int flag = this.table.flagOf(entry);
+
+        if (flag == TranspositionTable.EXACT
+            || (flag == TranspositionTable.LOWER && stored >= beta)
+            || (flag == TranspositionTable.UPPER && stored <= alpha)) {
+          return stored;
+        }
+      }
+    }
+
+    int[] moves = this.moves[ply];
+    int count = this.order(moves, tableMove);
+    int grid = this.board.grid;
+    int mover = this.board.turn;
+    int start = alpha;
+    int best = -WIN;
+    int bestMove = moves[0];
+
+    for (int k = 0; k < count; k++) {
+      int move = moves[k];
+      int result;
+
+      this.board.click(move / grid, move % grid);
+
+      if (this.board.hasWon(mover)) {
+        result = WIN - ply - 1;
+      }
+      else {
+        result = -this.search(depth - 1, ply + 1, -beta, -alpha);
+      }
+
+      this.board.unclick(move / grid, move % grid);
+
+      if (this.stopped) {
+        return 0;
+      }
+
+      if (result > best) {
+        best = result;
+        bestMove = move;
+
+        if (ply == 0) {
+          this.rootMove = move;
+        }
+      }
+
+      if (best > alpha) {
+        alpha = best;
+      }
+
+      if (alpha >= beta) {
+        this.history[move] += depth * depth;
+        break;
+      }
+    }
+
+    int flag = TranspositionTable.EXACT;
+
+    if (best <= start) {
+      flag = TranspositionTable.UPPER;
+    }
+    else if (best >= beta) {
+      flag = TranspositionTable.LOWER;
+    }
+
+    this.table.store(key, bestMove, this.toTable(best, ply), depth, flag);
+    return best;
+  }
+
+  // EFFECT: write the open moves of this.board into the given array, without
+  // the dead and captured ones if this prunes, the given move first if it is
+  // one and the rest by their history
+  // returns how many were written
+  int order(int[] moves, int first) {
+    int count;
+
+    if (this.prune) {
+      this.analysis.update(this.board);
+      count = this.analysis.moves(moves);
+    }
+    else {
+      count = this.board.open.toArray(moves);
+    }
+
+    // insertion sort, the table's move counts as better than any history
+    for (int k = 1; k < count; k++) {
+      int move = moves[k];
+      int i = k - 1;
+
+      while (i >= 0 && this.before(move, moves[i], first)) {
+        moves[i + 1] = moves[i];
+        i -= 1;
+      }
+
+      moves[i + 1] = move;
+    }
+
+    return count;
+  }
+
+  // should the given move be tried before the other given move?
+  boolean before(int move, int other, int first) {
+    if (move == first || other == first) {
+      return move == first;
+    }
+
+    return this.history[move] > this.history[other];
+  }
+
+  // returns the ResistanceEvaluator's value of this.board for the player to
+  // move, kept below any win or loss
+  int evaluate() {
+    double score = 100 * this.evaluator.evaluate(this.board);
+    int value = (int) Math.max(-MAX_EVAL, Math.min(MAX_EVAL, Math.round(score)));
+
+    if (this.board.turn == 1) {
+      return value;
+    }
+    else {
+      return -value;
+    }
+  }
+
+  // returns the given value found ply moves from the root as a value from the
+  // position it belongs to, so wins keep their distance in the table
+  int toTable(int value, int ply) {
+    if (value > DECIDED) {
+      return value + ply;
+    }
+    else if (value < -DECIDED) {
+      return value - ply;
+    }
+    else {
+      return value;
+    }
+  }
+
+  // returns the given value from the table as a value ply moves from the root
+  int fromTable(int value, int ply) {
+    if (value > DECIDED) {
+      return value - ply;
+    }
+    else if (value < -DECIDED) {
+      return value + ply;
+    }
+    else {
+      return value;
+    }
+  }
+
+  // returns whether the last search found a win, 1, a loss, -1, or neither, 0,
+  // for the player it moved for
+  public int outcome() {
+    if (this.value > DECIDED) {
+      return 1;
+    }
+    else if (this.value < -DECIDED) {
+      return -1;
+    }
+    else {
+      return 0;
+    }
+  }
+
+  // returns the nodes per second of the last search
+  public double nodesPerSecond() {
+    return this.nodes * 1e9 / Math.max(1, this.nanos);
+  }
+
+  // returns what the last search did, to compare with other engines
+  public String report() {
+    return String.format("depth %d, value %d, %d nodes in %.1f ms, %.0f nodes/s", this.depth,
+        this.value, this.nodes, this.nanos / 1e6, this.nodesPerSecond());
+  }
+}
+
+//Represents the symmetries of a Bridgit board: turning it 180 degrees keeps
+//every Cell's color, and flipping it along either diagonal swaps red and
+//blue, so a position flipped with its colors and turn swapped is the same
+//game for the other player
+//Transform 0 changes nothing, 1 is the turn, 2 the flip along the main
+//diagonal and 3 the flip along the other one. Each undoes itself, so the
+//same map takes moves into and back out of a transform
+class BridgitSymmetry {
+  static final int TRANSFORMS = 4;
+
+  int grid;
+  // maps[t][index] is where the Cell of the given index goes in transform t
+  int[][] maps;
+  boolean[] swaps;
+  Zobrist zobrist;
+
+  BridgitSymmetry(int grid) {
+    int last = grid - 1;
+
+    this.grid = grid;
+    this.maps = new int[TRANSFORMS][grid * grid];
+    this.swaps = new boolean[] { false, false, true, true };
+    this.zobrist = new Zobrist();
+
+    for (int i = 0; i < grid; i++) {
+      for (int j = 0; j < grid; j++) {
+        this.maps[0][i * grid + j] = i * grid + j;
+        this.maps[1][i * grid + j] = (last - i) * grid + last - j;
+        this.maps[2][i * grid + j] = j * grid + i;
+        this.maps[3][i * grid + j] = (last - j) * grid + last - i;
+      }
+    }
+  }
+
+  // returns where the given move goes in the given transform, which is also
+  // where it comes from
+  public int mapMove(int transform, int move) {
+    return this.maps[transform][move];
+  }
+
+  // returns the player the given player becomes in the given transform, 0
+  // for nobody stays 0
+  public int mapPlayer(int transform, int player) {
+    if (this.swaps[transform] && player != 0) {
+      return 3 - player;
+    }
+    else {
+      return player;
+    }
+  }
+
+  // returns the Zobrist key of the given board after the given transform
+  public long key(BitBoard board, int transform) {
+    long key = 0;
+
+    for (int i = 0; i < this.grid; i++) {
+      for (int j = 0; j < this.grid; j++) {
+        int owner = board.owner(i, j);
+
+        if (owner != 0) {
+          key ^= this.zobrist.cell(this.maps[transform][i * this.grid + j],
+              this.mapPlayer(transform, owner));
+        }
+      }
+    }
+
+    if (this.mapPlayer(transform, board.turn) == 2) {
+      key ^= this.zobrist.turn();
+    }
+
+    return key;
+  }
+
+  // EFFECT: write the key of the given board after each transform into the
+  // given array
+  public void keys(BitBoard board, long[] out) {
+    for (int t = 0; t < TRANSFORMS; t++) {
+      out[t] = this.key(board, t);
+    }
+  }
+
+  // EFFECT: change the given keys of each transform of a position for the
+  // given player claiming the given move, which passes the turn
+  public void claim(long[] keys, int move, int player) {
+    for (int t = 0; t < TRANSFORMS; t++) {
+      keys[t] ^= this.zobrist.cell(this.maps[t][move], this.mapPlayer(t, player))
+          ^ this.zobrist.turn();
+    }
+  }
+
+  // returns the transform whose key of the given keys is smallest
+  public int canonicalTransform(long[] keys) {
+    int best = 0;
+
+    for (int t = 1; t < TRANSFORMS; t++) {
+      if (keys[t] < keys[best]) {
+        best = t;
+      }
+    }
+
+    return best;
+  }
+
+  // returns the transform that gives the given board its smallest key
+  public int canonicalTransform(BitBoard board) {
+    long[] keys = new long[TRANSFORMS];
+
+    this.keys(board, keys);
+    return this.canonicalTransform(keys);
+  }
+
+  // returns the smallest key of the given board over every transform, the
+  // same for every board that is the same game
+  public long canonicalKey(BitBoard board) {
+    long[] keys = new long[TRANSFORMS];
+
+    this.keys(board, keys);
+    return keys[this.canonicalTransform(keys)];
+  }
+
+  // returns a new board of the given board after the given transform
+  public BitBoard transform(BitBoard board, int transform) {
+    int[] owner = new int[this.grid * this.grid];
+
+    for (int i = 0; i < this.grid; i++) {
+      for (int j = 0; j < this.grid; j++) {
+        owner[this.maps[transform][i * this.grid + j]] = this.mapPlayer(transform,
+            board.owner(i, j));
+      }
+    }
+
+    BitBoard result = new BitBoard(board);
+
+    for (int k = 0; k < result.red.length; k++) {
+      result.red[k] = 0;
+      result.blue[k] = 0;
+      result.white[k] = 0;
+    }
+
+    for (int i = 0; i < this.grid; i++) {
+      for (int j = 0; j < this.grid; j++) {
+        if (owner[i * this.grid + j] == 1) {
+          result.set(result.red, i, j);
+        }
+        else if (owner[i * this.grid + j] == 2) {
+          result.set(result.blue, i, j);
+        }
+        else {
+          result.set(result.white, i, j);
+        }
+      }
+    }
+
+    result.turn = this.mapPlayer(transform, board.turn);
+    result.open.clear();
+    result.fillOpen();
+    result.key = result.computeKey();
+
+    return result;
+  }
+}
+
+//Represents an exact solver for small Bridgit boards, which finds whether the
+//player to move wins and a best move for every position reachable from the
+//start and keeps them in a table of one byte per position
+//The positions a BridgitSymmetry makes of a position are the same game, so
+//only the smallest index of each set of equal positions is solved and stored
+class BridgitSolver implements BridgitPlayer {
+  static final int WIN = 1;
+  static final int LOSS = 2;
+  static final int NO_MOVE = 63;
+  // "BRSV" at the start of a table file
+  static final int MAGIC = 0x42525356;
+  static final int HEADER = 16;
+
+  int grid;
+  // the index, row * grid + column, of each WCell inside the edges
+  int[] whites;
+  // maps[t][k] is where WCell k goes in transform t, and swaps[t] is whether
+  // transform t swaps the colors
+  int[][] maps;
+  boolean[] swaps;
+  long[] pow3;
+  // the value in the lowest 2 bits and the best move in the other 6 of every
+  // position, by smallest index * 2 + turn - 1, where the index has a base 3
+  // digit for each WCell
+  ByteBuffer table;
+  // scratch space for each depth of the search
+  BitBoard[] boards;
+  int[][] owners;
+
+  BridgitSolver(int grid) {
+    BitBoard start = new BitBoard(grid);
+
+    this.grid = grid;
+    this.whites = new int[grid * grid];
+    int count = start.openCells(this.whites);
+    this.whites = Arrays.copyOf(this.whites, count);
+
+    if (count > 16) {
+      throw new IllegalArgumentException("the board is too big to solve every position");
+    }
+
+    this.pow3 = new long[count + 1];
+    this.pow3[0] = 1;
+
+    for (int k = 1; k <= count; k++) {
+      this.pow3[k] = 3 * this.pow3[k - 1];
+    }
+
+    BridgitSymmetry symmetry = new BridgitSymmetry(grid);
+
+    this.maps = new int[BridgitSymmetry.TRANSFORMS][count];
+    this.swaps = symmetry.swaps;
+
+    for (int t = 0; t < BridgitSymmetry.TRANSFORMS; t++) {
+      for (int k = 0; k < count; k++) {
+        int moved = symmetry.mapMove(t, this.whites[k]);
+        this.maps[t][k] = this.whiteAt(moved / grid, moved % grid);
+      }
+    }
+
+    this.boards = new BitBoard[count + 1];
+    this.owners = new int[count + 1][count];
+
+    for (int d = 0; d <= count; d++) {
+      this.boards[d] = new BitBoard(start);
+    }
+  }
+
+  // returns k where the given row and column is WCell k
+  int whiteAt(int row, int column) {
+    int index = row * this.grid + column;
+
+    for (int k = 0; k < this.whites.length; k++) {
+      if (this.whites[k] == index) {
+        return k;
+      }
+    }
+
+    throw new RuntimeException("no WCell at " + row + ", " + column);
+  }
+
+  // EFFECT: solve every position reachable from the start of the game
+  // returns the value of the start for player 1
+  public int solveAll() {
+    this.table = ByteBuffer.allocate((int) (2 * this.pow3[this.whites.length]));
+    this.boards[0].copyFrom(new BitBoard(this.grid));
+
+    return this.solve(0);
+  }
+
+  // EFFECT: solve the position on the board of the given depth and every
+  // position reachable from it that isn't solved yet
+  // returns WIN or LOSS for the player to move
+  int solve(int depth) {
+    BitBoard board = this.boards[depth];
+    int[] owner = this.owners[depth];
+
+    this.fillOwners(board, owner);
+
+    long canonical = this.canonical(owner, board.turn);
+    int key = (int) (canonical >> 2);
+    int transform = (int) (canonical & 3);
+    int entry = this.table.get(key) & 0xFF;
+
+    if (entry != 0) {
+      return entry & 3;
+    }
+
+    int value = LOSS;
+    int best = NO_MOVE;
+
+    // the last move won
+    if (!board.hasWon(3 - board.turn)) {
+      BitBoard child = this.boards[depth + 1];
+
+      for (int k = 0; k < this.whites.length; k++) {
+        if (owner[k] == 0) {
+          child.copyFrom(board);
+          child.click(this.whites[k] / this.grid, this.whites[k] % this.grid);
+
+          if (this.solve(depth + 1) == LOSS && value == LOSS) {
+            value = WIN;
+            best = k;
+          }
+          else if (best == NO_MOVE) {
+            best = k;
+          }
+        }
+      }
+    }
+
+    if (best != NO_MOVE) {
+      best = this.maps[transform][best];
+    }
+
+    this.table.put(key, (byte) (value | (best << 2)));
+
+    return value;
+  }
+
+  // EFFECT: write the owner of each WCell of the given board into the given
+  // array
+  void fillOwners(BitBoard board, int[] owner) {
+    for (int k = 0; k < this.whites.length; k++) {
+      owner[k] = board.owner(this.whites[k] / this.grid, this.whites[k] % this.grid);
+    }
+  }
+
+  // returns the smallest table index of the given owners and turn over every
+  // transform, times 4 plus the transform that gives it
+  long canonical(int[] owner, int turn) {
+    long best = Long.MAX_VALUE;
+
+    for (int t = 0; t < 4; t++) {
+      long index = 0;
+      int turnT = turn;
+
+      for (int k = 0; k < owner.length; k++) {
+        int o = owner[k];
+
+        if (this.swaps[t] && o != 0) {
+          o = 3 - o;
+        }
+
+        index += o * this.pow3[this.maps[t][k]];
+      }
+
+      if (this.swaps[t]) {
+        turnT = 3 - turn;
+      }
+
+      long key = ((2 * index + turnT - 1) << 2) | t;
+
+      if (key < best) {
+        best = key;
+      }
+    }
+
+    return best;
+  }
+
+  // returns the table entry of the given board, or 0 if it isn't solved
+  int entry(BitBoard board) {
+    int[] owner = new int[this.whites.length];
+
+    this.fillOwners(board, owner);
+
+    return this.table.get((int) (this.canonical(owner, board.turn) >> 2)) & 0xFF;
+  }
+
+  // returns WIN or LOSS for the player to move on the given board, or 0 if it
+  // isn't a solved position
+  public int value(BitBoard board) {
+    return this.entry(board) & 3;
+  }
+
+  // returns the index, row * grid + column, of a best move on the given board,
+  // one that wins if there is any, or -1 if there is none
+  public int chooseMove(BitBoard board) {
+    int[] owner = new int[this.whites.length];
+
+    this.fillOwners(board, owner);
+
+    long canonical = this.canonical(owner, board.turn);
+    int entry = this.table.get((int) (canonical >> 2)) & 0xFF;
+    int best = entry >> 2;
+
+    if (entry == 0 || best == NO_MOVE) {
+      return -1;
+    }
+
+    return this.whites[this.maps[(int) (canonical & 3)][best]];
+  }
+
+  // EFFECT: write the solved table to the given file
+  public void write(Path path) throws IOException {
+    ByteBuffer header = ByteBuffer.allocate(HEADER);
+    header.putInt(MAGIC).putInt(this.grid).putInt(this.whites.length).putInt(0).flip();
+
+    try (FileChannel out = FileChannel.open(path, StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      ByteBuffer body = this.table.duplicate();
+      body.clear();
+
+      while (header.hasRemaining()) {
+        out.write(header);
+      }
+      while (body.hasRemaining()) {
+        out.write(body);
+      }
+    }
+  }
+
+  // EFFECT: use the table of the given file, mapped into memory so only the
+  // pages that are looked up get read
+  public void load(Path path) throws IOException {
+    try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ)) {
+      ByteBuffer header = ByteBuffer.allocate(HEADER);
+
+      while (header.hasRemaining() && in.read(header) >= 0) {
+        // keep reading
+      }
+
+      header.flip();
+
+      if (header.remaining() < HEADER || header.getInt() != MAGIC || header.getInt() != this.grid
+          || header.getInt() != this.whites.length) {
+        throw new IOException("not a solved table for a board of " + this.grid);
+      }
+
+      this.table = in.map(FileChannel.MapMode.READ_ONLY, HEADER, in.size() - HEADER);
+    }
+  }
+
+  // solves the board of the size given first and writes it to the file given
+  // second
+  public static void main(String[] args) throws IOException {
+    BridgitSolver solver = new BridgitSolver(Integer.parseInt(args[0]));
+    long start = System.nanoTime();
+    int value = solver.solveAll();
+
+    solver.write(Paths.get(args[1]));
+    System.out.println("player " + (value == WIN ? 1 : 2) + " wins, solved in "
+        + (System.nanoTime() - start) / 1000000 + " ms");
+  }
+}
+
+//Represents the making of an opening book from whole games: for each of the
+//first depth moves of a game it counts, by the canonical key of the position
+//before the move and the move in that canonical transform, how many games
+//played it and how many the player making it won
+class OpeningBookBuilder {
+  int grid;
+  int depth;
+  BridgitSymmetry symmetry;
+  // the games and wins of each canonical move of each canonical key
+  HashMap<Long, HashMap<Integer, int[]>> stats;
+  long games;
+  // scratch space for playing a game back
+  BitBoard start;
+  BitBoard board;
+  long[] keys;
+
+  OpeningBookBuilder(int grid, int depth) {
+    this.grid = grid;
+    this.depth = depth;
+    this.symmetry = new BridgitSymmetry(grid);
+    this.stats = new HashMap<Long, HashMap<Integer, int[]>>();
+    this.start = new BitBoard(grid);
+    this.board = new BitBoard(this.start);
+    this.keys = new long[BridgitSymmetry.TRANSFORMS];
+  }
+
+  // EFFECT: count the first moves of the given game, which is played back to
+  // find who won
+  public void add(GameRecord record) {
+    this.board.copyFrom(this.start);
+
+    for (int k = 0; k < record.count; k++) {
+      this.board.click(record.moves[k] / this.grid, record.moves[k] % this.grid);
+    }
+
+    int winner = 0;
+
+    if (this.board.hasWon(1)) {
+      winner = 1;
+    }
+    else if (this.board.hasWon(2)) {
+      winner = 2;
+    }
+
+    this.board.copyFrom(this.start);
+    this.symmetry.keys(this.board, this.keys);
+
+    for (int k = 0; k < Math.min(this.depth, record.count); k++) {
+      int move = record.moves[k];
+      int player = this.board.turn;
+      int transform = this.symmetry.canonicalTransform(this.keys);
+      HashMap<Integer, int[]> moves = this.stats.get(this.keys[transform]);
+
+      if (moves == null) {
+        moves = new HashMap<Integer, int[]>();
+        this.stats.put(this.keys[transform], moves);
+      }
+
+      int canonicalMove = this.symmetry.mapMove(transform, move);
+      int[] counts = moves.get(canonicalMove);
+
+      if (counts == null) {
+        counts = new int[2];
+        moves.put(canonicalMove, counts);
+      }
+
+      counts[0] += 1;
+
+      if (winner == player) {
+        counts[1] += 1;
+      }
+
+      this.symmetry.claim(this.keys, move, player);
+      this.board.click(move / this.grid, move % this.grid);
+    }
+
+    this.games += 1;
+  }
+
+  // EFFECT: play the given number of games between the given players from
+  // the start and count each
+  public void selfPlay(int games, BridgitPlayer first, BridgitPlayer second) {
+    BridgitGame game = new BridgitGame(this.grid);
+
+    for (int g = 0; g < games; g++) {
+      game.playOut(first, second);
+      this.add(game.record);
+    }
+  }
+
+  // EFFECT: count every game of the given file of games
+  public void addAll(Path path) throws IOException {
+    try (GameRecordReader reader = new GameRecordReader(path)) {
+      GameRecord record = new GameRecord(reader.grid);
+
+      if (reader.grid != this.grid) {
+        throw new IOException("the games are not on a board of " + this.grid);
+      }
+
+      while (reader.read(record)) {
+        this.add(record);
+      }
+    }
+  }
+
+  // returns how many moves of positions are counted
+  public int size() {
+    int size = 0;
+
+    for (HashMap<Integer, int[]> moves : this.stats.values()) {
+      size += moves.size();
+    }
+
+    return size;
+  }
+
+  // EFFECT: write the counts to the given file as a header of MAGIC, the
+  // board size and the number of entries, followed by the entries sorted by
+  // key and then move, each a key, a move, its games and its wins
+  public void write(Path path) throws IOException {
+    ArrayList<Long> keys = new ArrayList<Long>(this.stats.keySet());
+    Collections.sort(keys);
+
+    try (FileChannel out = FileChannel.open(path, StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+
+      buffer.putInt(OpeningBook.MAGIC).putInt(this.grid).putLong(this.size());
+
+      for (long key : keys) {
+        ArrayList<Integer> moves = new ArrayList<Integer>(this.stats.get(key).keySet());
+        Collections.sort(moves);
+
+        for (int move : moves) {
+          int[] counts = this.stats.get(key).get(move);
+
+          if (buffer.remaining() < OpeningBook.ENTRY) {
+            this.drain(buffer, out);
+          }
+
+          buffer.putLong(key).putInt(move).putInt(counts[0]).putInt(counts[1]).putInt(0);
+        }
+      }
+
+      this.drain(buffer, out);
+    }
+  }
+
+  // EFFECT: write everything in the given buffer to the given file
+  void drain(ByteBuffer buffer, FileChannel out) throws IOException {
+    buffer.flip();
+
+    while (buffer.hasRemaining()) {
+      out.write(buffer);
+    }
+
+    buffer.clear();
+  }
+
+  // plays the number of games given second on the board of the size given
+  // first between Monte Carlo players with the playouts given third and
+  // writes a book of the number of moves given fourth to the file given fifth
+  public static void main(String[] args) throws IOException {
+    int grid = Integer.parseInt(args[0]);
+    OpeningBookBuilder builder = new OpeningBookBuilder(grid, Integer.parseInt(args[3]));
+    MctsPlayer player = new MctsPlayer(Integer.parseInt(args[2]), Long.MAX_VALUE);
+    long start = System.nanoTime();
+
+    builder.selfPlay(Integer.parseInt(args[1]), player, player);
+    builder.write(Paths.get(args[4]));
+    System.out.println(builder.games + " games, " + builder.size() + " entries in "
+        + (System.nanoTime() - start) / 1000000 + " ms");
+  }
+}
+
+//Represents an opening book written by OpeningBookBuilder, mapped into
+//memory so only the pages that are looked up get read, and searched by
+//binary search on the canonical key of a position
+class OpeningBook {
+  // "BRBK" at the start of a book file
+  static final int MAGIC = 0x4252424B;
+  static final int HEADER = 16;
+  static final int ENTRY = 24;
+
+  int grid;
+  long entries;
+  ByteBuffer table;
+  BridgitSymmetry symmetry;
+  // a move has to have been played in this many games to be chosen
+  int minGames;
+
+  OpeningBook(Path path) throws IOException {
+    try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ)) {
+      ByteBuffer header = ByteBuffer.allocate(HEADER);
+
+      while (header.hasRemaining() && in.read(header) >= 0) {
+        // keep reading
+      }
+
+      header.flip();
+
+      if (header.remaining() < HEADER || header.getInt() != MAGIC) {
+        throw new IOException("not an opening book");
+      }
+
+      this.grid = header.getInt();
+      this.entries = header.getLong();
+
+      if (in.size() != HEADER + this.entries * ENTRY) {
+        throw new IOException("the opening book is cut short");
+      }
+
+      this.table = in.map(FileChannel.MapMode.READ_ONLY, HEADER, in.size() - HEADER);
+    }
+
+    this.symmetry = new BridgitSymmetry(this.grid);
+    this.minGames = 1;
+  }
+
+  // returns the key of the given entry
+  long keyAt(long entry) {
+    return this.table.getLong((int) (entry * ENTRY));
+  }
+
+  // returns the first entry of the given key, or the number of entries if
+  // there is none
+  long first(long key) {
+    long low = 0;
+    long high = this.entries;
+
+    while (low < high) {
+      long middle = (low + high) >>> 1;
+
+      if (this.keyAt(middle) < key) {
+        low = middle + 1;
+      }
+      else {
+        high = middle;
+      }
+    }
+
+    if (low < this.entries && this.keyAt(low) == key) {
+      return low;
+    }
+    else {
+      return this.entries;
+    }
+  }
+
+  // returns the move of the given board that was played in the most games
+  // of the book, at least minGames of them, with more wins breaking ties, or
+  // -1 if the board isn't in the book
+  public int lookup(BitBoard board) {
+    if (board.grid != this.grid) {
+      return -1;
+    }
+
+    long[] keys = new long[BridgitSymmetry.TRANSFORMS];
+    this.symmetry.keys(board, keys);
+
+    int transform = this.symmetry.canonicalTransform(keys);
+    long key = keys[transform];
+    int best = -1;
+    int bestGames = 0;
+    int bestWins = 0;
+
+    for (long e = this.first(key); e < this.entries && this.keyAt(e) == key; e++) {
+      int offset = (int) (e * ENTRY);
+      int move = this.table.getInt(offset + 8);
+      int games = this.table.getInt(offset + 12);
+      int wins = this.table.getInt(offset + 16);
+
+      if (games >= this.minGames
+          && (games > bestGames || (games == bestGames && wins > bestWins))) {
+        best = move;
+        bestGames = games;
+        bestWins = wins;
+      }
+    }
+
+    if (best < 0) {
+      return -1;
+    }
+
+    return this.symmetry.mapMove(transform, best);
+  }
+}
+
+//Represents a computer player that answers from an opening book while the
+//position is in it and asks another player once it isn't
+class BookPlayer implements BridgitPlayer {
+  OpeningBook book;
+  BridgitPlayer player;
+  // how many moves came from the book
+  int bookMoves;
+
+  BookPlayer(OpeningBook book, BridgitPlayer player) {
+    this.book = book;
+    this.player = player;
+  }
+
+  // returns the book's move of the given board, or the other player's if the
+  // board isn't in the book
+  public int chooseMove(BitBoard board) {
+    int move = this.book.lookup(board);
+
+    if (move >= 0) {
+      this.player.stopPondering();
+      this.bookMoves += 1;
+      return move;
+    }
+
+    return this.player.chooseMove(board);
+  }
+
+  // EFFECT: let the other player ponder the given board
+  public void ponder(BitBoard board) {
+    this.player.ponder(board);
+  }
+
+  // EFFECT: stop the other player pondering
+  public void stopPondering() {
+    this.player.stopPondering();
+  }
+}
+
+//Represents a game of Bridgit that can be played without a window
+interface BridgitEngine {
+
+  // EFFECT: claim the WCell at the given row and column for the player whose
+  // turn it is and give the turn to the other player
+  // returns whether it was a legal move
+  public boolean play(int row, int column);
+
+  // returns the player that has won, or 0 if nobody has yet
+  public int winner();
+
+  // EFFECT: write the index, row * grid + column, of every legal move into
+  // the given array
+  // returns how many were written
+  public int legalMoves(int[] out);
+
+  // returns the player whose turn it is
+  public int currentTurn();
+}
+
+//Represents a Bridgit game without Cells or a window, a BitBoard for players
+//to look at and a Connectivity to tell when somebody has won
+class BridgitGame implements BridgitEngine {
+  int grid;
+  BitBoard start;
+  BitBoard board;
+  Connectivity connect;
+  // the moves played since the start
+  GameRecord record;
+
+  BridgitGame(int grid) {
+    this.grid = grid;
+    this.start = new BitBoard(grid);
+    this.board = new BitBoard(this.start);
+    this.connect = new Connectivity(grid);
+    this.record = new GameRecord(grid);
+  }
+
+  // EFFECT: go back to the start of the game
+  public void reset() {
+    this.board.copyFrom(this.start);
+    this.record.clear();
+
+    while (this.connect.unclaim() >= 0) {
+      // undo every claim, which is faster than a new Connectivity
+    }
+  }
+
+  // EFFECT: claim the WCell at the given row and column for the player whose
+  // turn it is and give the turn to the other player
+  // returns whether it was a legal move, which no move is once somebody has won
+  public boolean play(int row, int column) {
+    int turn = this.board.turn;
+
+    if (this.winner() != 0 || this.board.click(row, column) == turn) {
+      return false;
+    }
+
+    this.connect.claim(turn, row, column);
+    this.record.add(row * this.grid + column, 0);
+    return true;
+  }
+
+  // returns the player that has won, or 0 if nobody has yet
+  public int winner() {
+    if (this.connect.hasWon(1)) {
+      return 1;
+    }
+    else if (this.connect.hasWon(2)) {
+      return 2;
+    }
+    else {
+      return 0;
+    }
+  }
+
+  // EFFECT: write the index of every legal move into the given array, of
+  // which there are none once somebody has won
+  // returns how many were written
+  public int legalMoves(int[] out) {
+    if (this.winner() != 0) {
+      return 0;
+    }
+
+    return this.board.open.toArray(out);
+  }
+
+  // returns the player whose turn it is
+  public int currentTurn() {
+    return this.board.turn;
+  }
+
+  // EFFECT: play the given players against each other from the start until
+  // somebody wins, a player that makes an illegal move loses
+  // returns the player that won
+  public int playOut(BridgitPlayer first, BridgitPlayer second) {
+    this.reset();
+
+    while (this.winner() == 0) {
+      int turn = this.board.turn;
+      BridgitPlayer player = first;
+
+      if (turn == 2) {
+        player = second;
+      }
+
+      int move = player.chooseMove(this.board);
+
+      if (move < 0 || !this.play(move / this.grid, move % this.grid)) {
+        return 3 - turn;
+      }
+    }
+
+    return this.winner();
+  }
+}
+
+//Represents the shape of a connection game board as a width by height grid
+//of places, some of which are cells, with the neighbors of every cell kept
+//in compressed sparse rows: the neighbors of cell c are neighbors[k] for k
+//from offsets[c] up to offsets[c + 1]
+//Each cell starts EMPTY, owned by a player, as a WALL nobody can claim, or
+//ABSENT when the place isn't part of the board. edges[c] has the bit
+//edgeBit(player, side) for each of the two sides a player connects that c
+//is on, and fullWinner is who wins if the board fills up with nobody
+//connected, or 0 for a draw
+class BoardTopology {
+  static final int ABSENT = -1;
+  static final int EMPTY = 0;
+  static final int WALL = 3;
+  // the row and column steps to the neighbors of a cell on each kind of board
+  static final int[][] SQUARE = { { -1, 0 }, { 0, -1 }, { 0, 1 }, { 1, 0 } };
+  static final int[][] HEX = { { -1, 0 }, { -1, 1 }, { 0, -1 }, { 0, 1 }, { 1, -1 }, { 1, 0 } };
+
+  int width;
+  int height;
+  int[] start;
+  int[] edges;
+  int[] offsets;
+  int[] neighbors;
+  int fullWinner;
+
+  // for a board of the given places, whose neighbors are the given steps
+  // away, going around from the last column to the first if wrap is true
+  BoardTopology(int width, int height, int[] start, int[] edges, int[][] steps, boolean wrap,
+      int fullWinner) {
+    if (start.length != width * height || edges.length != width * height) {
+      throw new IllegalArgumentException("the board needs a start and edges for every place");
+    }
+
+    this.width = width;
+    this.height = height;
+    this.start = start;
+    this.edges = edges;
+    this.fullWinner = fullWinner;
+    this.offsets = new int[width * height + 1];
+
+    // count the neighbors first so they can go straight into one array
+    int[] found = new int[width * height * steps.length];
+    int count = 0;
+
+    for (int c = 0; c < width * height; c++) {
+      this.offsets[c] = count;
+
+      for (int s = 0; s < steps.length && start[c] != ABSENT; s++) {
+        int row = c / width + steps[s][0];
+        int column = c % width + steps[s][1];
+
+        if (wrap) {
+          column = (column + width) % width;
+        }
+
+        if (row >= 0 && row < height && column >= 0 && column < width
+            && start[row * width + column] != ABSENT && row * width + column != c) {
+          found[count] = row * width + column;
+          count += 1;
+        }
+      }
+    }
+
+    this.offsets[width * height] = count;
+    this.neighbors = Arrays.copyOf(found, count);
+  }
+
+  // returns the bit of edges for the given side, 0 or 1, of the given player
+  static int edgeBit(int player, int side) {
+    return 1 << ((player - 1) * 2 + side);
+  }
+
+  // returns the places of the board
+  public int size() {
+    return this.width * this.height;
+  }
+
+  // returns how many neighbors the given cell has
+  public int degree(int cell) {
+    return this.offsets[cell + 1] - this.offsets[cell];
+  }
+
+  // returns the board Bridgit.makeGame makes: player 1's Cells on the even
+  // rows and player 2's on the even columns, joined up, down, left and
+  // right, with the WCells on the edges walls
+  public static BoardTopology bridgit(int grid) {
+    if (grid % 2 == 0 || grid < 3) {
+      throw new IllegalArgumentException("the number needs to be odd and greater than 3");
+    }
+
+    int[] start = new int[grid * grid];
+    int[] edges = new int[grid * grid];
+
+    for (int i = 0; i < grid; i++) {
+      for (int j = 0; j < grid; j++) {
+        int c = i * grid + j;
+
+        if (i % 2 == 0 && j % 2 == 1) {
+          start[c] = 1;
+        }
+        else if (i % 2 == 1 && j % 2 == 0) {
+          start[c] = 2;
+        }
+        else if (i == 0 || j == 0 || i == grid - 1 || j == grid - 1) {
+          start[c] = WALL;
+        }
+
+        edges[c] = sides(i, j, grid, grid, true);
+      }
+    }
+
+    return new BoardTopology(grid, grid, start, edges, SQUARE, false, 0);
+  }
+
+  // returns the rhombus board of Hex with the given side, where player 1
+  // connects the top to the bottom and player 2 the left to the right
+  public static BoardTopology hex(int side) {
+    int[] edges = new int[side * side];
+
+    for (int c = 0; c < side * side; c++) {
+      edges[c] = sides(c / side, c % side, side, side, true);
+    }
+
+    return new BoardTopology(side, side, new int[side * side], edges, HEX, false, 0);
+  }
+
+  // returns the Hex board with the given side rolled into a cylinder, the
+  // last column next to the first: player 1 connects the top to the bottom,
+  // and player 2 has no edges and wins by filling the board without player 1
+  // getting through, which takes a ring around the cylinder
+  public static BoardTopology cylinder(int side) {
+    int[] edges = new int[side * side];
+
+    for (int c = 0; c < side * side; c++) {
+      edges[c] = sides(c / side, c % side, side, side, false);
+    }
+
+    return new BoardTopology(side, side, new int[side * side], edges, HEX, true, 2);
+  }
+
+  // returns the edges of the place at the given row and column of a board of
+  // the given size: player 1 has the top and bottom rows and, unless the
+  // board wraps, player 2 has the left and right columns
+  static int sides(int row, int column, int width, int height, boolean leftRight) {
+    int sides = 0;
+
+    if (row == 0) {
+      sides |= edgeBit(1, 0);
+    }
+
+    if (row == height - 1) {
+      sides |= edgeBit(1, 1);
+    }
+
+    if (leftRight && column == 0) {
+      sides |= edgeBit(2, 0);
+    }
+
+    if (leftRight && column == width - 1) {
+      sides |= edgeBit(2, 1);
+    }
+
+    return sides;
+  }
+
+  // returns the board drawn in the given file: the first line is square or
+  // hex, then wrap if the columns go around, and each line after it is a row
+  // with a character for each place, . for an empty cell, r and b for cells
+  // of players 1 and 2, # for a wall and a space where there is no cell
+  // Player 1 connects the first row to the last, and player 2 the first cell
+  // of every row to the last, or on a wrapped board fills it
+  public static BoardTopology load(Path path) throws IOException {
+    java.util.List<String> lines = java.nio.file.Files.readAllLines(path);
+
+    if (lines.isEmpty()) {
+      throw new IOException("the board file is empty");
+    }
+
+    String[] header = lines.get(0).trim().split("\\s+");
+    int[][] steps;
+
+    if (header[0].equals("square")) {
+      steps = SQUARE;
+    }
+    else if (header[0].equals("hex")) {
+      steps = HEX;
+    }
+    else {
+      throw new IOException("unknown board shape: " + header[0]);
+    }
+
+    boolean wrap = header.length > 1 && header[1].equals("wrap");
+    int height = lines.size() - 1;
+    int width = 0;
+
+    for (int i = 1; i <= height; i++) {
+      width = Math.max(width, lines.get(i).length());
+    }
+
+    int[] start = new int[width * height];
+    int[] edges = new int[width * height];
+    Arrays.fill(start, ABSENT);
+
+    for (int i = 0; i < height; i++) {
+      String line = lines.get(i + 1);
+
+      for (int j = 0; j < line.length(); j++) {
+        start[i * width + j] = place(line.charAt(j));
+      }
+
+      int first = i * width + line.length() - line.stripLeading().length();
+      int last = i * width + line.stripTrailing().length() - 1;
+
+      for (int c = i * width; c < (i + 1) * width; c++) {
+        if (start[c] != ABSENT) {
+          edges[c] = sides(i, 0, width, height, false);
+        }
+      }
+
+      if (!wrap && first <= last) {
+        edges[first] |= edgeBit(2, 0);
+        edges[last] |= edgeBit(2, 1);
+      }
+    }
+
+    return new BoardTopology(width, height, start, edges, steps, wrap, wrap ? 2 : 0);
+  }
+
+  // returns what the given character of a board file starts as
+  static int place(char place) throws IOException {
+    if (place == '.') {
+      return EMPTY;
+    }
+    else if (place == 'r') {
+      return 1;
+    }
+    else if (place == 'b') {
+      return 2;
+    }
+    else if (place == '#') {
+      return WALL;
+    }
+    else if (place == ' ') {
+      return ABSENT;
+    }
+    else {
+      throw new IOException("unknown place on the board: " + place);
+    }
+  }
+}
+
+//Represents a connection game on any BoardTopology, with the owner of every
+//cell in an int[] and a UnionFind per player joining their own cells to each
+//other and to two extra nodes for their two edges, so a claim only looks at
+//the claimed cell's neighbors
+class TopologyGame implements BridgitEngine {
+  BoardTopology topology;
+  int[] owner;
+  int turn;
+  // the empty cells
+  MoveList open;
+  // the sets of each player, index 1 and 2, with the two edges at size and
+  // size + 1
+  UnionFind[] groups;
+
+  TopologyGame(BoardTopology topology) {
+    int size = topology.size();
+
+    this.topology = topology;
+    this.owner = topology.start.clone();
+    this.turn = 1;
+    this.open = new MoveList(size);
+    this.groups = new UnionFind[] { null, new UnionFind(size + 2), new UnionFind(size + 2) };
+
+    for (int c = 0; c < size; c++) {
+      if (this.owner[c] == BoardTopology.EMPTY) {
+        this.open.add(c);
+      }
+      else if (this.owner[c] == 1 || this.owner[c] == 2) {
+        this.join(c, this.owner[c]);
+      }
+    }
+  }
+
+  // EFFECT: join the given cell to its neighbors and edges of the given
+  // player
+  void join(int cell, int player) {
+    UnionFind group = this.groups[player];
+    int size = this.topology.size();
+    int[] neighbors = this.topology.neighbors;
+
+    for (int k = this.topology.offsets[cell]; k < this.topology.offsets[cell + 1]; k++) {
+      if (this.owner[neighbors[k]] == player) {
+        group.union(cell, neighbors[k]);
+      }
+    }
+
+    if ((this.topology.edges[cell] & BoardTopology.edgeBit(player, 0)) != 0) {
+      group.union(cell, size);
+    }
+
+    if ((this.topology.edges[cell] & BoardTopology.edgeBit(player, 1)) != 0) {
+      group.union(cell, size + 1);
+    }
+  }
+
+  // EFFECT: claim the given empty cell for the player whose turn it is and
+  // give the turn to the other player
+  // returns whether it was a legal move
+  public boolean claim(int cell) {
+    if (cell < 0 || cell >= this.topology.size() || !this.open.contains(cell)
+        || this.winner() != 0) {
+      return false;
+    }
+
+    this.owner[cell] = this.turn;
+    this.open.remove(cell);
+    this.join(cell, this.turn);
+    this.turn = 3 - this.turn;
+    return true;
+  }
+
+  // EFFECT: claim the cell at the given row and column for the player whose
+  // turn it is and give the turn to the other player
+  // returns whether it was a legal move
+  public boolean play(int row, int column) {
+    if (column < 0 || column >= this.topology.width) {
+      return false;
+    }
+
+    return this.claim(row * this.topology.width + column);
+  }
+
+  // has the given player connected both of their edges?
+  public boolean hasWon(int player) {
+    int size = this.topology.size();
+    return this.groups[player].connected(size, size + 1);
+  }
+
+  // returns the player that has won, the board's fullWinner if it filled up
+  // with nobody connected, or 0 if nobody has yet
+  public int winner() {
+    if (this.hasWon(1)) {
+      return 1;
+    }
+    else if (this.hasWon(2)) {
+      return 2;
+    }
+    else if (this.open.size() == 0) {
+      return this.topology.fullWinner;
+    }
+    else {
+      return 0;
+    }
+  }
+
+  // EFFECT: write the index, row * width + column, of every empty cell into
+  // the given array
+  // returns how many were written
+  public int legalMoves(int[] out) {
+    if (this.winner() != 0) {
+      return 0;
+    }
+
+    return this.open.toArray(out);
+  }
+
+  // returns the player whose turn it is
+  public int currentTurn() {
+    return this.turn;
+  }
+}
+
+//Represents a computer player that claims a random open WCell
+class RandomPlayer implements BridgitPlayer {
+  Random rand;
+
+  // original constructor
+  RandomPlayer() {
+    this.rand = new Random();
+  }
+
+  // for testing
+  RandomPlayer(Random rand) {
+    this.rand = rand;
+  }
+
+  // returns a random open WCell of the given board
+  public int chooseMove(BitBoard board) {
+    if (board.open.size() == 0) {
+      return -1;
+    }
+
+    return board.open.get(this.rand.nextInt(board.open.size()));
+  }
+}
+
+//Represents a round robin of Bridgit players on one board size without a
+//window, where every pair plays the given number of games with each side
+//moving first, spread over the given number of threads
+//Players are made by a Supplier because each thread needs its own
+class BridgitTournament {
+  int grid;
+  int games;
+  int threads;
+  ArrayList<String> names;
+  ArrayList<Supplier<BridgitPlayer>> players;
+  // wins[i * size + j] is how many games player i won against player j
+  AtomicLongArray wins;
+  long nanos;
+  // did every game get played?
+  boolean finished;
+
+  BridgitTournament(int grid, int games, int threads) {
+    this.grid = grid;
+    this.games = games;
+    this.threads = threads;
+    this.names = new ArrayList<String>();
+    this.players = new ArrayList<Supplier<BridgitPlayer>>();
+  }
+
+  // EFFECT: add a player with the given name to this tournament
+  public void add(String name, Supplier<BridgitPlayer> player) {
+    this.names.add(name);
+    this.players.add(player);
+  }
+
+  // EFFECT: play every game of this tournament, in chunks of games for one
+  // pair and one side to move first so each thread keeps its players busy
+  // If it is cut short the chunks under way are interrupted, and it isn't
+  // finished
+  public void run() {
+    int size = this.players.size();
+    ExecutorService pool = Executors.newFixedThreadPool(this.threads);
+    ArrayList<Future<?>> chunks = new ArrayList<Future<?>>();
+    int chunk = Math.max(1, this.games / (4 * this.threads));
+    long start = System.nanoTime();
+
+    this.wins = new AtomicLongArray(size * size);
+    this.finished = false;
+
+    for (int i = 0; i < size; i++) {
+      for (int j = 0; j < size; j++) {
+        for (int done = 0; i != j && done < this.games; done += chunk) {
+          chunks.add(pool.submit(new TournamentChunk(this, i, j, Math.min(chunk,
+              this.games - done))));
+        }
+      }
+    }
+
+    try {
+      for (Future<?> f : chunks) {
+        f.get();
+      }
+
+      this.finished = true;
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    catch (ExecutionException e) {
+      throw new RuntimeException(e.getCause());
+    }
+    finally {
+      if (this.finished) {
+        pool.shutdown();
+      }
+      else {
+        pool.shutdownNow();
+      }
+    }
+
+    this.nanos = System.nanoTime() - start;
+  }
+
+  // returns how many games player i won against player j
+  public long winsOf(int i, int j) {
+    return this.wins.get(i * this.players.size() + j);
+  }
+
+  // returns how many games were played a second, or 0 if none were
+  public double gamesPerSecond() {
+    long total = 0;
+
+    for (int k = 0; k < this.wins.length(); k++) {
+      total += this.wins.get(k);
+    }
+
+    if (total == 0 || this.nanos <= 0) {
+      return 0;
+    }
+
+    return total / (this.nanos / 1e9);
+  }
+
+  // returns the given part of the given whole in percent, or 0 if the whole
+  // is 0
+  double percent(long part, long whole) {
+    if (whole == 0) {
+      return 0;
+    }
+
+    return 100.0 * part / whole;
+  }
+
+  // EFFECT: write the win rate of every player against every other player
+  // and how fast the games went to the given stream, or only that it was cut
+  // short if it didn't finish
+  public void report(PrintStream out) {
+    int size = this.players.size();
+
+    out.println("Bridgit " + this.grid + "x" + this.grid + ", " + this.games
+        + " games each way per pair on " + this.threads + " threads");
+
+    if (!this.finished) {
+      out.println("cut short before every game was played");
+      return;
+    }
+
+    for (int i = 0; i < size; i++) {
+      long won = 0;
+      long played = 0;
+
+      for (int j = 0; j < size; j++) {
+        if (i != j) {
+          long w = this.winsOf(i, j);
+          long p = w + this.winsOf(j, i);
+
+          out.printf("  %s vs %s: %d of %d (%.1f%%)%n", this.names.get(i), this.names.get(j), w,
+              p, this.percent(w, p));
+          won += w;
+          played += p;
+        }
+      }
+
+      out.printf("%s: %.1f%% overall%n", this.names.get(i), this.percent(won, played));
+    }
+
+    out.printf("%.0f games/s%n", this.gamesPerSecond());
+  }
+
+  // plays a tournament on the board size, number of games and number of
+  // threads given, between random players and small searches
+  public static void main(String[] args) {
+    int grid = 11;
+    int games = 1000;
+    int threads = Runtime.getRuntime().availableProcessors();
+
+    if (args.length > 0) {
+      grid = Integer.parseInt(args[0]);
+    }
+    if (args.length > 1) {
+      games = Integer.parseInt(args[1]);
+    }
+    if (args.length > 2) {
+      threads = Integer.parseInt(args[2]);
+    }
+
+    BridgitTournament tournament = new BridgitTournament(grid, games, threads);
+    tournament.add("random", () -> new RandomPlayer());
+    tournament.add("mcts-100", () -> new MctsPlayer(100, Long.MAX_VALUE));
+    tournament.run();
+    tournament.report(System.out);
+  }
+}
+
+//Represents some games of a tournament between two of its players, the first
+//of them moving first
+class TournamentChunk implements Runnable {
+  BridgitTournament tournament;
+  int first;
+  int second;
+  int games;
+
+  TournamentChunk(BridgitTournament tournament, int first, int second, int games) {
+    this.tournament = tournament;
+    this.first = first;
+    this.second = second;
+    this.games = games;
+  }
+
+  // EFFECT: play these games and add who won them to the tournament, or
+  // nothing if interrupted first
+  public void run() {
+    BridgitGame game = new BridgitGame(this.tournament.grid);
+    BridgitPlayer one = this.tournament.players.get(this.first).get();
+    BridgitPlayer two = this.tournament.players.get(this.second).get();
+    int size = this.tournament.players.size();
+    long firstWins = 0;
+
+    for (int k = 0; k < this.games; k++) {
+      if (Thread.currentThread().isInterrupted()) {
+        return;
+      }
+
+      if (game.playOut(one, two) == 1) {
+        firstWins += 1;
+      }
+    }
+
+    this.tournament.wins.addAndGet(this.first * size + this.second, firstWins);
+    this.tournament.wins.addAndGet(this.second * size + this.first, this.games - firstWins);
+  }
+}
+
+//Represents what changed on the board of a hosted game after a move: the
+//Cell that was claimed and by whom, whose turn it is and who has won, or
+//that the move wasn't legal and nothing changed
+class BoardDelta {
+  int game;
+  boolean legal;
+  int move;
+  int player;
+  int turn;
+  int winner;
+
+  BoardDelta(int game, boolean legal, int move, int player, int turn, int winner) {
+    this.game = game;
+    this.legal = legal;
+    this.move = move;
+    this.player = player;
+    this.turn = turn;
+    this.winner = winner;
+  }
+}
+
+//Represents a move sent to a hosted game, with the future its delta goes to
+//and when it was sent
+class MoveRequest {
+  int row;
+  int column;
+  CompletableFuture<BoardDelta> reply;
+  long sent;
+
+  MoveRequest(int row, int column) {
+    this.row = row;
+    this.column = column;
+    this.reply = new CompletableFuture<BoardDelta>();
+    this.sent = System.nanoTime();
+  }
+}
+
+//Represents one hosted Bridgit game as an actor: moves wait in its mailbox
+//and are played one at a time by whichever thread of the server's pool the
+//session was handed to, so a game never needs a lock or a thread of its own
+//and a few threads can host any number of games
+class GameSession implements Runnable {
+  // how many moves a session plays before it lets other sessions have the
+  // thread
+  static final int BATCH = 16;
+
+  int id;
+  BridgitGame game;
+  ConcurrentLinkedQueue<MoveRequest> mailbox;
+  // is the session waiting for or running on a thread?
+  AtomicBoolean scheduled;
+  Executor pool;
+
+  GameSession(int id, int grid, Executor pool) {
+    this.id = id;
+    this.game = new BridgitGame(grid);
+    this.mailbox = new ConcurrentLinkedQueue<MoveRequest>();
+    this.scheduled = new AtomicBoolean(false);
+    this.pool = pool;
+  }
+
+  // EFFECT: put the given move in the mailbox, and hand this session to the
+  // pool unless it is already there
+  public void post(MoveRequest request) {
+    this.mailbox.add(request);
+
+    if (this.scheduled.compareAndSet(false, true)) {
+      this.pool.execute(this);
+    }
+  }
+
+  // EFFECT: play the moves in the mailbox and answer each with its delta
+  public void run() {
+    for (int k = 0; k < BATCH; k++) {
+      MoveRequest request = this.mailbox.poll();
+
+      if (request == null) {
+        break;
+      }
+
+      request.reply.complete(this.play(request.row, request.column));
+    }
+
+    this.scheduled.set(false);
+
+    // a move that came in after the last poll still gets played
+    if (!this.mailbox.isEmpty() && this.scheduled.compareAndSet(false, true)) {
+      this.pool.execute(this);
+    }
+  }
+
+  // EFFECT: claim the WCell at the given row and column if the game isn't
+  // over and it is a legal move
+  // returns what changed
+  BoardDelta play(int row, int column) {
+    int player = this.game.currentTurn();
+    boolean legal = this.game.play(row, column);
+
+    return new BoardDelta(this.id, legal, row * this.game.grid + column, player,
+        this.game.currentTurn(), this.game.winner());
+  }
+}
+
+//Represents a service that hosts many Bridgit games without windows, each a
+//GameSession on one shared pool of threads, which moves are sent to from any
+//thread and answered with BoardDeltas
+//Virtual threads would need Java 21, so sessions are actors on a fixed pool
+//instead, which needs no thread per game either
+class GameServer {
+  ExecutorService pool;
+  ConcurrentHashMap<Integer, GameSession> sessions;
+  AtomicInteger nextId;
+
+  GameServer(int threads) {
+    this.pool = Executors.newFixedThreadPool(threads);
+    this.sessions = new ConcurrentHashMap<Integer, GameSession>();
+    this.nextId = new AtomicInteger(0);
+  }
+
+  // EFFECT: start hosting a new game on a board of the given size
+  // returns its id
+  public int open(int grid) {
+    int id = this.nextId.getAndIncrement();
+
+    this.sessions.put(id, new GameSession(id, grid, this.pool));
+    return id;
+  }
+
+  // EFFECT: send the given move to the game of the given id
+  // returns the delta it will be answered with
+  public CompletableFuture<BoardDelta> play(int game, int row, int column) {
+    return this.play(game, new MoveRequest(row, column));
+  }
+
+  // EFFECT: send the given move to the game of the given id
+  // returns the delta it will be answered with
+  public CompletableFuture<BoardDelta> play(int game, MoveRequest request) {
+    GameSession session = this.sessions.get(game);
+
+    if (session == null) {
+      request.reply.completeExceptionally(new IllegalArgumentException("no game " + game));
+    }
+    else {
+      session.post(request);
+    }
+
+    return request.reply;
+  }
+
+  // EFFECT: stop hosting the game of the given id
+  public void close(int game) {
+    this.sessions.remove(game);
+  }
+
+  // returns how many games are being hosted
+  public int games() {
+    return this.sessions.size();
+  }
+
+  // EFFECT: stop the threads once the moves sent so far are played
+  public void shutdown() {
+    this.pool.shutdown();
+  }
+}
+
+//Represents a load test of a GameServer from the same process: every game is
+//played at the same time by a client that keeps its own BitBoard from the
+//deltas it gets and sends a random legal move as soon as it has an answer,
+//and the time from sending a move to getting its delta is recorded
+class ServerLoadTest {
+  GameServer server;
+  int grid;
+  int games;
+  // latencies[g] are the nanoseconds of each move of game g, filled only by
+  // the thread answering that game
+  long[][] latencies;
+  int[] moves;
+  int[] winners;
+  CountDownLatch done;
+  long nanos;
+
+  ServerLoadTest(GameServer server, int grid, int games) {
+    this.server = server;
+    this.grid = grid;
+    this.games = games;
+    this.latencies = new long[games][grid * grid];
+    this.moves = new int[games];
+    this.winners = new int[games];
+    this.done = new CountDownLatch(games);
+  }
+
+  // EFFECT: play every game to the end with the given seed
+  public void run(long seed) throws InterruptedException {
+    long start = System.nanoTime();
+
+    for (int g = 0; g < this.games; g++) {
+      int id = this.server.open(this.grid);
+      this.send(g, id, new BitBoard(this.grid), new Random(seed + g));
+    }
+
+    this.done.await();
+    this.nanos = System.nanoTime() - start;
+  }
+
+  // EFFECT: send a random legal move of the given board to the game of the
+  // given id, and when it is answered record it and send the next one
+  void send(int g, int id, BitBoard board, Random rand) {
+    int move = board.open.get(rand.nextInt(board.open.size()));
+    MoveRequest request = new MoveRequest(move / this.grid, move % this.grid);
+
+    this.server.play(id, request).thenAccept(delta -> {
+      this.latencies[g][this.moves[g]] = System.nanoTime() - request.sent;
+      this.moves[g] += 1;
+      board.click(delta.move / this.grid, delta.move % this.grid);
+
+      if (delta.winner != 0 || board.open.size() == 0) {
+        this.winners[g] = delta.winner;
+        this.server.close(id);
+        this.done.countDown();
+      }
+      else {
+        this.send(g, id, board, rand);
+      }
+    });
+  }
+
+  // returns the latency in nanoseconds that the given share of moves took
+  // at most
+  public long percentile(double share) {
+    int total = 0;
+
+    for (int g = 0; g < this.games; g++) {
+      total += this.moves[g];
+    }
+
+    long[] all = new long[total];
+    int next = 0;
+
+    for (int g = 0; g < this.games; g++) {
+      System.arraycopy(this.latencies[g], 0, all, next, this.moves[g]);
+      next += this.moves[g];
+    }
+
+    Arrays.sort(all);
+    return all[Math.min(total - 1, (int) (share * total))];
+  }
+
+  // hosts the number of games given second on the board of the size given
+  // first with the number of threads given third, plays them all at once
+  // and writes the move latencies
+  public static void main(String[] args) throws InterruptedException {
+    int grid = Integer.parseInt(args[0]);
+    int games = Integer.parseInt(args[1]);
+    GameServer server = new GameServer(Integer.parseInt(args[2]));
+    ServerLoadTest test = new ServerLoadTest(server, grid, games);
+
+    test.run(System.nanoTime());
+    server.shutdown();
+
+    long total = 0;
+
+    for (int g = 0; g < games; g++) {
+      total += test.moves[g];
+    }
+
+    System.out.printf("%d games, %d moves in %d ms, %.0f moves/s, p50 %.1f us, p99 %.1f us%n",
+        games, total, test.nanos / 1000000, total / (test.nanos / 1e9),
+        test.percentile(0.5) / 1e3, test.percentile(0.99) / 1e3);
+  }
+}
+
+//Represents a static evaluation of Bridgit positions that treats each
+//player's Cells as a network of resistors between their two edges, where the
+//player with less resistance is closer to connecting
+//An own Cell is a small resistor, an open WCell a unit resistor and any other
+//Cell cuts the network, and the potentials are found with a conjugate
+//gradient solver started from the last potentials of the same player
+class ResistanceEvaluator {
+  static final double OWN = 0.02;
+  static final double OPEN = 1.0;
+  static final double MAX_RESISTANCE = 1e6;
+
+  int grid;
+  int size;
+  // 0 for a WCell, 1 for a RCell and 2 for a BCell, row * grid + column
+  int[] owner;
+  // for each player, the conductance of the link to the Cell on the right and
+  // below, to the source and target, and the sum of them all
+  double[][] right;
+  double[][] down;
+  double[][] toSource;
+  double[][] toTarget;
+  double[][] diag;
+  // potentials of each player, kept between evaluations
+  double[][] potential;
+  double[] resistance;
+  int iterations;
+  double[] rhs;
+  double[] residual;
+  double[] precond;
+  double[] search;
+  double[] product;
+  // the Cells connected to the source, found before each solve
+  int[] worklist;
+  boolean[] reached;
+
+  ResistanceEvaluator(int grid) {
+    this.grid = grid;
+    this.size = grid * grid;
+    this.owner = new int[this.size];
+    this.right = new double[3][this.size];
+    this.down = new double[3][this.size];
+    this.toSource = new double[3][this.size];
+    this.toTarget = new double[3][this.size];
+    this.diag = new double[3][this.size];
+    this.potential = new double[3][this.size];
+    this.resistance = new double[3];
+    this.rhs = new double[this.size];
+    this.residual = new double[this.size];
+    this.precond = new double[this.size];
+    this.search = new double[this.size];
+    this.product = new double[this.size];
+    this.worklist = new int[this.size];
+    this.reached = new boolean[this.size];
+  }
+
+  // returns the log of player 2's resistance over player 1's for the given
+  // Cells, above 0 when player 1 is ahead
+  public double evaluate(ArrayList<ArrayList<Cell>> cells) {
+    for (int i = 0; i < this.grid; i++) {
+      for (int j = 0; j < this.grid; j++) {
+        Cell c = cells.get(i).get(j);
+        int index = i * this.grid + j;
+
+        if (c.path(1)) {
+          this.owner[index] = 1;
+        }
+        else if (c.path(2)) {
+          this.owner[index] = 2;
+        }
+        else {
+          this.owner[index] = 0;
+        }
+      }
+    }
+
+    return this.solveBoth();
+  }
+
+  // returns the log of player 2's resistance over player 1's for the given
+  // board, above 0 when player 1 is ahead
+  public double evaluate(BitBoard board) {
+    for (int i = 0; i < this.grid; i++) {
+      for (int j = 0; j < this.grid; j++) {
+        this.owner[i * this.grid + j] = board.owner(i, j);
+      }
+    }
+
+    return this.solveBoth();
+  }
+
+  // EFFECT: find the resistance of both players for these owners
+  // returns the log of player 2's resistance over player 1's
+  double solveBoth() {
+    this.resistance[1] = this.solve(1);
+    this.resistance[2] = this.solve(2);
+
+    return Math.log(this.resistance[2] / this.resistance[1]);
+  }
+
+  // returns the resistance of a Cell of the given owner at the given row and
+  // column for the given player, or 0 if it cuts the network
+  double cellResistance(int owner, int row, int column, int player) {
+    if (owner == player) {
+      return OWN;
+    }
+    else if (owner == 0 && row > 0 && column > 0 && row < this.grid - 1
+        && column < this.grid - 1) {
+      return OPEN;
+    }
+    else {
+      return 0;
+    }
+  }
+
+  // EFFECT: build the network of the given player and solve its potentials
+  // returns the resistance between the player's edges
+  double solve(int player) {
+    double[] x = this.potential[player];
+    double[] right = this.right[player];
+    double[] down = this.down[player];
+    double[] toSource = this.toSource[player];
+    double[] toTarget = this.toTarget[player];
+    double[] diag = this.diag[player];
+    int last = this.grid - 1;
+
+    for (int index = 0; index < this.size; index++) {
+      int row = index / this.grid;
+      int column = index % this.grid;
+      double r = this.cellResistance(this.owner[index], row, column, player);
+
+      right[index] = 0;
+      down[index] = 0;
+      toSource[index] = 0;
+      toTarget[index] = 0;
+
+      if (r == 0) {
+        x[index] = 0;
+        continue;
+      }
+
+      if (column < last) {
+        double r2 = this.cellResistance(this.owner[index + 1], row, column + 1, player);
+
+        if (r2 != 0) {
+          right[index] = 1 / (r + r2);
+        }
+      }
+      if (row < last) {
+        double r2 = this.cellResistance(this.owner[index + this.grid], row + 1, column, player);
+
+        if (r2 != 0) {
+          down[index] = 1 / (r + r2);
+        }
+      }
+
+      // player 1 connects the top to the bottom and player 2 the left to the
+      // right
+      if ((player == 1 && row == 0) || (player == 2 && column == 0)) {
+        toSource[index] = 1 / r;
+      }
+      if ((player == 1 && row == last) || (player == 2 && column == last)) {
+        toTarget[index] = 1 / r;
+      }
+    }
+
+    // no current flows at all, every Cell the source reaches is at its potential
+    if (!this.cutUnreached(player)) {
+      for (int index = 0; index < this.size; index++) {
+        if (this.reached[index]) {
+          x[index] = 1;
+        }
+        else {
+          x[index] = 0;
+        }
+      }
+
+      this.iterations = 0;
+      return MAX_RESISTANCE;
+    }
+
+    for (int index = 0; index < this.size; index++) {
+      double d = toSource[index] + toTarget[index] + right[index]
+          + down[index];
+
+      if (index % this.grid > 0) {
+        d += right[index - 1];
+      }
+      if (index >= this.grid) {
+        d += down[index - this.grid];
+      }
+
+      // a Cell out of the network keeps a diagonal of 1 and a potential of 0
+      if (d == 0) {
+        diag[index] = 1;
+        x[index] = 0;
+      }
+      else {
+        diag[index] = d;
+      }
+
+      this.rhs[index] = toSource[index];
+    }
+
+    this.conjugateGradient(player);
+
+    double current = 0;
+
+    for (int index = 0; index < this.size; index++) {
+      current += toSource[index] * (1 - x[index]);
+    }
+
+    if (current <= 1 / MAX_RESISTANCE) {
+      return MAX_RESISTANCE;
+    }
+    else {
+      return 1 / current;
+    }
+  }
+
+  // EFFECT: take every Cell that no current from the source can reach out of
+  // the network of the given player, so what is left has one solution
+  // returns whether the source still reaches the target
+  boolean cutUnreached(int player) {
+    double[] right = this.right[player];
+    double[] down = this.down[player];
+    double[] toSource = this.toSource[player];
+    double[] toTarget = this.toTarget[player];
+    int count = 0;
+
+    for (int index = 0; index < this.size; index++) {
+      this.reached[index] = toSource[index] != 0;
+
+      if (this.reached[index]) {
+        this.worklist[count] = index;
+        count += 1;
+      }
+    }
+
+    while (count > 0) {
+      count -= 1;
+      int index = this.worklist[count];
+
+      if (index % this.grid > 0 && right[index - 1] != 0 && !this.reached[index - 1]) {
+        this.reached[index - 1] = true;
+        this.worklist[count] = index - 1;
+        count += 1;
+      }
+      if (index % this.grid < this.grid - 1 && right[index] != 0
+          && !this.reached[index + 1]) {
+        this.reached[index + 1] = true;
+        this.worklist[count] = index + 1;
+        count += 1;
+      }
+      if (index >= this.grid && down[index - this.grid] != 0
+          && !this.reached[index - this.grid]) {
+        this.reached[index - this.grid] = true;
+        this.worklist[count] = index - this.grid;
+        count += 1;
+      }
+      if (index < this.size - this.grid && down[index] != 0
+          && !this.reached[index + this.grid]) {
+        this.reached[index + this.grid] = true;
+        this.worklist[count] = index + this.grid;
+        count += 1;
+      }
+    }
+
+    boolean connected = false;
+
+    for (int index = 0; index < this.size; index++) {
+      if (!this.reached[index]) {
+        right[index] = 0;
+        down[index] = 0;
+        toTarget[index] = 0;
+
+        if (index % this.grid > 0) {
+          right[index - 1] = 0;
+        }
+        if (index >= this.grid) {
+          down[index - this.grid] = 0;
+        }
+      }
+      else if (toTarget[index] != 0) {
+        connected = true;
+      }
+    }
+
+    return connected;
+  }
+
+  // EFFECT: put the network of the given player times the given vector into
+  // the given result
+  void multiply(int player, double[] v, double[] result) {
+    double[] right = this.right[player];
+    double[] down = this.down[player];
+    double[] diag = this.diag[player];
+
+    for (int index = 0; index < this.size; index++) {
+      double sum = diag[index] * v[index];
+
+      if (index % this.grid > 0) {
+        sum -= right[index - 1] * v[index - 1];
+      }
+      if (index % this.grid < this.grid - 1) {
+        sum -= right[index] * v[index + 1];
+      }
+      if (index >= this.grid) {
+        sum -= down[index - this.grid] * v[index - this.grid];
+      }
+      if (index < this.size - this.grid) {
+        sum -= down[index] * v[index + this.grid];
+      }
+
+      result[index] = sum;
+    }
+  }
+
+  // EFFECT: improve the potentials of the given player until they solve its
+  // network, using the diagonal as a preconditioner
+  void conjugateGradient(int player) {
+    double[] x = this.potential[player];
+    double[] diag = this.diag[player];
+
+    this.multiply(player, x, this.product);
+
+    double rz = 0;
+    double bound = 0;
+
+    for (int index = 0; index < this.size; index++) {
+      this.residual[index] = this.rhs[index] - this.product[index];
+      this.precond[index] = this.residual[index] / diag[index];
+      this.search[index] = this.precond[index];
+      rz += this.residual[index] * this.precond[index];
+      bound += this.rhs[index] * this.rhs[index] / diag[index];
+    }
+
+    // stop when the residual is a millionth of what it would be from 0
+    double tolerance = 1e-12 * bound;
+
+    for (this.iterations = 0; this.iterations < 4 * this.size && rz > tolerance;
+        this.iterations++) {
+      this.multiply(player, this.search, this.product);
+
+      double pAp = 0;
+
+      for (int index = 0; index < this.size; index++) {
+        pAp += this.search[index] * this.product[index];
+      }
+
+      double alpha = rz / pAp;
+      double rzNext = 0;
+
+      for (int index = 0; index < this.size; index++) {
+        x[index] += alpha * this.search[index];
+        this.residual[index] -= alpha * this.product[index];
+        this.precond[index] = this.residual[index] / diag[index];
+        rzNext += this.residual[index] * this.precond[index];
+      }
+
+      double beta = rzNext / rz;
+      rz = rzNext;
+
+      for (int index = 0; index < this.size; index++) {
+        this.search[index] = this.precond[index] + beta * this.search[index];
+      }
+    }
+  }
+
+  // returns the current through the Cell of the given index in the network of
+  // the given player from the last evaluation
+  public double current(int index, int player) {
+    double[] x = this.potential[player];
+    double[] right = this.right[player];
+    double[] down = this.down[player];
+    int row = index / this.grid;
+    int column = index % this.grid;
+    double r = this.cellResistance(this.owner[index], row, column, player);
+    double flow = 0;
+
+    if (r == 0) {
+      return 0;
+    }
+
+    flow += this.toSource[player][index] * Math.abs(1 - x[index]);
+    flow += this.toTarget[player][index] * Math.abs(x[index]);
+
+    if (column > 0) {
+      flow += right[index - 1] * Math.abs(x[index] - x[index - 1]);
+    }
+    if (column < this.grid - 1) {
+      flow += right[index] * Math.abs(x[index] - x[index + 1]);
+    }
+    if (row > 0) {
+      flow += down[index - this.grid] * Math.abs(x[index] - x[index - this.grid]);
+    }
+    if (row < this.grid - 1) {
+      flow += down[index] * Math.abs(x[index] - x[index + this.grid]);
+    }
+
+    // every unit of current goes in and comes out
+    return flow / 2;
+  }
+
+  // EFFECT: sort the first count of the given moves so the ones carrying the
+  // largest share of both players' current in the last evaluation come first
+  public void orderMoves(int[] moves, int count) {
+    double[] score = new double[count];
+
+    // the share of each player's whole current, which is 1 / resistance
+    for (int k = 0; k < count; k++) {
+      score[k] = this.current(moves[k], 1) * this.resistance[1]
+          + this.current(moves[k], 2) * this.resistance[2];
+    }
+
+    // insertion sort, the lists are short and mostly small
+    for (int k = 1; k < count; k++) {
+      int move = moves[k];
+      double value = score[k];
+      int i = k - 1;
+
+      while (i >= 0 && score[i] < value) {
+        moves[i + 1] = moves[i];
+        score[i + 1] = score[i];
+        i -= 1;
+      }
+
+      moves[i + 1] = move;
+      score[i + 1] = value;
+    }
+  }
+
+  // is the last evaluation far enough from even that a search can stop
+  // looking at this position?
+  public boolean isDecided(double margin) {
+    return Math.abs(Math.log(this.resistance[2] / this.resistance[1])) >= margin;
+  }
+}
+
+//Represents the moves of one Bridgit game in order, each as its index, row *
+//grid + column, with how many milliseconds the player took to make it
+class GameRecord {
+  int grid;
+  int[] moves;
+  int[] millis;
+  int count;
+
+  GameRecord(int grid) {
+    this.grid = grid;
+    this.moves = new int[grid * grid];
+    this.millis = new int[grid * grid];
+  }
+
+  // EFFECT: forget every move
+  public void clear() {
+    this.count = 0;
+  }
+
+  // EFFECT: add the given move that took the given milliseconds
+  public void add(int move, int millis) {
+    this.moves[this.count] = move;
+    this.millis[this.count] = millis;
+    this.count += 1;
+  }
+
+  // EFFECT: forget the last move
+  // returns it
+  public int removeLast() {
+    this.count -= 1;
+    return this.moves[this.count];
+  }
+}
+
+//Represents a file of Bridgit games being written, which starts with a header
+//of MAGIC, the board size and whether the moves are timed, followed by each
+//game as its number of moves and then each move, all as varints of 7 bits a
+//byte, so most moves of a small board take one byte
+//Games are written through a buffer, so only the buffer is kept in memory
+class GameRecordWriter implements AutoCloseable {
+  // "BRGR" at the start of a record file
+  static final int MAGIC = 0x42524752;
+  static final int HEADER = 12;
+
+  int grid;
+  boolean timed;
+  FileChannel out;
+  ByteBuffer buffer;
+  long games;
+
+  GameRecordWriter(Path path, int grid, boolean timed) throws IOException {
+    this.grid = grid;
+    this.timed = timed;
+    this.out = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.TRUNCATE_EXISTING);
+    this.buffer = ByteBuffer.allocateDirect(1 << 16);
+
+    int flags = 0;
+
+    if (timed) {
+      flags = 1;
+    }
+
+    this.buffer.putInt(MAGIC).putInt(grid).putInt(flags);
+  }
+
+  // EFFECT: add the given game to the end of the file
+  public void write(GameRecord record) throws IOException {
+    if (record.grid != this.grid) {
+      throw new IllegalArgumentException("the game is not on a board of " + this.grid);
+    }
+
+    this.putVarint(record.count);
+
+    for (int k = 0; k < record.count; k++) {
+      this.putVarint(record.moves[k]);
+
+      if (this.timed) {
+        this.putVarint(record.millis[k]);
+      }
+    }
+
+    this.games += 1;
+  }
+
+  // EFFECT: add the given number that isn't negative to the buffer, 7 bits a
+  // byte with the top bit on for every byte but the last, writing the buffer
+  // to the file first if it might not fit
+  void putVarint(int value) throws IOException {
+    if (this.buffer.remaining() < 5) {
+      this.flush();
+    }
+
+    while ((value & ~0x7F) != 0) {
+      this.buffer.put((byte) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+
+    this.buffer.put((byte) value);
+  }
+
+  // EFFECT: write everything in the buffer to the file
+  public void flush() throws IOException {
+    this.buffer.flip();
+
+    while (this.buffer.hasRemaining()) {
+      this.out.write(this.buffer);
+    }
+
+    this.buffer.clear();
+  }
+
+  // EFFECT: write what is left and close the file
+  public void close() throws IOException {
+    this.flush();
+    this.out.close();
+  }
+
+  // writes the number of games given second between random players on the
+  // board of the size given first to the file given third
+  public static void main(String[] args) throws IOException {
+    int grid = Integer.parseInt(args[0]);
+    int games = Integer.parseInt(args[1]);
+    BridgitGame game = new BridgitGame(grid);
+    RandomPlayer random = new RandomPlayer();
+
+    try (GameRecordWriter writer = new GameRecordWriter(Paths.get(args[2]), grid, false)) {
+      for (int g = 0; g < games; g++) {
+        game.playOut(random, random);
+        writer.write(game.record);
+      }
+    }
+  }
+}
+
+//Represents reading a file of Bridgit games written by GameRecordWriter one
+//game at a time, through a buffer that is filled again as it runs out, so a
+//file of any size can be read in the same memory
+class GameRecordReader implements AutoCloseable {
+  int grid;
+  boolean timed;
+  FileChannel in;
+  ByteBuffer buffer;
+  boolean ended;
+
+  GameRecordReader(Path path) throws IOException {
+    this.in = FileChannel.open(path, StandardOpenOption.READ);
+    this.buffer = ByteBuffer.allocateDirect(1 << 16);
+    this.buffer.flip();
+    this.fill();
+
+    if (this.buffer.remaining() < GameRecordWriter.HEADER
+        || this.buffer.getInt() != GameRecordWriter.MAGIC) {
+      this.in.close();
+      throw new IOException("not a file of Bridgit games");
+    }
+
+    this.grid = this.buffer.getInt();
+    this.timed = (this.buffer.getInt() & 1) != 0;
+  }
+
+  // EFFECT: read into the buffer until it is full or the file ends, keeping
+  // what hasn't been read yet
+  void fill() throws IOException {
+    this.buffer.compact();
+
+    while (this.buffer.hasRemaining() && !this.ended) {
+      if (this.in.read(this.buffer) < 0) {
+        this.ended = true;
+      }
+    }
+
+    this.buffer.flip();
+  }
+
+  // EFFECT: put the next game of the file into the given record
+  // returns false if there are no more games
+  public boolean read(GameRecord record) throws IOException {
+    if (!this.buffer.hasRemaining()) {
+      this.fill();
+
+      if (!this.buffer.hasRemaining()) {
+        return false;
+      }
+    }
+
+    int count = this.getVarint();
+
+    if (count > record.moves.length) {
+      throw new IOException("a game has more moves than a board of " + this.grid);
+    }
+
+    record.clear();
+
+    for (int k = 0; k < count; k++) {
+      int move = this.getVarint();
+      int millis = 0;
+
+      if (this.timed) {
+        millis = this.getVarint();
+      }
+
+      record.add(move, millis);
+    }
+
+    return true;
+  }
+
+  // returns the next varint of the buffer, filling it first if the varint
+  // might not be in it
+  int getVarint() throws IOException {
+    if (this.buffer.remaining() < 5) {
+      this.fill();
+    }
+
+    int value = 0;
+
+    for (int shift = 0; shift < 35; shift += 7) {
+      if (!this.buffer.hasRemaining()) {
+        throw new IOException("the file ends in the middle of a game");
+      }
+
+      int b = this.buffer.get();
+      value |= (b & 0x7F) << shift;
+
+      if (b >= 0) {
+        return value;
+      }
+    }
+
+    throw new IOException("a number is too long");
+  }
+
+  // EFFECT: close the file
+  public void close() throws IOException {
+    this.in.close();
+  }
+}
+
+//Represents something that looks at each position of the games a
+//GameReplayer plays back
+interface ReplayListener {
+
+  // EFFECT: look at the given board after the given move, the given ply of
+  // its game, has been played on it
+  public void moved(BitBoard board, int move, int ply);
+
+  // EFFECT: look at the given board at the end of a game won by the given
+  // player, or 0 if nobody won
+  public void ended(BitBoard board, int winner);
+}
+
+//Represents playing back files of Bridgit games on one BitBoard without a
+//window, counting wins and moves and showing every position to a listener
+class GameReplayer {
+  int grid;
+  BitBoard start;
+  BitBoard board;
+  GameRecord record;
+  ReplayListener listener;
+  long games;
+  long moves;
+  // wins[p] is how many games player p won, and wins[0] how many nobody did
+  long[] wins;
+
+  GameReplayer(int grid, ReplayListener listener) {
+    this.grid = grid;
+    this.start = new BitBoard(grid);
+    this.board = new BitBoard(this.start);
+    this.record = new GameRecord(grid);
+    this.listener = listener;
+    this.wins = new long[3];
+  }
+
+  // EFFECT: play back every game of the given file
+  // returns how many games it had
+  public long replay(Path path) throws IOException {
+    long before = this.games;
+
+    try (GameRecordReader reader = new GameRecordReader(path)) {
+      if (reader.grid != this.grid) {
+        throw new IOException("the games are not on a board of " + this.grid);
+      }
+
+      while (reader.read(this.record)) {
+        this.replay(this.record);
+      }
+    }
+
+    return this.games - before;
+  }
+
+  // EFFECT: play back the given game from the start
+  // returns the player that won, or 0 if nobody did
+  public int replay(GameRecord record) throws IOException {
+    this.board.copyFrom(this.start);
+
+    for (int k = 0; k < record.count; k++) {
+      int move = record.moves[k];
+      int turn = this.board.turn;
+
+      if (move < 0 || move >= this.grid * this.grid
+          || this.board.click(move / this.grid, move % this.grid) == turn) {
+        throw new IOException("move " + k + " of game " + this.games + " is not legal");
+      }
+
+      if (this.listener != null) {
+        this.listener.moved(this.board, move, k);
+      }
+    }
+
+    int winner = 0;
+
+    if (this.board.hasWon(1)) {
+      winner = 1;
+    }
+    else if (this.board.hasWon(2)) {
+      winner = 2;
+    }
+
+    if (this.listener != null) {
+      this.listener.ended(this.board, winner);
+    }
+
+    this.games += 1;
+    this.moves += record.count;
+    this.wins[winner] += 1;
+
+    return winner;
+  }
+
+  // plays back the file given second of games on the board of the size given
+  // first and writes how they went
+  public static void main(String[] args) throws IOException {
+    GameReplayer replayer = new GameReplayer(Integer.parseInt(args[0]), null);
+    long start = System.nanoTime();
+
+    replayer.replay(Paths.get(args[1]));
+
+    double seconds = (System.nanoTime() - start) / 1e9;
+    System.out.printf("%d games, %d moves, player 1 won %d and player 2 won %d, %.0f games/s%n",
+        replayer.games, replayer.moves, replayer.wins[1], replayer.wins[2],
+        replayer.games / seconds);
+  }
+}
+
+//Represents a generator of Bridgit positions labelled with who won, for
+//tuning evaluations: worker threads play games between players made by a
+//factory and pack every position before a move into a fixed size record,
+//into chunks that are direct ByteBuffers from a fixed pool, so memory stays
+//bounded and the workers wait when the writer falls behind. One writer
+//thread writes the full chunks to files of at most recordsPerFile records,
+//named from a prefix and a number
+//A file starts with MAGIC, the board size, the record size and the number of
+//records. A record is a byte of the player to move plus 4 times the winner,
+//then 2 bits, the owner, for each WCell inside the edges in order, the first
+//in the lowest bits
+class TrainingDataGenerator {
+  // "BRTD" at the start of a file of training data
+  static final int MAGIC = 0x42525444;
+  static final int HEADER = 16;
+
+  int grid;
+  long games;
+  int threads;
+  // the WCells inside the edges, in the order records pack them
+  int[] whites;
+  int recordSize;
+  int chunkRecords;
+  long recordsPerFile;
+  Path prefix;
+  Supplier<BridgitPlayer> players;
+  // empty chunks for the workers and full ones for the writer, a chunk with
+  // no room at all tells the writer to stop
+  ArrayBlockingQueue<ByteBuffer> free;
+  ArrayBlockingQueue<ByteBuffer> full;
+  AtomicLong gamesLeft;
+  // what the writer wrote, and why it stopped if it failed
+  ArrayList<Path> files;
+  long records;
+  IOException failure;
+  long nanos;
+
+  TrainingDataGenerator(int grid, long games, int threads, Path prefix,
+      Supplier<BridgitPlayer> players) {
+    BitBoard start = new BitBoard(grid);
+    int[] whites = new int[grid * grid];
+
+    this.grid = grid;
+    this.games = games;
+    this.threads = threads;
+    this.whites = Arrays.copyOf(whites, start.openCells(whites));
+    this.recordSize = 1 + (2 * this.whites.length + 7) / 8;
+    this.chunkRecords = 1024;
+    this.recordsPerFile = 1 << 20;
+    this.prefix = prefix;
+    this.players = players;
+    this.files = new ArrayList<Path>();
+  }
+
+  // EFFECT: play every game with the workers and write their positions with
+  // the writer, using 4 chunks for each thread
+  // returns how many records were written
+  // When a worker fails the others stop after their game, and the writer
+  // still writes what they sent before the failure is passed on
+  public long run() throws IOException {
+    if (this.recordsPerFile < 1 || this.recordsPerFile > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("a file needs room for 1 to 2^31 - 1 records");
+    }
+
+    ExecutorService pool = Executors.newFixedThreadPool(this.threads);
+    ArrayList<Future<?>> workers = new ArrayList<Future<?>>();
+    long start = System.nanoTime();
+
+    this.free = new ArrayBlockingQueue<ByteBuffer>(4 * this.threads);
+    this.full = new ArrayBlockingQueue<ByteBuffer>(4 * this.threads + 1);
+    this.gamesLeft = new AtomicLong(this.games);
+
+    for (int k = 0; k < 4 * this.threads; k++) {
+      this.free.add(ByteBuffer.allocateDirect(this.chunkRecords * this.recordSize));
+    }
+
+    Thread writer = new Thread(() -> this.drain(), "bridgit-training-writer");
+    writer.start();
+
+    for (int k = 0; k < this.threads; k++) {
+      workers.add(pool.submit(new TrainingWorker(this, 0x9E3779B97F4A7C15L * (k + 1))));
+    }
+
+    RuntimeException crash = null;
+
+    try {
+      for (Future<?> f : workers) {
+        f.get();
+      }
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    catch (ExecutionException e) {
+      this.gamesLeft.set(0);
+      crash = new RuntimeException(e.getCause());
+    }
+    finally {
+      this.stop(pool, writer);
+    }
+
+    this.nanos = System.nanoTime() - start;
+
+    if (crash != null) {
+      if (this.failure != null) {
+        crash.addSuppressed(this.failure);
+      }
+
+      throw crash;
+    }
+
+    if (this.failure != null) {
+      throw this.failure;
+    }
+
+    return this.records;
+  }
+
+  // EFFECT: wait for the workers to send their last chunks, then tell the
+  // given writer to stop and wait for it
+  void stop(ExecutorService pool, Thread writer) {
+    pool.shutdown();
+
+    try {
+      pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+
+    // there is always room, since there is one more place than chunks
+    this.full.offer(ByteBuffer.allocate(0));
+
+    try {
+      writer.join();
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  // returns an empty chunk, waiting for the writer to give one back
+  ByteBuffer take() {
+    try {
+      return this.free.take();
+    }
+    catch (InterruptedException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  // EFFECT: hand the given chunk to the writer
+  void send(ByteBuffer chunk) {
+    try {
+      this.full.put(chunk);
+    }
+    catch (InterruptedException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  // EFFECT: write the full chunks to the files until told to stop, starting a
+  // new file whenever one has recordsPerFile records, and give each chunk
+  // back once it is written
+  // After a failure it only takes the chunks, so the workers can finish
+  void drain() {
+    FileChannel out = null;
+    long inFile = 0;
+
+    try {
+      while (true) {
+        ByteBuffer chunk = this.full.take();
+
+        if (chunk.capacity() == 0) {
+          break;
+        }
+
+        chunk.flip();
+
+        while (chunk.hasRemaining() && this.failure == null) {
+          if (out == null || inFile == this.recordsPerFile) {
+            this.finish(out, inFile);
+            out = this.open();
+            inFile = 0;
+          }
+
+          int records = (int) Math.min(chunk.remaining() / this.recordSize,
+              this.recordsPerFile - inFile);
+          ByteBuffer part = chunk.duplicate();
+          part.limit(chunk.position() + records * this.recordSize);
+
+          while (part.hasRemaining()) {
+            out.write(part);
+          }
+
+          chunk.position(part.limit());
+          inFile += records;
+          this.records += records;
+        }
+
+        chunk.clear();
+        this.free.put(chunk);
+      }
+
+      this.finish(out, inFile);
+    }
+    catch (IOException e) {
+      this.failure = e;
+      this.drainAfterFailure();
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  // EFFECT: take the chunks the workers still send and give them back until
+  // told to stop
+  void drainAfterFailure() {
+    try {
+      ByteBuffer chunk = this.full.take();
+
+      while (chunk.capacity() != 0) {
+        chunk.clear();
+        this.free.put(chunk);
+        chunk = this.full.take();
+      }
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  // returns the next file, opened with room for its header
+  FileChannel open() throws IOException {
+    Path path = Paths.get(String.format("%s-%05d.bin", this.prefix, this.files.size()));
+    FileChannel out = FileChannel.open(path, StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+
+    this.files.add(path);
+    out.position(HEADER);
+    return out;
+  }
+
+  // EFFECT: write the header of the given file, now that it has the given
+  // number of records, and close it
+  void finish(FileChannel out, long records) throws IOException {
+    if (out != null) {
+      ByteBuffer header = ByteBuffer.allocate(HEADER);
+      header.putInt(MAGIC).putInt(this.grid).putInt(this.recordSize).putInt((int) records).flip();
+
+      while (header.hasRemaining()) {
+        out.write(header, header.position());
+      }
+
+      out.close();
+    }
+  }
+
+  // returns the owner of WCell k in the record at the given position of the
+  // given buffer
+  public int ownerOf(ByteBuffer buffer, int position, int k) {
+    return (buffer.get(position + 1 + k / 4) >> (2 * (k % 4))) & 3;
+  }
+
+  // plays the number of games given second on the board of the size given
+  // first with the number of threads given third between random players and
+  // writes their positions to files starting with the prefix given fourth
+  public static void main(String[] args) throws IOException {
+    TrainingDataGenerator generator = new TrainingDataGenerator(Integer.parseInt(args[0]),
+        Long.parseLong(args[1]), Integer.parseInt(args[2]), Paths.get(args[3]),
+        () -> new RandomPlayer());
+    long records = generator.run();
+
+    System.out.printf("%d positions in %d files, %.0f positions/s%n", records,
+        generator.files.size(), records * 1e9 / generator.nanos);
+  }
+}
+
+//Represents one thread of a TrainingDataGenerator: it plays games until there
+//are none left, keeps the records of the game under way and puts them into
+//its chunk with the winner once the game is over
+class TrainingWorker implements Runnable {
+  TrainingDataGenerator generator;
+  long seed;
+  // the records of the game under way, packed but without the winner
+  byte[] game;
+  int plies;
+
+  TrainingWorker(TrainingDataGenerator generator, long seed) {
+    this.generator = generator;
+    this.seed = seed;
+  }
+
+  // EFFECT: play games and send their records until there are none left
+  public void run() {
+    TrainingDataGenerator generator = this.generator;
+    int grid = generator.grid;
+    int size = generator.recordSize;
+    BridgitGame game = new BridgitGame(grid);
+    BridgitPlayer first = generator.players.get();
+    BridgitPlayer second = generator.players.get();
+    ByteBuffer chunk = generator.take();
+
+    this.game = new byte[(generator.whites.length + 1) * size];
+
+    while (generator.gamesLeft.getAndDecrement() > 0) {
+      int winner = this.play(game, first, second);
+
+      for (int p = 0; p < this.plies; p++) {
+        if (chunk.remaining() < size) {
+          generator.send(chunk);
+          chunk = generator.take();
+        }
+
+        chunk.put((byte) (this.game[p * size] | (winner << 2)));
+        chunk.put(this.game, p * size + 1, size - 1);
+      }
+    }
+
+    generator.send(chunk);
+  }
+
+  // EFFECT: play a game between the given players from the start, packing
+  // each position before a move into this.game
+  // returns the player that won, where a player that makes an illegal move
+  // loses
+  int play(BridgitGame game, BridgitPlayer first, BridgitPlayer second) {
+    game.reset();
+    this.plies = 0;
+
+    while (game.winner() == 0) {
+      int turn = game.board.turn;
+      BridgitPlayer player = first;
+
+      if (turn == 2) {
+        player = second;
+      }
+
+      this.pack(game.board, this.plies * this.generator.recordSize);
+      this.plies += 1;
+
+      int move = player.chooseMove(game.board);
+
+      if (move < 0 || !game.play(move / game.grid, move % game.grid)) {
+        return 3 - turn;
+      }
+    }
+
+    return game.winner();
+  }
+
+  // EFFECT: write the player to move and the owners of the given board's
+  // WCells into this.game at the given position
+  void pack(BitBoard board, int position) {
+    int[] whites = this.generator.whites;
+    int grid = board.grid;
+
+    for (int b = position + 1; b < position + this.generator.recordSize; b++) {
+      this.game[b] = 0;
+    }
+
+    this.game[position] = (byte) board.turn;
+
+    for (int k = 0; k < whites.length; k++) {
+      int owner = board.owner(whites[k] / grid, whites[k] % grid);
+      this.game[position + 1 + k / 4] |= (byte) (owner << (2 * (k % 4)));
+    }
+  }
+}
+
+//Represents an operation of Bridgit to time, on a game of a given size with a
+//given share of its open Cells already claimed
+interface BenchmarkOp {
+
+  // EFFECT: set up a new game of the given size and fill for timing
+  public void setup(int grid, double fill, Random rand);
+
+  // can run be timed again without setting up?
+  public boolean ready();
+
+  // EFFECT: do the operation once
+  // returns something computed so the work can't be skipped
+  public int run();
+}
+
+//Represents timing Bridgit.makeGame
+class MakeGameOp implements BenchmarkOp {
+  Bridgit game;
+  int grid;
+
+  // EFFECT: make the game to rebuild
+  public void setup(int grid, double fill, Random rand) {
+    this.game = new Bridgit(grid);
+    this.grid = grid;
+  }
+
+  // makeGame can always run again
+  public boolean ready() {
+    return true;
+  }
+
+  // EFFECT: rebuild the board
+  public int run() {
+    this.game.makeGame(this.grid);
+    return this.game.cells.size();
+  }
+}
+
+//Represents timing WCell.click through Bridgit.claimCell, on the open Cells
+//in a random order until a hundredth of them are claimed
+class ClickOp implements BenchmarkOp {
+  Bridgit game;
+  int[] moves;
+  int next;
+  int last;
+
+  // EFFECT: make a game of the given fill with the moves to click next
+  public void setup(int grid, double fill, Random rand) {
+    this.game = new BenchmarkGames().filled(grid, fill, rand);
+    this.moves = new int[grid * grid];
+
+    // the open Cells, since a full enough board may already have a winner
+    int count = this.game.open.toArray(this.moves);
+
+    new BenchmarkGames().shuffle(this.moves, count, rand);
+    this.next = 0;
+    this.last = Math.min(count, Math.max(1, grid * grid / 200));
+  }
+
+  // are there moves left to click?
+  public boolean ready() {
+    return this.next < this.last;
+  }
+
+  // EFFECT: click the next move
+  public int run() {
+    int move = this.moves[this.next];
+    this.next += 1;
+    this.game.claimCell(move / this.game.grid, move % this.game.grid);
+    return this.game.turn;
+  }
+}
+
+//Represents timing Bridgit.checkWin for player 1, the search the game used
+//before Connectivity, including making its list of sources
+class CheckWinOp implements BenchmarkOp {
+  Bridgit game;
+
+  // EFFECT: make a game of the given fill
+  public void setup(int grid, double fill, Random rand) {
+    this.game = new BenchmarkGames().filled(grid, fill, rand);
+  }
+
+  // checkWin can always run again
+  public boolean ready() {
+    return true;
+  }
+
+  // EFFECT: search for a path of player 1
+  public int run() {
+    ArrayList<Tile> worklist = new ArrayList<Tile>();
+
+    for (int i = 1; i < this.game.grid; i += 2) {
+      worklist.add(this.game.cells.get(0).get(i));
+    }
+
+    if (this.game.checkWin(worklist, 1)) {
+      return 1;
+    }
+    else {
+      return 0;
+    }
+  }
+}
+
+//Represents timing Connectivity.hasWon for player 1, to compare with
+//CheckWinOp
+class HasWonOp implements BenchmarkOp {
+  Bridgit game;
+
+  // EFFECT: make a game of the given fill
+  public void setup(int grid, double fill, Random rand) {
+    this.game = new BenchmarkGames().filled(grid, fill, rand);
+  }
+
+  // hasWon can always run again
+  public boolean ready() {
+    return true;
+  }
+
+  // EFFECT: ask whether player 1 has won
+  public int run() {
+    if (this.game.connect.hasWon(1)) {
+      return 1;
+    }
+    else {
+      return 0;
+    }
+  }
+}
+
+//Represents timing BitBoard.hasWon for player 1, to compare with CheckWinOp
+class BitBoardHasWonOp implements BenchmarkOp {
+  BitBoard board;
+
+  // EFFECT: make a board of the given fill
+  public void setup(int grid, double fill, Random rand) {
+    Bridgit game = new BenchmarkGames().filled(grid, fill, rand);
+    this.board = new BitBoard(grid, game.cells, game.turn);
+  }
+
+  // hasWon can always run again
+  public boolean ready() {
+    return true;
+  }
+
+  // EFFECT: ask whether player 1 has won
+  public int run() {
+    if (this.board.hasWon(1)) {
+      return 1;
+    }
+    else {
+      return 0;
+    }
+  }
+}
+
+//Represents timing Bridgit.makeSceneTest on a 500 by 500 canvas
+class MakeSceneOp implements BenchmarkOp {
+  Bridgit game;
+
+  // EFFECT: make a game of the given fill
+  public void setup(int grid, double fill, Random rand) {
+    this.game = new BenchmarkGames().filled(grid, fill, rand);
+  }
+
+  // makeSceneTest can always run again
+  public boolean ready() {
+    return true;
+  }
+
+  // EFFECT: draw the game
+  public int run() {
+    return this.game.makeSceneTest(500, 500).width;
+  }
+}
+
+//Represents helpers to make games for benchmarks
+class BenchmarkGames {
+
+  // returns a game of the given size where the given share of the open Cells
+  // have been clicked in a random order
+  Bridgit filled(int grid, double fill, Random rand) {
+    Bridgit game = new Bridgit(grid);
+    int[] moves = new int[grid * grid];
+    int count = game.legalMoves(moves);
+
+    this.shuffle(moves, count, rand);
+
+    for (int k = 0; k < (int) (count * fill); k++) {
+      game.claimCell(moves[k] / grid, moves[k] % grid);
+    }
+
+    return game;
+  }
+
+  // EFFECT: put the first count of the given numbers in a random order
+  void shuffle(int[] moves, int count, Random rand) {
+    for (int i = count - 1; i > 0; i--) {
+      int j = rand.nextInt(i + 1);
+      int move = moves[i];
+      moves[i] = moves[j];
+      moves[j] = move;
+    }
+  }
+}
+
+//Represents a benchmark of the Bridgit hot paths over board sizes and fill
+//levels that reports throughput, average time and bytes allocated for each
+//operation, measuring only the operation and not its setup
+class BridgitBenchmark {
+  // the shortest timed window, well above the cost and granularity of
+  // System.nanoTime and the allocation counter
+  static final long WINDOW_NANOS = 10000;
+
+  long warmupNanos;
+  long measureNanos;
+  ThreadMXBean threads;
+  // everything the operations return goes here so none of them is skipped
+  int sink;
+  // how many operations the last measurement ran per timed window
+  int batch;
+
+  BridgitBenchmark(long warmupMillis, long measureMillis) {
+    this.warmupNanos = warmupMillis * 1000000;
+    this.measureNanos = measureMillis * 1000000;
+    this.threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+  }
+
+  // returns the operations per second, nanoseconds per operation and bytes
+  // allocated per operation of the given operation on the given game
+  public double[] measure(BenchmarkOp op, int grid, double fill, Random rand) {
+    this.time(op, grid, fill, rand, this.warmupNanos);
+    return this.time(op, grid, fill, rand, this.measureNanos);
+  }
+
+  // returns the operations per second, nanoseconds per operation and bytes
+  // allocated per operation after running the given operation for at least
+  // the given time, setting it up again whenever it isn't ready, or after ten
+  // times that has passed setting it up
+  // Each timed window runs the operation batch times in a row, doubling batch
+  // until a window takes WINDOW_NANOS, unless the operation stops being ready
+  // sooner
+  double[] time(BenchmarkOp op, int grid, double fill, Random rand, long nanos) {
+    long thread = Thread.currentThread().getId();
+    long giveUp = System.nanoTime() + 10 * nanos;
+    long spent = 0;
+    long allocated = 0;
+    long ops = 0;
+
+    this.batch = 1;
+    op.setup(grid, fill, rand);
+
+    while ((spent < nanos && System.nanoTime() < giveUp) || ops == 0) {
+      if (!op.ready()) {
+        op.setup(grid, fill, rand);
+      }
+
+      int count = 0;
+      long bytes = this.threads.getThreadAllocatedBytes(thread);
+      long start = System.nanoTime();
+
+      while (count < this.batch && op.ready()) {
+        this.sink += op.run();
+        count += 1;
+      }
+
+      long window = System.nanoTime() - start;
+
+      allocated += this.threads.getThreadAllocatedBytes(thread) - bytes;
+      spent += window;
+      ops += count;
+
+      if (window < WINDOW_NANOS && count == this.batch && this.batch < (1 << 30)) {
+        this.batch *= 2;
+      }
+    }
+
+    return new double[] { ops / (spent / 1e9), (double) spent / ops, (double) allocated / ops };
+  }
+
+  // EFFECT: measure every given operation on every given size and fill and
+  // write a line for each to the given stream
+  public void runAll(ArrayList<String> names, ArrayList<BenchmarkOp> ops, int[] sizes,
+      double[] fills, PrintStream out) {
+    Random rand = new Random(1);
+
+    out.printf("%-16s %5s %5s %14s %14s %12s%n", "operation", "grid", "fill", "ops/s", "ns/op",
+        "B/op");
+
+    for (int k = 0; k < ops.size(); k++) {
+      for (int grid : sizes) {
+        for (double fill : fills) {
+          double[] result = this.measure(ops.get(k), grid, fill, rand);
+
+          out.printf("%-16s %5d %5.2f %14.1f %14.1f %12.1f%n", names.get(k), grid, fill,
+              result[0], result[1], result[2]);
+        }
+      }
+    }
+  }
+
+  // runs every benchmark, or only the ones named in the arguments
+  public static void main(String[] args) {
+    ArrayList<String> names = new ArrayList<String>();
+    ArrayList<BenchmarkOp> ops = new ArrayList<BenchmarkOp>();
+    ArrayList<String> wanted = new ArrayList<String>(Arrays.asList(args));
+
+    names.add("makeGame");
+    ops.add(new MakeGameOp());
+    names.add("click");
+    ops.add(new ClickOp());
+    names.add("checkWin");
+    ops.add(new CheckWinOp());
+    names.add("hasWon");
+    ops.add(new HasWonOp());
+    names.add("bitBoardHasWon");
+    ops.add(new BitBoardHasWonOp());
+    names.add("makeSceneTest");
+    ops.add(new MakeSceneOp());
+
+    for (int k = ops.size() - 1; k >= 0; k--) {
+      if (wanted.size() > 0 && !wanted.contains(names.get(k))) {
+        names.remove(k);
+        ops.remove(k);
+      }
+    }
+
+    new BridgitBenchmark(500, 1000).runAll(names, ops, new int[] { 5, 11, 25, 51, 101, 201 },
+        new double[] { 0, 0.25, 0.5, 0.75 }, System.out);
+  }
+}
+
+//Represents a histogram of latencies in nanoseconds that many threads can
+//record into without locks: below 2 * SUB nanoseconds every value has its
+//own bucket, and above that every power of two is split into SUB buckets,
+//so a value is kept to within an eighth of itself
+class LatencyHistogram {
+  static final int SUB = 8;
+  static final int SUB_BITS = 3;
+  // enough buckets for every non-negative long
+  static final int BUCKETS = (64 - SUB_BITS) * SUB;
+
+  AtomicLongArray counts;
+
+  LatencyHistogram() {
+    this.counts = new AtomicLongArray(BUCKETS);
+  }
+
+  // returns the bucket of the given value
+  static int bucket(long nanos) {
+    if (nanos < 2 * SUB) {
+      return (int) Math.max(nanos, 0);
+    }
+
+    int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+
+    return (exponent - SUB_BITS + 1) * SUB + (int) ((nanos >>> (exponent - SUB_BITS)) & (SUB - 1));
+  }
+
+  // returns the largest value of the given bucket
+  static long highest(int bucket) {
+    if (bucket < 2 * SUB) {
+      return bucket;
+    }
+
+    int shift = bucket / SUB - 1;
+
+    return ((long) (SUB + bucket % SUB) << shift) + (1L << shift) - 1;
+  }
+
+  // EFFECT: count the given value
+  public void record(long nanos) {
+    this.counts.incrementAndGet(bucket(nanos));
+  }
+
+  // returns how many values were counted
+  public long count() {
+    long count = 0;
+
+    for (int i = 0; i < BUCKETS; i++) {
+      count += this.counts.get(i);
+    }
+
+    return count;
+  }
+
+  // returns the value that the given share of the counted values are at or
+  // below, to the precision of its bucket, or 0 if none were counted
+  public long percentile(double share) {
+    long count = this.count();
+    long wanted = Math.max(1, (long) Math.ceil(share * count));
+    long seen = 0;
+
+    for (int i = 0; i < BUCKETS && count > 0; i++) {
+      seen += this.counts.get(i);
+
+      if (seen >= wanted) {
+        return highest(i);
+      }
+    }
+
+    return 0;
+  }
+
+  // EFFECT: forget every value
+  public void clear() {
+    for (int i = 0; i < BUCKETS; i++) {
+      this.counts.set(i, 0);
+    }
+  }
+}
+
+//Represents one timed phase of a Bridgit move as a Flight Recorder event
+@jdk.jfr.Name("bridgit.MovePhase")
+@jdk.jfr.Label("Bridgit Move Phase")
+@jdk.jfr.Category("Bridgit")
+class MovePhaseEvent extends jdk.jfr.Event {
+  @jdk.jfr.Label("Phase")
+  String phase;
+  @jdk.jfr.Label("Nanoseconds")
+  @jdk.jfr.Timespan(jdk.jfr.Timespan.NANOSECONDS)
+  long nanos;
+}
+
+//Represents the timings of the phases of the moves of Bridgit games: finding
+//the clicked Cell, claiming it, checking for a win and drawing the next
+//frame. They are only taken when the bridgit.timings property is true, and
+//then also go to the Flight Recorder and, if bridgit.timings.file names one,
+//to that file every bridgit.timings.period milliseconds
+class MoveTimings {
+  static final boolean ENABLED = Boolean.getBoolean("bridgit.timings");
+  static final int HIT = 0;
+  static final int CLICK = 1;
+  static final int WIN = 2;
+  static final int SCENE = 3;
+  static final String[] NAMES = { "hit", "click", "win", "scene" };
+  static final LatencyHistogram[] PHASES = { new LatencyHistogram(), new LatencyHistogram(),
+      new LatencyHistogram(), new LatencyHistogram() };
+
+  static {
+    String file = System.getProperty("bridgit.timings.file");
+
+    if (ENABLED && file != null) {
+      dumpEvery(Paths.get(file), Long.getLong("bridgit.timings.period", 10000));
+    }
+  }
+
+  // returns the time a phase starts, or 0 when timings aren't taken
+  static long start() {
+    if (ENABLED) {
+      return System.nanoTime();
+    }
+    else {
+      return 0;
+    }
+  }
+
+  // EFFECT: count the time since the given start against the given phase,
+  // when timings are taken
+  static void stop(int phase, long start) {
+    if (ENABLED) {
+      record(phase, System.nanoTime() - start);
+    }
+  }
+
+  // EFFECT: count the given time against the given phase, and send it to the
+  // Flight Recorder when it is recording
+  static void record(int phase, long nanos) {
+    PHASES[phase].record(nanos);
+
+    MovePhaseEvent event = new MovePhaseEvent();
+
+    if (event.shouldCommit()) {
+      event.phase = NAMES[phase];
+      event.nanos = nanos;
+      event.commit();
+    }
+  }
+
+  // returns a line for each phase with its count and its 50th, 99th and
+  // 100th percentiles in microseconds
+  static String summary() {
+    StringBuilder summary = new StringBuilder();
+
+    for (int p = 0; p < PHASES.length; p++) {
+      summary.append(String.format("%-6s %10d %10.1f %10.1f %10.1f%n", NAMES[p],
+          PHASES[p].count(), PHASES[p].percentile(0.5) / 1000.0,
+          PHASES[p].percentile(0.99) / 1000.0, PHASES[p].percentile(1) / 1000.0));
+    }
+
+    return summary.toString();
+  }
+
+  // EFFECT: add the time and the summary to the end of the given file
+  static void dump(Path path) throws IOException {
+    String text = "# " + java.time.Instant.now() + " phase count p50(us) p99(us) max(us)\n"
+        + summary();
+
+    java.nio.file.Files.write(path, text.getBytes(java.nio.charset.StandardCharsets.UTF_8),
+        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+  }
+
+  // EFFECT: dump the summary to the given file every given milliseconds on a
+  // daemon thread
+  // returns the executor doing it, to shut down to stop
+  static ScheduledExecutorService dumpEvery(Path path, long millis) {
+    ScheduledExecutorService dumper = Executors.newSingleThreadScheduledExecutor(task -> {
+      Thread thread = new Thread(task, "bridgit-timings");
+      thread.setDaemon(true);
+      return thread;
+    });
+
+    dumper.scheduleAtFixedRate(() -> {
+      try {
+        dump(path);
+      }
+      catch (IOException e) {
+        System.err.println("can't write the timings: " + e.getMessage());
+      }
+    }, millis, millis, TimeUnit.MILLISECONDS);
+
+    return dumper;
+  }
+
+  // EFFECT: forget every timing
+  static void clear() {
+    for (LatencyHistogram phase : PHASES) {
+      phase.clear();
+    }
+  }
+}
+
+//Represents an estimate of how good each open Cell of a Bridgit position is
+//for the player to move: the share of the random playouts after claiming it
+//that the player wins
+//Rounds of playouts for every open Cell run on a fork-join pool, split among
+//its threads by HeatmapTask, and are added to the counts as they finish, so
+//the estimates get better while they are drawn, until maxPlayouts for each
+//Cell or until cancel
+class HeatmapAnalysis {
+  // the playouts of each Cell in a round
+  static final int BATCH = 16;
+  // the most Cells a HeatmapTask does without splitting
+  static final int SPLIT = 4;
+
+  ForkJoinPool pool;
+  BitBoard board;
+  int[] candidates;
+  int count;
+  int maxPlayouts;
+  // the playouts and the wins of the player to move, by Cell
+  AtomicLongArray plays;
+  AtomicLongArray wins;
+  AtomicInteger rounds;
+  volatile boolean cancelled;
+  Future<?> task;
+  long seed;
+
+  HeatmapAnalysis(BitBoard board, ForkJoinPool pool, int maxPlayouts, long seed) {
+    this.pool = pool;
+    this.board = new BitBoard(board);
+    this.candidates = new int[board.grid * board.grid];
+    this.count = board.open.toArray(this.candidates);
+    this.maxPlayouts = maxPlayouts;
+    this.plays = new AtomicLongArray(board.grid * board.grid);
+    this.wins = new AtomicLongArray(board.grid * board.grid);
+    this.rounds = new AtomicInteger();
+    this.seed = seed;
+  }
+
+  // EFFECT: start the rounds of playouts on the pool, which goes on without
+  // the caller waiting
+  public void start() {
+    this.task = this.pool.submit(() -> {
+      for (int r = 0; !this.cancelled && (r + 1) * BATCH <= this.maxPlayouts; r++) {
+        new HeatmapTask(this, 0, this.count, this.seed + 0x9E3779B97F4A7C15L * r).invoke();
+        this.rounds.incrementAndGet();
+      }
+    });
+  }
+
+  // EFFECT: stop the playouts after the ones under way
+  public void cancel() {
+    this.cancelled = true;
+  }
+
+  // EFFECT: wait until the playouts are done or cancelled
+  public void join() {
+    try {
+      this.task.get();
+    }
+    catch (InterruptedException | ExecutionException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  // returns the share of the given Cell's playouts won by the player to
+  // move, or NaN if it has none
+  public double share(int index) {
+    long plays = this.plays.get(index);
+
+    if (plays == 0) {
+      return Double.NaN;
+    }
+
+    return (double) this.wins.get(index) / plays;
+  }
+
+  // EFFECT: write into the given array how good each Cell is compared to the
+  // others, from 0 for the worst so far to 1 for the best, or NaN if it isn't
+  // an open Cell with playouts
+  public void values(double[] out) {
+    double low = 1;
+    double high = 0;
+
+    Arrays.fill(out, Double.NaN);
+
+    for (int k = 0; k < this.count; k++) {
+      double share = this.share(this.candidates[k]);
+
+      if (!Double.isNaN(share)) {
+        out[this.candidates[k]] = share;
+        low = Math.min(low, share);
+        high = Math.max(high, share);
+      }
+    }
+
+    for (int k = 0; k < this.count; k++) {
+      int index = this.candidates[k];
+
+      if (!Double.isNaN(out[index])) {
+        if (high > low) {
+          out[index] = (out[index] - low) / (high - low);
+        }
+        else {
+          out[index] = 0.5;
+        }
+      }
+    }
+  }
+}
+
+//Represents a round of playouts for the Cells from and up to to of the
+//candidates of a HeatmapAnalysis, split in half until there are only a few
+class HeatmapTask extends RecursiveAction {
+  private static final long serialVersionUID = 1L;
+
+  HeatmapAnalysis analysis;
+  int from;
+  int to;
+  long seed;
+
+  HeatmapTask(HeatmapAnalysis analysis, int from, int to, long seed) {
+    this.analysis = analysis;
+    this.from = from;
+    this.to = to;
+    this.seed = seed;
+  }
+
+  // EFFECT: play the playouts of this round for these Cells and count them
+  protected void compute() {
+    if (this.to - this.from > HeatmapAnalysis.SPLIT) {
+      int middle = (this.from + this.to) >>> 1;
+
+      invokeAll(new HeatmapTask(this.analysis, this.from, middle, this.seed * 31 + 1),
+          new HeatmapTask(this.analysis, middle, this.to, this.seed * 31 + 2));
+      return;
+    }
+
+    BitBoard board = this.analysis.board;
+    int grid = board.grid;
+    int player = board.turn;
+    // only the playouts of the worker are used, not a search
+    MctsWorker playouts = new MctsWorker(null, board, this.seed);
+
+    for (int k = this.from; k < this.to && !this.analysis.cancelled; k++) {
+      int move = this.analysis.candidates[k];
+      int won = 0;
+      int played = 0;
+
+      while (played < HeatmapAnalysis.BATCH && !this.analysis.cancelled) {
+        playouts.walk.copyFrom(board);
+        playouts.walk.click(move / grid, move % grid);
+
+        if (playouts.playout(playouts.walk) == player) {
+          won += 1;
+        }
+
+        played += 1;
+      }
+
+      this.analysis.plays.addAndGet(move, played);
+      this.analysis.wins.addAndGet(move, won);
+    }
+  }
+}
+
+//Represents a drawing of a Bridgit board that is kept between frames, where
+//only the Cells marked since the last frame get painted again
+class BoardRenderer {
+  int grid;
+  int width;
+  int height;
+  ComputedPixelImage raster;
+  // the Cells to paint next frame, each one once
+  boolean[] dirty;
+  int[] dirtyList;
+  int dirtyCount;
+  // how good each WCell is from 0 to 1, shaded over it, or null for none
+  double[] heat;
+
+  BoardRenderer(int grid) {
+    this.grid = grid;
+    this.dirty = new boolean[grid * grid];
+    this.dirtyList = new int[grid * grid];
+    this.dirtyCount = 0;
+  }
+
+  // EFFECT: paint the Cell at the given row and column next frame
+  public void markDirty(int row, int column) {
+    int index = row * this.grid + column;
+
+    if (!this.dirty[index]) {
+      this.dirty[index] = true;
+      this.dirtyList[this.dirtyCount] = index;
+      this.dirtyCount += 1;
+    }
+  }
+
+  // EFFECT: paint every Cell next frame
+  public void markAll() {
+    for (int i = 0; i < this.grid; i++) {
+      for (int j = 0; j < this.grid; j++) {
+        this.markDirty(i, j);
+      }
+    }
+  }
+
+  // EFFECT: paint the marked Cells of the given Cells onto this raster, making a
+  // new raster first if the size changed
+  // returns the board with the player whose turn it is on top
+  public WorldImage render(ArrayList<ArrayList<Cell>> cells, int turn, int width, int height) {
+    if (this.raster == null || this.width != width || this.height != height) {
+      this.width = width;
+      this.height = height;
+      this.raster = new ComputedPixelImage(width, height);
+      this.fill(0, 0, width, height, Color.white);
+      this.markAll();
+    }
+
+    int size = Math.min(width, height) / this.grid;
+
+    for (int k = 0; k < this.dirtyCount; k++) {
+      int index = this.dirtyList[k];
+      int row = index / this.grid;
+      int column = index % this.grid;
+      Cell cell = cells.get(row).get(column);
+      Color color = Color.white;
+
+      if (cell.path(1)) {
+        color = Color.red;
+      }
+      else if (cell.path(2)) {
+        color = Color.blue;
+      }
+      else if (this.heat != null && !Double.isNaN(this.heat[index])) {
+        int shade = 255 - (int) (200 * this.heat[index]);
+        color = new Color(shade, 255, shade);
+      }
+
+      this.fill(column * size, row * size, size, size, color);
+      this.dirty[index] = false;
+    }
+
+    this.dirtyCount = 0;
+
+    if (turn == 1) {
+      return new OverlayOffsetAlign(AlignModeX.LEFT, AlignModeY.TOP,
+          new TextImage("P1", size / 2, Color.red), -size / 4, -size / 4, this.raster);
+    }
+    else {
+      return new OverlayOffsetAlign(AlignModeX.LEFT, AlignModeY.TOP,
+          new TextImage("P2", size / 2, Color.blue), -size / 4, -size / 4, this.raster);
+    }
+  }
+
+  // EFFECT: paint the given rectangle of this raster with the given color
+  void fill(int x, int y, int w, int h, Color color) {
+    for (int i = x; i < x + w; i++) {
+      for (int j = y; j < y + h; j++) {
+        this.raster.setPixel(i, j, color);
+      }
+    }
+  }
+}
+
+//Represents a Bridgit game for boards too big for Cells, 1001 by 1001 and
+//more, kept only as a Connectivity and a MoveList, with the window showing a
+//square of view by view Cells from row top and column left that the arrow
+//keys move and + and - zoom
+//The shown Cells are painted into a raster once and then only the claimed
+//Cell is painted again, until the view moves
+class LargeBridgit extends World implements BridgitEngine {
+  static final int MIN_VIEW = 5;
+  static final int MAX_VIEW = 201;
+
+  int grid;
+  int turn;
+  Connectivity connect;
+  MoveList open;
+  int top;
+  int left;
+  int view;
+  ComputedPixelImage raster;
+  int size;
+  // does the whole view need painting again?
+  boolean stale;
+
+  // original constructor
+  LargeBridgit(int grid) {
+    this(grid, Math.min(grid, 41));
+  }
+
+  // for showing the given number of Cells across
+  LargeBridgit(int grid, int view) {
+    if (grid % 2 == 0 || grid < 3) {
+      throw new IllegalArgumentException("the number needs to be odd and greater than 3");
+    }
+
+    this.grid = grid;
+    this.view = Math.max(Math.min(view, Math.min(grid, MAX_VIEW)), Math.min(grid, MIN_VIEW));
+    this.makeGame();
+  }
+
+  // EFFECT: start a new game with the view in the top left corner
+  public void makeGame() {
+    this.turn = 1;
+    this.connect = new Connectivity(this.grid);
+    this.open = new MoveList(this.grid * this.grid);
+
+    for (int i = 1; i < this.grid - 1; i++) {
+      for (int j = 2 - i % 2; j < this.grid - 1; j += 2) {
+        this.open.add(i * this.grid + j);
+      }
+    }
+
+    this.top = 0;
+    this.left = 0;
+    this.stale = true;
+  }
+
+  // draws the Cells in view and tells which player's turn it is and where
+  // the view is
+  public WorldScene makeScene() {
+    WorldScene scene = this.getEmptyScene();
+    WorldImage board = this.render(scene.width, scene.height);
+
+    scene.placeImageXY(board, scene.width / 2, scene.height / 2);
+
+    return scene;
+  }
+
+  // EFFECT: paint the view onto this raster if it moved, making a new raster
+  // first if the size changed
+  // returns the view with the turn and the place of the view on top
+  public WorldImage render(int width, int height) {
+    int size = Math.max(1, Math.min(width, height) / this.view);
+
+    if (this.raster == null || this.size != size) {
+      this.size = size;
+      this.raster = new ComputedPixelImage(size * this.view, size * this.view);
+      this.stale = true;
+    }
+
+    if (this.stale) {
+      for (int i = 0; i < this.view; i++) {
+        for (int j = 0; j < this.view; j++) {
+          this.paint(this.top + i, this.left + j);
+        }
+      }
+
+      this.stale = false;
+    }
+
+    String text = "P" + this.turn + "  " + this.top + ", " + this.left;
+    Color color = Color.blue;
+
+    if (this.turn == 1) {
+      color = Color.red;
+    }
+
+    return new OverlayOffsetAlign(AlignModeX.LEFT, AlignModeY.TOP, new TextImage(text, 16, color),
+        -4, -4, this.raster);
+  }
+
+  // EFFECT: paint the Cell at the given row and column onto this raster if it
+  // is in view
+  void paint(int row, int column) {
+    int i = row - this.top;
+    int j = column - this.left;
+
+    if (this.raster == null || i < 0 || j < 0 || i >= this.view || j >= this.view) {
+      return;
+    }
+
+    Color color = Color.white;
+    int owner = this.connect.owner[row * this.grid + column];
+
+    if (owner == 1) {
+      color = Color.red;
+    }
+    else if (owner == 2) {
+      color = Color.blue;
+    }
+
+    for (int x = j * this.size; x < (j + 1) * this.size; x++) {
+      for (int y = i * this.size; y < (i + 1) * this.size; y++) {
+        this.raster.setPixel(x, y, color);
+      }
+    }
+  }
+
+  // EFFECT: claim the clicked Cell of the view
+  public void onMouseClicked(Posn pos) {
+    WorldScene scene = this.getEmptyScene();
+
+    this.onMouseClickedTest(pos, scene.width, scene.height);
+  }
+
+  // EFFECT: claim the clicked Cell of the view on a canvas of the given width
+  // and height
+  // This is made for testing since the canvas of onMouseClicked comes from
+  // big bang
+  public void onMouseClickedTest(Posn pos, int width, int height) {
+    int size = Math.max(1, Math.min(width, height) / this.view);
+
+    if (pos.x < size * this.view && pos.y < size * this.view) {
+      this.play(this.top + pos.y / size, this.left + pos.x / size);
+    }
+  }
+
+  // EFFECT: move the view with the arrow keys, zoom it with + and -, or start
+  // again with r
+  public void onKeyEvent(String s) {
+    int step = Math.max(1, this.view / 2);
+
+    if (s.equals("up")) {
+      this.moveView(this.top - step, this.left);
+    }
+    else if (s.equals("down")) {
+      this.moveView(this.top + step, this.left);
+    }
+    else if (s.equals("left")) {
+      this.moveView(this.top, this.left - step);
+    }
+    else if (s.equals("right")) {
+      this.moveView(this.top, this.left + step);
+    }
+    else if (s.equals("+") || s.equals("=")) {
+      this.view = Math.max(Math.min(this.grid, MIN_VIEW), this.view / 2);
+      this.raster = null;
+      this.moveView(this.top, this.left);
+    }
+    else if (s.equals("-")) {
+      this.view = Math.min(Math.min(this.grid, MAX_VIEW), this.view * 2);
+      this.raster = null;
+      this.moveView(this.top, this.left);
+    }
+    else if (s.equals("r")) {
+      this.makeGame();
+    }
+  }
+
+  // EFFECT: put the top left of the view at the given row and column, kept
+  // on the board
+  void moveView(int top, int left) {
+    this.top = Math.max(0, Math.min(top, this.grid - this.view));
+    this.left = Math.max(0, Math.min(left, this.grid - this.view));
+    this.stale = true;
+  }
+
+  // EFFECT: claim the WCell at the given row and column for the player whose
+  // turn it is, give the turn to the other player, and end the game if they
+  // won
+  // returns whether it was a legal move, which no move is once somebody has won
+  public boolean play(int row, int column) {
+    if (row <= 0 || column <= 0 || row >= this.grid - 1 || column >= this.grid - 1
+        || this.winner() != 0 || !this.open.remove(row * this.grid + column)) {
+      return false;
+    }
+
+    this.connect.claim(this.turn, row, column);
+    this.paint(row, column);
+
+    if (this.connect.hasWon(this.turn)) {
+      this.endOfWorld("Player " + this.turn + " has won");
+    }
+
+    this.turn = 3 - this.turn;
+    return true;
+  }
+
+  // returns the player that has won, or 0 if nobody has yet
+  public int winner() {
+    if (this.connect.hasWon(1)) {
+      return 1;
+    }
+    else if (this.connect.hasWon(2)) {
+      return 2;
+    }
+    else {
+      return 0;
+    }
+  }
+
+  // EFFECT: write the index of every WCell inside the edges into the given
+  // array, of which there are none once somebody has won
+  // returns how many were written
+  public int legalMoves(int[] out) {
+    if (this.winner() != 0) {
+      return 0;
+    }
+
+    return this.open.toArray(out);
+  }
+
+  // returns the player whose turn it is
+  public int currentTurn() {
+    return this.turn;
+  }
+
+  // produce the lastScene of the game with a given message
+  public WorldScene lastScene(String s) {
+    WorldScene scene = this.makeScene();
+    scene.placeImageXY(new TextImage(s, 30, Color.BLACK), scene.width / 2, scene.height / 2);
+
+    return scene;
+  }
+}
+
+//Represents the Bridgit Game
+class Bridgit extends World implements BridgitEngine {
+  // the most playouts of each Cell for the heatmap
+  static final int HEAT_PLAYOUTS = 4096;
+
+  int grid;
+  ArrayList<ArrayList<Cell>> cells;
+  int turn;
+  Connectivity connect;
+  // the computer player and the turn it plays, or null and 0 for two humans
+  BridgitPlayer ai;
+  int aiTurn;
+  BoardRenderer renderer;
+  // the moves played since the start, and when the last one was
+  GameRecord record;
+  long lastMove;
+  // the open WCells inside the edges
+  MoveList open;
+  // the moves undone since the last new move, the last one undone on top
+  int[] redo;
+  int redoCount;
+  // the virtual connections of both players, and whether the game ends as
+  // soon as a player has a forced win through them
+  VirtualConnections vc;
+  boolean endOnForcedWin;
+  // whether a Cell was claimed since the last frame, so MoveTimings times
+  // the next one
+  boolean drawMove;
+  // whether the heatmap is shown, and the analysis for it of the position of
+  // heatKey with the values it last drew
+  boolean showHeat;
+  HeatmapAnalysis heatmap;
+  long heatKey;
+  double[] heat;
+
+  // original constructor
+  Bridgit(int grid) {
+    this.grid = grid;
+    this.cells = new ArrayList<ArrayList<Cell>>();
+    this.turn = 1;
+
+    if (this.grid % 2 == 0 || this.grid < 3) {
+      throw new IllegalArgumentException("the number needs to be odd and greater than 3");
+    }
+
+    this.makeGame(this.grid);
+
+  }
+
+  // for playing against the given computer player on the given turn
+  Bridgit(int grid, BridgitPlayer ai, int aiTurn) {
+    this(grid);
+    this.ai = ai;
+    this.aiTurn = aiTurn;
+    this.aiMove();
+  }
+
+  // for testing
+  Bridgit(int grid, ArrayList<ArrayList<Cell>> cells) {
+    this.grid = grid;
+    this.cells = cells;
+    this.connect = new Connectivity(grid, cells);
+    this.renderer = new BoardRenderer(grid);
+    this.record = new GameRecord(grid);
+    this.open = new MoveList(grid * grid);
+    this.redo = new int[grid * grid];
+    this.vc = new VirtualConnections(grid);
+
+    for (int i = 1; i < grid - 1; i++) {
+      for (int j = 1; j < grid - 1; j++) {
+        if (this.connect.owner[i * grid + j] == 0) {
+          this.open.add(i * grid + j);
+        }
+      }
+    }
+
+    this.vc.update(this.connect);
+  }
+
+  // EFFECT: make the Cells and link them together and the Cells to that
+  // needs to be linked to EmptyCell
+  public void makeGame(int grid) {
+    this.cells = new ArrayList<ArrayList<Cell>>();
+    this.connect = new Connectivity(grid);
+    this.renderer = new BoardRenderer(grid);
+    this.record = new GameRecord(grid);
+    this.lastMove = System.currentTimeMillis();
+    this.open = new MoveList(grid * grid);
+    this.redo = new int[grid * grid];
+    this.redoCount = 0;
+    this.vc = new VirtualConnections(grid);
+    this.vc.update(this.connect);
+    Tile empty = new EmptyCell();
+
+    for (int i = 0; i < grid; i++) {
+      this.cells.add(new ArrayList<Cell>());
+
+      for (int j = 0; j < grid; j++) {
+        // add Cells to the even row
+        if (i % 2 == 0) {
+          // add WCells on every even column
+          if (j % 2 == 0) {
+            this.cells.get(i).add(new WCell());
+          }
+
+          // add RCells on every odd column
+          else {
+            this.cells.get(i).add(new RCell());
+          }
+        }
+
+        // add Cells to the odd rows
+        else {
+          // add RCells on every even column
+          if (j % 2 == 0) {
+            this.cells.get(i).add(new BCell());
+          }
+
+          // add WCells on every odd column
+          else {
+            this.cells.get(i).add(new WCell());
+          }
+        }
+
+        Tile currentTile = this.cells.get(i).get(j);
+
+        // the WCells inside the edges can be claimed
+        if (i % 2 == j % 2 && i > 0 && j > 0 && i < grid - 1 && j < grid - 1) {
+          this.open.add(i * grid + j);
+        }
+
+        // link the Cells on the top row to the Empty Cell above
+        if (i == 0) {
+          currentTile.linkUp(empty);
+        }
+        // link the cells up and down
+        else {
+          Tile up = this.cells.get(i - 1).get(j);
+          currentTile.linkUp(up);
+          up.linkDown(currentTile);
+        }
+
+        // link the Cells on the last row to the Empty Cell below
+        if (i == this.grid - 1) {
+          currentTile.linkDown(empty);
+
+          // make every odd cell, i.e RCell, a target
+          if (j % 2 == 1) {
+            currentTile.makeTarget();
+          }
+        }
+
+        // link the Cells on the first column to the Empty Cell on the left
+        if (j == 0) {
+          currentTile.linkLeft(empty);
+        }
+        // link the Cells left and right
+        else {
+          Tile left = this.cells.get(i).get(j - 1);
+          currentTile.linkLeft(left);
+          left.linkRight(currentTile);
+        }
+
+        // link the Cells on the last column to the Empty Cell on the right
+        if (j == this.grid - 1) {
+          currentTile.linkRight(empty);
+
+          // make every odd cell, i.e BCell, a target
+          if (i % 2 == 1) {
+            currentTile.makeTarget();
+          }
+        }
+      }
+    }
+  }
+
+  // draws the game and tells which player's turn it is, painting only the
+  // Cells that changed since the last frame
+  public WorldScene makeScene() {
+    long start = MoveTimings.start();
+    WorldScene scene = this.getEmptyScene();
+
+    this.shadeHeat();
+
+    WorldImage board = this.renderer.render(this.cells, this.turn, scene.width, scene.height);
+
+    scene.placeImageXY(board, scene.width / 2, scene.height / 2);
+
+    if (this.drawMove) {
+      this.drawMove = false;
+      MoveTimings.stop(MoveTimings.SCENE, start);
+    }
+
+    return scene;
+  }
+
+  // EFFECT: if the heatmap is shown, give the renderer its latest values,
+  // starting it again first if the position changed, and otherwise take them
+  // away
+  public void shadeHeat() {
+    if (this.showHeat) {
+      if (this.heatmap == null || this.heatKey != this.key()) {
+        this.stopHeat();
+        this.heatKey = this.key();
+        this.heatmap = new HeatmapAnalysis(new BitBoard(this.grid, this.cells, this.turn),
+            ForkJoinPool.commonPool(), HEAT_PLAYOUTS, this.heatKey);
+        this.heatmap.start();
+        this.heat = new double[this.grid * this.grid];
+      }
+
+      this.heatmap.values(this.heat);
+      this.renderer.heat = this.heat;
+
+      for (int k = 0; k < this.open.size(); k++) {
+        this.renderer.markDirty(this.open.get(k) / this.grid, this.open.get(k) % this.grid);
+      }
+    }
+    else if (this.renderer.heat != null) {
+      this.renderer.heat = null;
+      this.renderer.markAll();
+    }
+  }
+
+  // EFFECT: cancel the playouts of the heatmap, which the next frame starts
+  // again for the new position if it is still shown
+  public void stopHeat() {
+    if (this.heatmap != null) {
+      this.heatmap.cancel();
+      this.heatmap = null;
+    }
+  }
+
+  // draws the game with a given canvas width and height and tell which player's
+  // turn it is
+  // I'm doing this because makeScene() is dependent on the canvas size that
+  // bigbang provides so if we don't initialize bigbang
+  public WorldScene makeSceneTest(int width, int height) {
+    WorldScene scene = new WorldScene(width, height);
+    int edge = scene.height / this.grid;
+    int edge2 = edge / 2;
+    int edge4 = edge / 4;
+
+    WorldImage board = new RectangleImage(scene.height, scene.width, "solid", Color.white);
+
+    for (int i = 0; i < this.cells.size(); i++) {
+      for (int j = 0; j < this.cells.get(0).size(); j++) {
+        board = this.cells.get(i).get(j).drawAt(j, i, this.grid, board);
+      }
+    }
+
+    if (this.turn == 1) {
+      board = new OverlayOffsetAlign(AlignModeX.LEFT, AlignModeY.TOP,
+          new TextImage("P1", edge2, Color.red), -edge4, -edge4, board);
+    }
+    else {
+      board = new OverlayOffsetAlign(AlignModeX.LEFT, AlignModeY.TOP,
+          new TextImage("P2", edge2, Color.blue), -edge4, -edge4, board);
+    }
+
+    scene.placeImageXY(board, scene.width / 2, scene.height / 2);
+
+    return scene;
+  }
+
+  // EFFECT: if a valid Cell is clicked, make the WCell become a BCell or
+  // RCell depending on the player's turn, update the turn, and end the game if
+  // a player has won
+  public void onMouseClicked(Posn pos) {
+    long start = MoveTimings.start();
+    WorldScene scene = this.getEmptyScene();
+    // the same size of Cell the renderer draws
+    int edge = Math.max(1, Math.min(scene.width, scene.height) / this.grid);
+    int row = pos.y / edge;
+    int column = pos.x / edge;
+
+    MoveTimings.stop(MoveTimings.HIT, start);
+    this.clickCell(row, column);
+  }
+
+  // EFFECT: if a valid Cell is clicked, make the WCell become a BCell or
+  // RCell depending on the player's turn, update the turn, and end the game if
+  // a player has won
+  // This is made for testing since onMouseClicked the height and width of the
+  // board is dependent on big bang
+  public void onMouseClickedTest(Posn pos, int height, int column) {
+    WorldScene scene = new WorldScene(height, column);
+    int edge = Math.max(1, Math.min(scene.width, scene.height) / this.grid);
+
+    this.clickCell(pos.y / edge, pos.x / edge);
+  }
+
+  // EFFECT: claim the WCell at the given row and column for the player whose
+  // turn it is and give the turn to the other player, without the computer
+  // player answering
+  // returns whether it was a legal move, which no move is once somebody has won
+  public boolean play(int row, int column) {
+    int before = this.turn;
+
+    if (this.winner() != 0) {
+      return false;
+    }
+
+    this.claimCell(row, column);
+
+    if (this.turn != before) {
+      this.redoCount = 0;
+    }
+
+    return this.turn != before;
+  }
+
+  // returns the player that has won, or 0 if nobody has yet
+  public int winner() {
+    if (this.connect.hasWon(1)) {
+      return 1;
+    }
+    else if (this.connect.hasWon(2)) {
+      return 2;
+    }
+    else {
+      return 0;
+    }
+  }
+
+  // EFFECT: write the index of every WCell inside the edges into the given
+  // array, of which there are none once somebody has won
+  // returns how many were written
+  public int legalMoves(int[] out) {
+    if (this.winner() != 0) {
+      return 0;
+    }
+
+    return this.open.toArray(out);
+  }
+
+  // returns the player whose turn it is
+  public int currentTurn() {
+    return this.turn;
+  }
+
+  // returns the Zobrist key of this game's position
+  public long key() {
+    if (this.turn == 2) {
+      return this.connect.key ^ this.connect.zobrist.turn();
+    }
+    else {
+      return this.connect.key;
+    }
+  }
+
+  // EFFECT: if the Cell at the given row and column is valid, make the WCell
+  // become a BCell or RCell depending on the player's turn, update the turn,
+  // and end the game if a player has won
+  public void clickCell(int row, int column) {
+    int before = this.turn;
+
+    this.claimCell(row, column);
+
+    // the computer answers a move, but not a click that did nothing
+    if (this.turn != before) {
+      this.redoCount = 0;
+      this.aiMove();
+    }
+  }
+
+  // EFFECT: make the last move's Cell a WCell again and give the turn back
+  // to the player that made it, keeping the move to redo
+  // returns whether there was a move to undo
+  public boolean undo() {
+    if (this.record.count == 0) {
+      return false;
+    }
+
+    int move = this.record.removeLast();
+    int row = move / this.grid;
+    int column = move % this.grid;
+
+    this.turn = this.cells.get(row).get(column).unclick(row, column, this.cells, this.connect);
+    this.stopHeat();
+    this.vc.update(this.connect);
+    this.open.add(move);
+    this.renderer.markDirty(row, column);
+    this.redo[this.redoCount] = move;
+    this.redoCount += 1;
+    this.lastMove = System.currentTimeMillis();
+
+    return true;
+  }
+
+  // EFFECT: play the last move that was undone again
+  // returns whether there was a move to redo
+  public boolean redo() {
+    if (this.redoCount == 0) {
+      return false;
+    }
+
+    this.redoCount -= 1;
+
+    int move = this.redo[this.redoCount];
+
+    this.claimCell(move / this.grid, move % this.grid);
+    return true;
+  }
+
+  // EFFECT: if it is the computer player's turn and nobody has won, claim the
+  // Cell the computer player chooses
+  public void aiMove() {
+    if (this.ai != null && this.turn == this.aiTurn && !this.connect.hasWon(1)
+        && !this.connect.hasWon(2)) {
+      int move = this.ai.chooseMove(new BitBoard(this.grid, this.cells, this.turn));
+
+      if (move >= 0) {
+        this.claimCell(move / this.grid, move % this.grid);
+        this.redoCount = 0;
+      }
+    }
+
+    this.ponder();
+  }
+
+  // EFFECT: let the computer player think while the other player does, or
+  // stop it if nobody needs to think
+  public void ponder() {
+    if (this.ai != null) {
+      this.ai.stopPondering();
+
+      if (this.turn != this.aiTurn && this.winner() == 0) {
+        this.ai.ponder(new BitBoard(this.grid, this.cells, this.turn));
+      }
+    }
+  }
+
+  // EFFECT: if the Cell at the given row and column is valid, make the WCell
+  // become a BCell or RCell depending on the player's turn, update the turn,
+  // and end the game if a player has won
+  public void claimCell(int row, int column) {
+    int newTurn = this.turn;
+
+    // checks for valid clicks
+    if (column > 0 && row > 0 && column < this.grid - 1 && row < this.grid - 1) {
+      long start = MoveTimings.start();
+      Cell clicked = this.cells.get(row).get(column);
+      newTurn = clicked.click(this.turn, row, column, this.cells, this.connect);
+      this.renderer.markDirty(row, column);
+      MoveTimings.stop(MoveTimings.CLICK, start);
+
+      if (newTurn != this.turn) {
+        long now = System.currentTimeMillis();
+        this.open.remove(row * this.grid + column);
+        this.record.add(row * this.grid + column, (int) Math.min(now - this.lastMove,
+            Integer.MAX_VALUE));
+        this.lastMove = now;
+        this.drawMove = true;
+        this.stopHeat();
+        this.vc.update(this.connect);
+      }
+
+      // only the win check, the virtual connections were found above
+      start = MoveTimings.start();
+
+      boolean won = this.connect.hasWon(this.turn);
+
+      MoveTimings.stop(MoveTimings.WIN, start);
+
+      if (won) {
+        this.endOfWorld("Player " + this.turn + " has won");
+      }
+      else if (this.endOnForcedWin && this.vc.forcedWinner() != 0) {
+        this.endOfWorld("Player " + this.vc.forcedWinner() + " has a forced win");
+      }
+    }
+
+    this.turn = newTurn;
+  }
+
+  // determines if a player has won by checking if there is a path
+  // from any source in the given worklist to the target using
+  // depth first search
+  // (the game itself asks this.connect instead, which doesn't need a search)
+  public boolean checkWin(ArrayList<Tile> worklist, int turn) {
+    ArrayList<Tile> seenList = new ArrayList<Tile>();
+
+    while (worklist.size() > 0) {
+      Tile next = worklist.remove(0);
+      ArrayList<Tile> nextLinks = next.addLinks();
+
+      if (next.isTarget()) {
+        return true;
+      }
+      else if (seenList.contains(next)) {
+        // do nothing
+      }
+      else {
+        for (Tile t : nextLinks) {
+          if (t.path(turn)) {
+            worklist.add(0, t);
+          }
+        }
+        seenList.add(next);
+      }
     }
 
     return false;
   }
 
-  // EFFECT: reset the cells to its original state and make the turn 1, i.e,
-  // resetting the game
-  public void onKeyEvent(String s) {
-    if (s.equals("r")) {
-      this.makeGame(this.grid);
-      this.turn = 1;
+  // EFFECT: reset the cells to its original state and make the turn 1, i.e,
+  // resetting the game, or undo a move with u and redo it with y, going on
+  // until it is not the computer player's turn, or turn ending the game on a
+  // forced win on and off with f, or the heatmap on and off with h
+  public void onKeyEvent(String s) {
+    if (s.equals("r")) {
+      this.stopHeat();
+      this.makeGame(this.grid);
+      this.turn = 1;
+      this.aiMove();
+    }
+    else if (s.equals("u")) {
+      while (this.undo() && this.ai != null && this.turn == this.aiTurn) {
+        // the computer's move is undone with the player's
+      }
+
+      // undoing the computer's first move leaves it to move again
+      this.aiMove();
+    }
+    else if (s.equals("y")) {
+      while (this.redo() && this.ai != null && this.turn == this.aiTurn) {
+        // the computer's move is redone with the player's
+      }
+
+      this.ponder();
+    }
+    else if (s.equals("f")) {
+      this.endOnForcedWin = !this.endOnForcedWin;
+    }
+    else if (s.equals("h")) {
+      this.showHeat = !this.showHeat;
+
+      if (!this.showHeat) {
+        this.stopHeat();
+      }
+    }
+  }
+
+  // produce the lastScene of the game with a given message
+  public WorldScene lastScene(String s) {
+    WorldScene scene = this.makeScene();
+    scene.placeImageXY(new TextImage(s, 30, Color.BLACK), scene.height / 2, scene.width / 2);
+
+    return scene;
+  }
+
+}
+
+class ExamplesBridgit {
+  Tile emptyCell;
+
+  Cell wCell;
+  Cell rCell;
+  Cell bCell;
+
+  Cell wCell2;
+  Cell wCell3;
+  Cell wCell4;
+  Cell wCell5;
+
+  Cell rCell2;
+  Cell rCell3;
+  Cell rCell4;
+  Cell rCell5;
+
+  Cell bCell2;
+  Cell bCell3;
+  Cell bCell4;
+  Cell bCell5;
+
+  ArrayList<ArrayList<Cell>> cells;
+
+  Bridgit b1;
+  Bridgit b2;
+
+  void init() {
+    this.emptyCell = new EmptyCell();
+
+    // for 3 by 3
+    this.wCell = new WCell();
+    this.rCell = new RCell();
+    this.bCell = new BCell();
+
+    this.wCell2 = new WCell();
+    this.wCell3 = new WCell();
+    this.wCell4 = new WCell();
+    this.wCell5 = new WCell();
+
+    this.rCell2 = new RCell();
+    this.rCell3 = new RCell();
+    this.rCell4 = new RCell();
+    this.rCell5 = new RCell();
+
+    this.bCell2 = new BCell();
+    this.bCell3 = new BCell();
+    this.bCell4 = new BCell();
+    this.bCell5 = new BCell();
+
+    ArrayList<Cell> row1 = new ArrayList<Cell>();
+    row1.add(this.wCell);
+    row1.add(this.rCell);
+    row1.add(this.wCell2);
+
+    ArrayList<Cell> row2 = new ArrayList<Cell>();
+    row2.add(this.bCell);
+    row2.add(this.wCell3);
+    row2.add(this.bCell2);
+
+    ArrayList<Cell> row3 = new ArrayList<Cell>();
+    row3.add(this.wCell4);
+    row3.add(this.rCell2);
+    row3.add(this.wCell5);
+
+    this.cells = new ArrayList<ArrayList<Cell>>();
+    cells.add(row1);
+    cells.add(row2);
+    cells.add(row3);
+
+    this.bCell2.makeTarget();
+    this.rCell2.makeTarget();
+
+    this.wCell.linkUp(this.emptyCell);
+    this.wCell.linkDown(this.bCell);
+    this.wCell.linkLeft(this.emptyCell);
+    this.wCell.linkRight(this.rCell);
+
+    this.rCell.linkUp(this.emptyCell);
+    this.rCell.linkDown(this.wCell3);
+    this.rCell.linkLeft(this.wCell);
+    this.rCell.linkRight(this.wCell2);
+
+    this.wCell2.linkUp(this.emptyCell);
+    this.wCell2.linkDown(this.bCell2);
+    this.wCell2.linkLeft(this.rCell);
+    this.wCell2.linkRight(this.emptyCell);
+
+    this.bCell.linkUp(this.wCell);
+    this.bCell.linkDown(this.wCell4);
+    this.bCell.linkLeft(this.emptyCell);
+    this.bCell.linkRight(this.wCell3);
+
+    this.wCell3.linkUp(this.rCell);
+    this.wCell3.linkDown(this.rCell2);
+    this.wCell3.linkLeft(this.bCell);
+    this.wCell3.linkRight(this.bCell2);
+
+    this.bCell2.linkUp(this.wCell2);
+    this.bCell2.linkDown(this.wCell5);
+    this.bCell2.linkLeft(this.wCell3);
+    this.bCell2.linkRight(this.emptyCell);
+
+    this.wCell4.linkUp(this.bCell);
+    this.wCell4.linkDown(this.emptyCell);
+    this.wCell4.linkLeft(this.emptyCell);
+    this.wCell4.linkRight(this.rCell2);
+
+    this.rCell2.linkUp(this.wCell3);
+    this.rCell2.linkDown(this.emptyCell);
+    this.rCell2.linkLeft(this.wCell4);
+    this.rCell2.linkRight(this.wCell5);
+
+    this.wCell5.linkUp(this.bCell2);
+    this.wCell5.linkDown(this.emptyCell);
+    this.wCell5.linkLeft(this.rCell2);
+    this.wCell5.linkRight(this.emptyCell);
+
+    this.b1 = new Bridgit(3);
+    this.b2 = new Bridgit(11);
+  }
+
+  // testing constructor exceptions
+  void testConstructor(Tester t) {
+    t.checkConstructorException(
+        new IllegalArgumentException("the number needs to be odd and greater than 3"), "Bridgit",
+        1);
+    t.checkConstructorException(
+        new IllegalArgumentException("the number needs to be odd and greater than 3"), "Bridgit",
+        2);
+    t.checkConstructorException(
+        new IllegalArgumentException("the number needs to be odd and greater than 3"), "Bridgit",
+        4);
+  }
+
+  void testGame(Tester t) {
+    this.init();
+    Bridgit g = this.b2;
+    g.bigBang(500, 500);
+  }
+
+  // testing linkUp method
+  void testLinkUp(Tester t) {
+    this.init();
+
+    // testing the emptyCell
+    this.emptyCell.linkUp(emptyCell);
+    t.checkExpect(this.emptyCell, new EmptyCell());
+
+    // testing the wCell
+    this.wCell.linkUp(emptyCell);
+    t.checkExpect(this.wCell.up, new EmptyCell());
+
+    this.wCell.linkUp(this.rCell);
+    t.checkExpect(this.wCell.up, this.rCell);
+
+    // testing the rCell
+    this.rCell.linkUp(this.rCell);
+    t.checkExpect(this.rCell.up, this.rCell);
+
+    this.rCell.linkUp(emptyCell);
+    t.checkExpect(this.rCell.up, emptyCell);
+
+    // testing the bCell
+    this.bCell.linkUp(emptyCell);
+    t.checkExpect(this.bCell.up, new EmptyCell());
+
+    this.bCell.linkUp(this.bCell);
+    t.checkExpect(this.bCell.up, this.bCell);
+  }
+
+  // testing linkDown method
+  void testLinkDown(Tester t) {
+    this.init();
+
+    // testing the emptyCell
+    this.emptyCell.linkDown(this.rCell);
+    t.checkExpect(this.emptyCell, new EmptyCell());
+
+    // testing the wCell
+    this.wCell.linkDown(emptyCell);
+    t.checkExpect(this.wCell.down, new EmptyCell());
+
+    this.wCell.linkDown(this.rCell);
+    t.checkExpect(this.wCell.down, this.rCell);
+
+    // testing the rCell
+    this.rCell.linkDown(this.rCell);
+    t.checkExpect(this.rCell.down, this.rCell);
+
+    this.rCell.linkDown(emptyCell);
+    t.checkExpect(this.rCell.down, emptyCell);
+
+    // testing the bCell
+    this.bCell.linkDown(emptyCell);
+    t.checkExpect(this.bCell.down, new EmptyCell());
+
+    this.bCell.linkDown(this.bCell);
+    t.checkExpect(this.bCell.down, this.bCell);
+  }
+
+  // testing linkLeft method
+  void testLinkLeft(Tester t) {
+    this.init();
+
+    // testing the emptyCell
+    this.emptyCell.linkUp(this.wCell);
+    t.checkExpect(this.emptyCell, new EmptyCell());
+
+    // testing the wCell
+    this.wCell.linkLeft(emptyCell);
+    t.checkExpect(this.wCell.left, new EmptyCell());
+
+    this.wCell.linkLeft(this.rCell);
+    t.checkExpect(this.wCell.left, this.rCell);
+
+    // testing the rCell
+    this.rCell.linkLeft(this.rCell);
+    t.checkExpect(this.rCell.left, this.rCell);
+
+    this.rCell.linkLeft(emptyCell);
+    t.checkExpect(this.rCell.left, emptyCell);
+
+    // testing the bCell
+    this.bCell.linkLeft(emptyCell);
+    t.checkExpect(this.bCell.left, new EmptyCell());
+
+    this.bCell.linkLeft(this.bCell);
+    t.checkExpect(this.bCell.left, this.bCell);
+  }
+
+  // testing linkRight method
+  void testLinkRight(Tester t) {
+    this.init();
+
+    // testing the emptyCell
+    this.emptyCell.linkRight(this.bCell);
+    t.checkExpect(this.emptyCell, new EmptyCell());
+
+    // testing the wCell
+    this.wCell.linkRight(emptyCell);
+    t.checkExpect(this.wCell.right, new EmptyCell());
+
+    this.wCell.linkRight(this.rCell);
+    t.checkExpect(this.wCell.right, this.rCell);
+
+    // testing the rCell
+    this.rCell.linkRight(this.rCell);
+    t.checkExpect(this.rCell.right, this.rCell);
+
+    this.rCell.linkRight(emptyCell);
+    t.checkExpect(this.rCell.right, emptyCell);
+
+    // testing the bCell
+    this.bCell.linkRight(emptyCell);
+    t.checkExpect(this.bCell.right, new EmptyCell());
+
+    this.bCell.linkRight(this.bCell);
+    t.checkExpect(this.bCell.right, this.bCell);
+  }
+
+  // testing drawAt method
+  void testDrawAt(Tester t) {
+    this.init();
+    WorldImage board = new RectangleImage(100, 100, "solid", Color.white);
+
+    t.checkExpect(this.wCell.drawAt(0, 0, 4, board), new OverlayOffsetAlign(AlignModeX.LEFT,
+        AlignModeY.TOP, new RectangleImage(25, 25, "solid", Color.white), 0, 0, board));
+    t.checkExpect(this.rCell.drawAt(0, 0, 4, board), new OverlayOffsetAlign(AlignModeX.LEFT,
+        AlignModeY.TOP, new RectangleImage(25, 25, "solid", Color.red), 0, 0, board));
+    t.checkExpect(this.bCell.drawAt(0, 0, 4, board), new OverlayOffsetAlign(AlignModeX.LEFT,
+        AlignModeY.TOP, new RectangleImage(25, 25, "solid", Color.blue), 0, 0, board));
+  }
+
+  // testing drawAtHelper method
+  void testDrawAtHelper(Tester t) {
+    this.init();
+    WorldImage board = new RectangleImage(100, 100, "solid", Color.white);
+
+    t.checkExpect(this.wCell.drawAtHelper(0, 0, 4, board, Color.white),
+        new OverlayOffsetAlign(AlignModeX.LEFT, AlignModeY.TOP,
+            new RectangleImage(25, 25, "solid", Color.white), 0, 0, board));
+    t.checkExpect(this.rCell.drawAtHelper(0, 0, 4, board, Color.red),
+        new OverlayOffsetAlign(AlignModeX.LEFT, AlignModeY.TOP,
+            new RectangleImage(25, 25, "solid", Color.red), 0, 0, board));
+    t.checkExpect(this.bCell.drawAtHelper(0, 0, 4, board, Color.blue),
+        new OverlayOffsetAlign(AlignModeX.LEFT, AlignModeY.TOP,
+            new RectangleImage(25, 25, "solid", Color.blue), 0, 0, board));
+  }
+
+  // testing makeGame method
+  void testMakeGame(Tester t) {
+    this.init();
+
+    t.checkExpect(this.b1.cells, cells);
+  }
+
+  // testing makeSceneTest method
+  void testMakeSceneTest(Tester t) {
+    this.init();
+
+    ArrayList<Cell> row1 = new ArrayList<Cell>();
+    row1.add(this.wCell);
+    row1.add(this.rCell);
+    row1.add(this.bCell);
+
+    ArrayList<ArrayList<Cell>> cells = new ArrayList<ArrayList<Cell>>();
+    cells.add(row1);
+
+    Bridgit game1 = new Bridgit(3, cells);
+
+    WorldScene scene = new WorldScene(400, 400);
+    WorldImage board = new RectangleImage(scene.height, scene.width, "solid", Color.white);
+
+    int edge = scene.height / game1.grid;
+    int edge2 = edge / 2;
+    int edge4 = edge / 4;
+
+    WorldImage rCell = new RectangleImage(133, 133, "solid", Color.red);
+    WorldImage bCell = new RectangleImage(133, 133, "solid", Color.blue);
+    WorldImage wCell = new RectangleImage(133, 133, "solid", Color.white);
+
+    board = new OverlayOffsetAlign(AlignModeX.LEFT, AlignModeY.TOP, wCell, 0 * wCell.getWidth(),
+        0 * wCell.getHeight(), board);
+    board = new OverlayOffsetAlign(AlignModeX.LEFT, AlignModeY.TOP, rCell, -1 * rCell.getWidth(),
+        0 * rCell.getHeight(), board);
+    board = new OverlayOffsetAlign(AlignModeX.LEFT, AlignModeY.TOP, bCell, -2 * bCell.getWidth(),
+        0 * bCell.getHeight(), board);
+
+    board = new OverlayOffsetAlign(AlignModeX.LEFT, AlignModeY.TOP,
+        new TextImage("P2", edge2, Color.blue), -edge4, -edge4, board);
+
+    scene.placeImageXY(board, 200, 200);
+
+    t.checkExpect(game1.makeSceneTest(400, 400), scene);
+
+  }
+
+  // testing onMouseClickTest method
+  void testOnMouseClickTest(Tester t) {
+    this.init();
+
+    // clicking on the edges doesn't do anything
+    this.b1.onMouseClickedTest(new Posn(5, 5), 30, 30);
+    this.b1.onMouseClickedTest(new Posn(5, 15), 30, 30);
+    this.b1.onMouseClickedTest(new Posn(5, 25), 30, 30);
+    this.b1.onMouseClickedTest(new Posn(15, 5), 30, 30);
+    this.b1.onMouseClickedTest(new Posn(25, 5), 30, 30);
+    this.b1.onMouseClickedTest(new Posn(25, 15), 30, 30);
+    this.b1.onMouseClickedTest(new Posn(25, 25), 30, 30);
+    this.b1.onMouseClickedTest(new Posn(15, 25), 30, 30);
+    t.checkExpect(this.b1.cells, this.cells);
+
+    // the middle tile is a WCell so clicking on it will change it to
+    // a RCell since it's player 1's turn
+    this.init();
+    this.b1.onMouseClickedTest(new Posn(15, 15), 30, 30);
+
+    Cell changeTile = this.cells.get(1).remove(1);
+    RCell newRCell = new RCell();
+
+    newRCell.linkDown(changeTile.down);
+    changeTile.down.linkUp(newRCell);
+    newRCell.linkUp(changeTile.up);
+    changeTile.up.linkDown(newRCell);
+    newRCell.linkLeft(changeTile.left);
+    changeTile.left.linkRight(newRCell);
+    newRCell.linkRight(changeTile.right);
+    changeTile.right.linkLeft(newRCell);
+
+    this.cells.get(1).add(1, newRCell);
+
+    t.checkExpect(this.b1.cells, this.cells);
+
+    // on a canvas taller than it is wide the Cells are sized by its width,
+    // as the renderer draws them
+    this.init();
+    this.b1.onMouseClickedTest(new Posn(15, 45), 30, 90);
+    t.checkExpect(this.b1.cells, this.cells);
+    this.b1.onMouseClickedTest(new Posn(15, 15), 30, 90);
+    t.checkExpect(this.b1.cells.get(1).get(1).path(1), true);
+
+    Bridgit tall = new Bridgit(5);
+    t.checkExpect(tall.cells.get(3).get(1).path(1), false);
+    tall.onMouseClickedTest(new Posn(30, 70), 100, 200);
+    t.checkExpect(tall.cells.get(3).get(1).path(1), true);
+  }
+
+  // testing onKeyEvent method
+  void testOnKeyEvent(Tester t) {
+    this.init();
+
+    // clicking on a random key does nothing
+    this.b1.onKeyEvent("a");
+    t.checkExpect(this.b1.cells, this.cells);
+
+    // clicking on a random key does nothing
+    this.b1.onKeyEvent("b");
+    t.checkExpect(this.b1.cells, this.cells);
+
+    // resets the game
+    this.b1.cells.get(1).get(1).click(0, 1, 1, this.b1.cells);
+
+    this.b1.onKeyEvent("r");
+    t.checkExpect(this.b1.cells, this.cells);
+  }
+
+  // testing click method
+  void testClick(Tester t) {
+    this.init();
+
+    t.checkExpect(this.wCell.click(0, 1, 1, this.cells), 1);
+    t.checkExpect(this.rCell.click(0, 1, 1, this.cells), 0);
+    t.checkExpect(this.bCell.click(1, 1, 1, this.cells), 1);
+  }
+
+  // testing addLinks method
+  void testAddLinks(Tester t) {
+    this.init();
+
+    t.checkException(new RuntimeException("EmptyCell has no links"), this.emptyCell, "addLinks");
+
+    ArrayList<Tile> arr = new ArrayList<Tile>();
+
+    arr.add(this.wCell.up);
+    arr.add(this.wCell.down);
+    arr.add(this.wCell.left);
+    arr.add(this.wCell.right);
+
+    t.checkExpect(this.wCell.addLinks(), arr);
+
+    ArrayList<Tile> arr2 = new ArrayList<Tile>();
+
+    arr2.add(this.bCell.up);
+    arr2.add(this.bCell.down);
+    arr2.add(this.bCell.left);
+    arr2.add(this.bCell.right);
+
+    t.checkExpect(this.bCell.addLinks(), arr2);
+
+    ArrayList<Tile> arr3 = new ArrayList<Tile>();
+
+    arr3.add(this.rCell.up);
+    arr3.add(this.rCell.down);
+    arr3.add(this.rCell.left);
+    arr3.add(this.rCell.right);
+
+    t.checkExpect(this.rCell.addLinks(), arr3);
+  }
+
+  // testing checkWin method
+  void testCheckWin(Tester t) {
+    this.init();
+
+    ArrayList<Tile> arr = new ArrayList<Tile>();
+
+    arr.add(this.rCell);
+
+    t.checkExpect(this.b1.checkWin(arr, 1), false);
+
+    // player 1 wins
+    arr.add(this.rCell);
+
+    Cell changeTile = this.cells.get(1).remove(1);
+    RCell newRCell = new RCell();
+
+    newRCell.linkDown(changeTile.down);
+    changeTile.down.linkUp(newRCell);
+    newRCell.linkUp(changeTile.up);
+    changeTile.up.linkDown(newRCell);
+    newRCell.linkLeft(changeTile.left);
+    changeTile.left.linkRight(newRCell);
+    newRCell.linkRight(changeTile.right);
+    changeTile.right.linkLeft(newRCell);
+
+    this.cells.get(1).add(1, newRCell);
+
+    this.b1.onMouseClickedTest(new Posn(15, 15), 30, 30);
+
+    t.checkExpect(this.b1.checkWin(arr, 1), true);
+    t.checkExpect(this.b1.checkWin(arr, 2), false);
+
+    // player 2 wins
+    this.init();
+
+    arr.add(this.bCell);
+
+    Cell changeTile2 = this.cells.get(1).remove(1);
+    BCell newBCell = new BCell();
+
+    newBCell.linkDown(changeTile2.down);
+    changeTile2.down.linkUp(newBCell);
+    newBCell.linkUp(changeTile2.up);
+    changeTile2.up.linkDown(newBCell);
+    newBCell.linkLeft(changeTile2.left);
+    changeTile2.left.linkRight(newBCell);
+    newBCell.linkRight(changeTile2.right);
+    changeTile2.right.linkLeft(newBCell);
+
+    this.cells.get(1).add(1, newBCell);
+
+    this.b1.onMouseClickedTest(new Posn(15, 15), 30, 30);
+
+    this.b1.turn = 2;
+
+    t.checkExpect(this.b1.checkWin(arr, 2), true);
+    t.checkExpect(this.b1.checkWin(arr, 1), false);
+
+  }
+
+  // testing lastScene method
+  void testLastScene(Tester t) {
+    this.init();
+
+    WorldScene scene = this.b1.makeScene();
+    scene.placeImageXY(new TextImage("a", 30, Color.BLACK), scene.height / 2, scene.width / 2);
+
+    t.checkExpect(this.b1.lastScene("a"), scene);
+  }
+
+  // testing isTarget method
+  void testIsTarget(Tester t) {
+    this.init();
+
+    t.checkExpect(this.wCell.isTarget(), false);
+    t.checkExpect(this.wCell2.isTarget(), false);
+    t.checkExpect(this.bCell.isTarget(), false);
+    t.checkExpect(this.rCell.isTarget(), false);
+    t.checkExpect(this.bCell2.isTarget(), true);
+    t.checkExpect(this.rCell2.isTarget(), true);
+  }
+
+  // testing makeTarget method
+  void testMakeTarget(Tester t) {
+    this.init();
+
+    t.checkExpect(this.wCell.target, false);
+    t.checkExpect(this.wCell2.target, false);
+    t.checkExpect(this.bCell.target, false);
+    t.checkExpect(this.rCell.target, false);
+    t.checkExpect(this.bCell2.target, true);
+    t.checkExpect(this.rCell2.target, true);
+  }
+
+  // testing path method
+  void testPath(Tester t) {
+    this.init();
+
+    t.checkExpect(this.emptyCell.path(1), false);
+    t.checkExpect(this.wCell.path(1), false);
+    t.checkExpect(this.rCell.path(1), true);
+    t.checkExpect(this.rCell.path(2), false);
+    t.checkExpect(this.bCell.path(1), false);
+    t.checkExpect(this.bCell.path(2), true);
+  }
+
+  // testing find method
+  void testFind(Tester t) {
+    UnionFind sets = new UnionFind(5);
+
+    t.checkExpect(sets.find(0), 0);
+    t.checkExpect(sets.find(4), 4);
+
+    sets.union(0, 1);
+    sets.union(2, 1);
+
+    t.checkExpect(sets.find(2), 0);
+    t.checkExpect(sets.find(3), 3);
+
+    // the path from 2 has been compressed to point at its representative
+    t.checkExpect(sets.parent[2], 0);
+  }
+
+  // testing union method
+  void testUnion(Tester t) {
+    UnionFind sets = new UnionFind(4);
+
+    sets.union(0, 1);
+    t.checkExpect(sets.parent[1], 0);
+    t.checkExpect(sets.rank[0], 1);
+
+    // the shorter tree goes under the taller one
+    sets.union(2, 0);
+    t.checkExpect(sets.parent[2], 0);
+    t.checkExpect(sets.rank[0], 1);
+
+    // merging a set with itself does nothing
+    sets.union(1, 2);
+    t.checkExpect(sets.rank[0], 1);
+  }
+
+  // testing connected method
+  void testConnected(Tester t) {
+    UnionFind sets = new UnionFind(4);
+
+    t.checkExpect(sets.connected(0, 1), false);
+    t.checkExpect(sets.connected(2, 2), true);
+
+    sets.union(0, 1);
+    sets.union(1, 3);
+
+    t.checkExpect(sets.connected(0, 3), true);
+    t.checkExpect(sets.connected(0, 2), false);
+  }
+
+  // testing the Connectivity constructors
+  void testConnectivity(Tester t) {
+    this.init();
+
+    Connectivity c = new Connectivity(3);
+
+    t.checkExpect(c.owner, new int[] { 0, 1, 0, 2, 0, 2, 0, 1, 0 });
+    t.checkExpect(c.red.connected(1, c.source), true);
+    t.checkExpect(c.red.connected(7, c.target), true);
+    t.checkExpect(c.blue.connected(3, c.source), true);
+    t.checkExpect(c.blue.connected(5, c.target), true);
+
+    // building one from the Cells of a board gives the same owners
+    t.checkExpect(new Connectivity(3, this.cells).owner, c.owner);
+    t.checkExpect(this.b1.connect.owner, c.owner);
+  }
+
+  // testing claim method
+  void testClaim(Tester t) {
+    Connectivity c = new Connectivity(5);
+
+    c.claim(1, 1, 1);
+    t.checkExpect(c.owner[6], 1);
+    t.checkExpect(c.red.connected(6, 1), true);
+    t.checkExpect(c.red.connected(6, 11), true);
+    t.checkExpect(c.red.connected(6, c.source), true);
+
+    // any turn other than 1 is player 2
+    c.claim(0, 2, 2);
+    t.checkExpect(c.owner[12], 2);
+    t.checkExpect(c.blue.connected(12, 7), true);
+    t.checkExpect(c.blue.connected(12, 17), true);
+    t.checkExpect(c.blue.connected(12, 11), false);
+  }
+
+  // testing hasWon method
+  void testHasWon(Tester t) {
+    Connectivity c = new Connectivity(5);
+
+    t.checkExpect(c.hasWon(1), false);
+    t.checkExpect(c.hasWon(2), false);
+
+    c.claim(1, 1, 1);
+    c.claim(1, 3, 1);
+    t.checkExpect(c.hasWon(1), true);
+    t.checkExpect(c.hasWon(2), false);
+
+    c = new Connectivity(5);
+    c.claim(2, 1, 1);
+    c.claim(2, 1, 3);
+    t.checkExpect(c.hasWon(2), true);
+    t.checkExpect(c.hasWon(1), false);
+  }
+
+  // testing click method with a Connectivity
+  void testClickConnectivity(Tester t) {
+    this.init();
+
+    Connectivity c = new Connectivity(3, this.cells);
+
+    t.checkExpect(this.rCell.click(1, 0, 1, this.cells, c), 1);
+    t.checkExpect(c.owner[4], 0);
+
+    t.checkExpect(this.wCell3.click(1, 1, 1, this.cells, c), 2);
+    t.checkExpect(c.owner[4], 1);
+    t.checkExpect(c.hasWon(1), true);
+  }
+
+  // testing clickCell method
+  void testClickCell(Tester t) {
+    this.init();
+
+    // clicking on the edges doesn't do anything
+    this.b2.clickCell(0, 2);
+    this.b2.clickCell(4, 10);
+    t.checkExpect(this.b2.turn, 1);
+
+    this.b2.clickCell(1, 1);
+    t.checkExpect(this.b2.turn, 2);
+    t.checkExpect(this.b2.connect.owner[12], 1);
+    t.checkExpect(this.b2.cells.get(1).get(1).path(1), true);
+
+    // clicking on a claimed Cell keeps the turn
+    this.b2.clickCell(1, 1);
+    t.checkExpect(this.b2.turn, 2);
+
+    this.b2.clickCell(2, 2);
+    t.checkExpect(this.b2.turn, 1);
+    t.checkExpect(this.b2.connect.owner[24], 2);
+    t.checkExpect(this.b2.cells.get(2).get(2).path(2), true);
+  }
+
+  // testing cell and turn methods of Zobrist
+  void testZobristCell(Tester t) {
+    Zobrist z = new Zobrist();
+
+    t.checkExpect(z.cell(5, 1), new Zobrist().cell(5, 1));
+    t.checkExpect(z.cell(5, 1) == z.cell(5, 2), false);
+    t.checkExpect(z.cell(5, 1) == z.cell(6, 1), false);
+    t.checkExpect(z.turn() == z.cell(0, 0), false);
+  }
+
+  // testing key method of Zobrist
+  void testZobristKey(Tester t) {
+    Zobrist z = new Zobrist();
+
+    t.checkExpect(z.key(new int[] { 0, 0, 0 }, 1), 0L);
+    t.checkExpect(z.key(new int[] { 0, 1, 2 }, 1), z.cell(1, 1) ^ z.cell(2, 2));
+    t.checkExpect(z.key(new int[] { 0, 1, 2 }, 2), z.cell(1, 1) ^ z.cell(2, 2) ^ z.turn());
+  }
+
+  // testing that keys are kept up to date by clicks
+  void testIncrementalKeys(Tester t) {
+    this.init();
+
+    BitBoard board = new BitBoard(11);
+    t.checkExpect(board.key, board.computeKey());
+    t.checkExpect(this.b2.key(), board.key);
+
+    int[] rows = { 1, 2, 5, 9, 3 };
+    int[] columns = { 1, 4, 7, 5, 3 };
+
+    for (int i = 0; i < 5; i++) {
+      board.click(rows[i], columns[i]);
+      this.b2.clickCell(rows[i], columns[i]);
     }
+
+    t.checkExpect(board.key, board.computeKey());
+    t.checkExpect(this.b2.key(), board.key);
+    t.checkExpect(new BitBoard(11, this.b2.cells, this.b2.turn).key, board.key);
+
+    // the same Cells in another order give the same key
+    BitBoard other = new BitBoard(11);
+    other.click(5, 7);
+    other.click(2, 4);
+    other.click(1, 1);
+    other.click(9, 5);
+    other.click(3, 3);
+    t.checkExpect(other.key, board.key);
+
+    // but not if the turn is different
+    other.click(7, 7);
+    t.checkExpect(other.key == board.key, false);
   }
 
-  // produce the lastScene of the game with a given message
-  public WorldScene lastScene(String s) {
-    WorldScene scene = this.makeScene();
-    scene.placeImageXY(new TextImage(s, 30, Color.BLACK), scene.height / 2, scene.width / 2);
+  // testing probe and store methods of TranspositionTable
+  void testTranspositionTable(Tester t) {
+    TranspositionTable table = new TranspositionTable(3);
+
+    t.checkExpect(table.mask, 3);
+    t.checkExpect(table.probe(42), 0L);
+
+    table.store(42, 17, -5, 3, TranspositionTable.EXACT);
+    long entry = table.probe(42);
+    t.checkExpect(table.moveOf(entry), 17);
+    t.checkExpect(table.valueOf(entry), -5);
+    t.checkExpect(table.depthOf(entry), 3);
+    t.checkExpect(table.flagOf(entry), TranspositionTable.EXACT);
+
+    // a different key in the same bucket doesn't match
+    t.checkExpect(table.probe(46), 0L);
+
+    // a shallower result goes to the second entry and keeps the deep one
+    table.store(46, 1, 2, 1, TranspositionTable.LOWER);
+    t.checkExpect(table.depthOf(table.probe(42)), 3);
+    t.checkExpect(table.moveOf(table.probe(46)), 1);
+
+    // the newest entry is always replaced
+    table.store(50, 2, 2, 1, TranspositionTable.UPPER);
+    t.checkExpect(table.probe(46), 0L);
+    t.checkExpect(table.flagOf(table.probe(50)), TranspositionTable.UPPER);
+
+    // deep entries of an older search get replaced
+    table.newSearch();
+    table.store(54, 3, 0, 1, TranspositionTable.EXACT);
+    t.checkExpect(table.probe(42), 0L);
+    t.checkExpect(table.moveOf(table.probe(54)), 3);
+
+    // a torn entry reads as a miss
+    table.data[2 * (54 & 3)] ^= 1L << 20;
+    t.checkExpect(table.probe(54), 0L);
+  }
 
-    return scene;
+  // testing the BridgitSolver constructor
+  void testBridgitSolver(Tester t) {
+    t.checkConstructorException(
+        new IllegalArgumentException("the board is too big to solve every position"),
+        "BridgitSolver", 9);
+
+    BridgitSolver solver = new BridgitSolver(5);
+
+    t.checkExpect(solver.whites, new int[] { 6, 8, 12, 16, 18 });
+    t.checkExpect(solver.maps[1], new int[] { 4, 3, 2, 1, 0 });
+    t.checkExpect(solver.maps[2], new int[] { 0, 3, 2, 1, 4 });
+    t.checkExpect(solver.maps[3], new int[] { 4, 1, 2, 3, 0 });
+  }
+
+  // testing canonical method
+  void testCanonical(Tester t) {
+    BridgitSolver solver = new BridgitSolver(5);
+
+    // the start and its flip with player 2 to move are the same position
+    t.checkExpect(solver.canonical(new int[] { 0, 0, 0, 0, 0 }, 1), 0L);
+    t.checkExpect(solver.canonical(new int[] { 0, 0, 0, 0, 0 }, 2) >> 2, 0L);
+
+    // turning the board around gives the same index
+    t.checkExpect(solver.canonical(new int[] { 1, 0, 0, 0, 0 }, 2) >> 2,
+        solver.canonical(new int[] { 0, 0, 0, 0, 1 }, 2) >> 2);
+
+    // and so does flipping it with the colors swapped
+    t.checkExpect(solver.canonical(new int[] { 0, 1, 0, 0, 0 }, 2) >> 2,
+        solver.canonical(new int[] { 0, 0, 0, 2, 0 }, 1) >> 2);
+    t.checkExpect(solver.canonical(new int[] { 1, 0, 0, 0, 0 }, 2) >> 2 == solver
+        .canonical(new int[] { 0, 1, 0, 0, 0 }, 2) >> 2, false);
+  }
+
+  // testing solveAll, value and chooseMove methods of BridgitSolver
+  void testSolveAll(Tester t) {
+    BridgitSolver solver = new BridgitSolver(5);
+
+    // the first player wins Bridgit
+    t.checkExpect(solver.solveAll(), BridgitSolver.WIN);
+    t.checkExpect(solver.value(new BitBoard(5)), BridgitSolver.WIN);
+
+    // row 3 column 1 is the only move that wins for player 1
+    BitBoard board = new BitBoard(5);
+    board.click(1, 1);
+    board.click(3, 3);
+    t.checkExpect(solver.value(board), BridgitSolver.WIN);
+    t.checkExpect(solver.chooseMove(board), 16);
+
+    // the same position turned around
+    BitBoard turned = new BitBoard(5);
+    turned.click(3, 3);
+    turned.click(1, 1);
+    t.checkExpect(solver.chooseMove(turned), 8);
+
+    // if player 1 plays anything else player 2 wins there instead
+    board.click(1, 3);
+    t.checkExpect(solver.value(board), BridgitSolver.WIN);
+    t.checkExpect(solver.chooseMove(board), 16);
+    board.click(2, 2);
+    t.checkExpect(solver.value(board), BridgitSolver.WIN);
+
+    // a won game has no moves
+    board.click(3, 1);
+    t.checkExpect(solver.value(board), BridgitSolver.LOSS);
+    t.checkExpect(solver.chooseMove(board), -1);
+  }
+
+  // testing write and load methods of BridgitSolver
+  void testSolverFile(Tester t) {
+    try {
+      Path file = java.nio.file.Files.createTempFile("bridgit", ".solved");
+      BridgitSolver solver = new BridgitSolver(5);
+      solver.solveAll();
+      solver.write(file);
+
+      BridgitSolver loaded = new BridgitSolver(5);
+      loaded.load(file);
+
+      BitBoard board = new BitBoard(5);
+      board.click(1, 1);
+      board.click(3, 3);
+
+      t.checkExpect(loaded.table.isDirect(), true);
+      t.checkExpect(loaded.value(board), BridgitSolver.WIN);
+      t.checkExpect(loaded.chooseMove(board), 16);
+
+      // a table of another size can't be loaded
+      t.checkException(new IOException("not a solved table for a board of 7"),
+          new BridgitSolver(7), "load", file);
+
+      java.nio.file.Files.delete(file);
+    }
+    catch (IOException e) {
+      t.checkExpect(e, null);
+    }
+  }
+
+  // testing play, winner, legalMoves and currentTurn methods of BridgitGame
+  void testBridgitGame(Tester t) {
+    BridgitGame game = new BridgitGame(5);
+    int[] moves = new int[25];
+
+    t.checkExpect(game.legalMoves(moves), 5);
+    t.checkExpect(game.currentTurn(), 1);
+    t.checkExpect(game.winner(), 0);
+
+    // illegal moves don't change the turn
+    t.checkExpect(game.play(0, 1), false);
+    t.checkExpect(game.play(1, 2), false);
+    t.checkExpect(game.currentTurn(), 1);
+
+    t.checkExpect(game.play(1, 1), true);
+    t.checkExpect(game.play(1, 1), false);
+    t.checkExpect(game.currentTurn(), 2);
+    t.checkExpect(game.play(3, 3), true);
+    t.checkExpect(game.play(3, 1), true);
+    t.checkExpect(game.winner(), 1);
+
+    // nothing more can be claimed once somebody has won
+    t.checkExpect(game.legalMoves(moves), 0);
+    t.checkExpect(game.play(3, 1), false);
+    t.checkExpect(game.play(2, 2), false);
+    t.checkExpect(game.currentTurn(), 2);
+    t.checkExpect(game.board.open.size(), 2);
+
+    game.reset();
+    t.checkExpect(game.legalMoves(moves), 5);
+    t.checkExpect(game.winner(), 0);
+  }
+
+  // testing playOut method
+  void testPlayOut(Tester t) {
+    BridgitGame game = new BridgitGame(7);
+    RandomPlayer random = new RandomPlayer(new Random(3));
+
+    int winner = game.playOut(random, random);
+    t.checkExpect(winner, game.winner());
+    t.checkExpect(game.board.hasWon(winner), true);
+
+    // the solver never loses moving first
+    BridgitSolver solver = new BridgitSolver(7);
+    solver.solveAll();
+    t.checkExpect(game.playOut(solver, random), 1);
+
+    // a player without a move loses
+    t.checkExpect(game.playOut(random, board -> -1), 1);
+  }
+
+  // testing chooseMove method of RandomPlayer
+  void testRandomChooseMove(Tester t) {
+    RandomPlayer random = new RandomPlayer(new Random(1));
+    BitBoard board = new BitBoard(5);
+
+    board.click(1, 1);
+    board.click(1, 3);
+    board.click(2, 2);
+    board.click(3, 1);
+
+    t.checkExpect(random.chooseMove(board), 18);
+
+    board.click(3, 3);
+    t.checkExpect(random.chooseMove(board), -1);
+  }
+
+  // testing play, winner, legalMoves and currentTurn methods of Bridgit
+  void testBridgitEngine(Tester t) {
+    this.init();
+    int[] moves = new int[9];
+
+    t.checkExpect(this.b1.legalMoves(moves), 1);
+    t.checkExpect(moves[0], 4);
+    t.checkExpect(this.b1.winner(), 0);
+    t.checkExpect(this.b1.play(0, 0), false);
+    t.checkExpect(this.b1.play(1, 1), true);
+    t.checkExpect(this.b1.winner(), 1);
+    t.checkExpect(this.b1.currentTurn(), 2);
+    t.checkExpect(this.b1.legalMoves(moves), 0);
+
+    // nothing more can be claimed once somebody has won
+    Bridgit won = new Bridgit(5);
+    t.checkExpect(won.play(1, 1), true);
+    t.checkExpect(won.play(3, 3), true);
+    t.checkExpect(won.play(3, 1), true);
+    t.checkExpect(won.winner(), 1);
+    t.checkExpect(won.legalMoves(new int[25]), 0);
+    t.checkExpect(won.play(2, 2), false);
+    t.checkExpect(won.cells.get(2).get(2).path(2), false);
+    t.checkExpect(won.currentTurn(), 2);
+    t.checkExpect(won.open.size(), 2);
+
+    // playing doesn't make the computer player answer
+    Bridgit game = new Bridgit(5, new RandomPlayer(new Random(1)), 2);
+    t.checkExpect(game.play(1, 1), true);
+    t.checkExpect(game.currentTurn(), 2);
+  }
+
+  // testing run and winsOf methods of BridgitTournament
+  void testTournament(Tester t) {
+    BridgitTournament tournament = new BridgitTournament(5, 40, 3);
+    tournament.add("random", () -> new RandomPlayer(new Random(2)));
+    tournament.add("solver", () -> {
+      BridgitSolver solver = new BridgitSolver(5);
+      solver.solveAll();
+      return solver;
+    });
+    tournament.run();
+
+    t.checkExpect(tournament.winsOf(0, 1) + tournament.winsOf(1, 0), 80L);
+    t.checkExpect(tournament.winsOf(0, 0), 0L);
+
+    // moving first the solver wins all 40
+    t.checkExpect(tournament.winsOf(1, 0) >= 40, true);
+    t.checkExpect(tournament.gamesPerSecond() > 0, true);
+    t.checkExpect(tournament.finished, true);
+
+    java.io.ByteArrayOutputStream bytes = new java.io.ByteArrayOutputStream();
+    tournament.report(new PrintStream(bytes, true));
+    t.checkExpect(bytes.toString().contains("solver vs random: "), true);
+
+    // a tournament without games has no rates
+    BridgitTournament empty = new BridgitTournament(5, 0, 2);
+    empty.add("random", () -> new RandomPlayer(new Random(2)));
+    empty.add("other", () -> new RandomPlayer(new Random(3)));
+    empty.run();
+    t.checkExpect(empty.gamesPerSecond(), 0.0);
+    t.checkExpect(empty.percent(0, 0), 0.0);
+
+    bytes.reset();
+    empty.report(new PrintStream(bytes, true));
+    t.checkExpect(bytes.toString().contains("NaN"), false);
+    t.checkExpect(bytes.toString().contains("random vs other: 0 of 0 (0.0%)"), true);
+
+    // one cut short isn't reported
+    BridgitTournament cut = new BridgitTournament(5, 1000, 2);
+    cut.add("random", () -> new RandomPlayer(new Random(2)));
+    cut.add("other", () -> new RandomPlayer(new Random(3)));
+    Thread.currentThread().interrupt();
+    cut.run();
+    t.checkExpect(Thread.interrupted(), true);
+    t.checkExpect(cut.finished, false);
+
+    bytes.reset();
+    cut.report(new PrintStream(bytes, true));
+    t.checkExpect(bytes.toString().contains("cut short"), true);
+    t.checkExpect(bytes.toString().contains("%"), false);
+  }
+
+  // testing evaluate methods of ResistanceEvaluator
+  void testEvaluate(Tester t) {
+    this.init();
+
+    ResistanceEvaluator evaluator = new ResistanceEvaluator(5);
+    BitBoard board = new BitBoard(5);
+
+    // the start is even since the board flipped is the other player's board
+    t.checkExpect(Math.abs(evaluator.evaluate(board)) < 1e-6, true);
+    t.checkInexact(evaluator.resistance[1], evaluator.resistance[2], 1e-6);
+
+    board.click(1, 1);
+    t.checkExpect(evaluator.evaluate(board) > 0.5, true);
+
+    board.click(3, 3);
+    t.checkExpect(Math.abs(evaluator.evaluate(board)) < 1e-4, true);
+
+    // player 2 is cut off from the left once player 1 has won
+    board.click(3, 1);
+    t.checkExpect(evaluator.evaluate(board) > 10, true);
+    t.checkExpect(evaluator.resistance[2], ResistanceEvaluator.MAX_RESISTANCE);
+    t.checkExpect(evaluator.isDecided(10), true);
+
+    // the Cells of a game give the same value as its BitBoard
+    ResistanceEvaluator evaluator2 = new ResistanceEvaluator(11);
+    this.b2.clickCell(3, 3);
+    this.b2.clickCell(5, 7);
+    t.checkInexact(evaluator2.evaluate(this.b2.cells),
+        new ResistanceEvaluator(11).evaluate(new BitBoard(11, this.b2.cells, 1)), 1e-6);
+    t.checkExpect(evaluator2.isDecided(1), false);
+  }
+
+  // testing that solve starts from the last potentials
+  void testWarmStart(Tester t) {
+    ResistanceEvaluator warm = new ResistanceEvaluator(15);
+    BitBoard board = new BitBoard(15);
+
+    warm.evaluate(board);
+    board.click(7, 7);
+
+    ResistanceEvaluator cold = new ResistanceEvaluator(15);
+    double value = cold.evaluate(board);
+    int coldIterations = cold.iterations;
+
+    t.checkInexact(warm.evaluate(board), value, 1e-4);
+    t.checkExpect(warm.iterations < coldIterations, true);
+
+    // solving the same board again needs no work
+    warm.evaluate(board);
+    t.checkExpect(warm.iterations, 0);
   }
 
-}
+  // testing current method
+  void testCurrent(Tester t) {
+    ResistanceEvaluator evaluator = new ResistanceEvaluator(5);
+    BitBoard board = new BitBoard(5);
 
-class ExamplesBridgit {
-  Tile emptyCell;
+    evaluator.evaluate(board);
 
-  Cell wCell;
-  Cell rCell;
-  Cell bCell;
+    // every unit of current crosses the middle row of player 1's board
+    double middle = 0;
 
-  Cell wCell2;
-  Cell wCell3;
-  Cell wCell4;
-  Cell wCell5;
+    for (int j = 0; j < 5; j++) {
+      middle += evaluator.current(10 + j, 1);
+    }
 
-  Cell rCell2;
-  Cell rCell3;
-  Cell rCell4;
-  Cell rCell5;
+    t.checkInexact(middle, 1 / evaluator.resistance[1], 1e-6);
 
-  Cell bCell2;
-  Cell bCell3;
-  Cell bCell4;
-  Cell bCell5;
+    // no current goes through a Cell of the other player
+    t.checkExpect(evaluator.current(5, 1), 0.0);
+    t.checkExpect(evaluator.current(1, 2), 0.0);
+  }
 
-  ArrayList<ArrayList<Cell>> cells;
+  // testing orderMoves method
+  void testOrderMoves(Tester t) {
+    ResistanceEvaluator evaluator = new ResistanceEvaluator(5);
+    BitBoard board = new BitBoard(5);
+    int[] moves = new int[25];
 
-  Bridgit b1;
-  Bridgit b2;
+    board.click(1, 1);
+    board.click(3, 3);
+    evaluator.evaluate(board);
 
-  void init() {
-    this.emptyCell = new EmptyCell();
+    int count = board.openCells(moves);
+    evaluator.orderMoves(moves, count);
 
-    // for 3 by 3
-    this.wCell = new WCell();
-    this.rCell = new RCell();
-    this.bCell = new BCell();
+    // the Cell both players need comes first
+    t.checkExpect(count, 3);
+    t.checkExpect(moves[0], 16);
+  }
 
-    this.wCell2 = new WCell();
-    this.wCell3 = new WCell();
-    this.wCell4 = new WCell();
-    this.wCell5 = new WCell();
+  // testing open, play and close methods of GameServer
+  void testGameServer(Tester t) {
+    GameServer server = new GameServer(2);
+    int game = server.open(5);
+
+    try {
+      BoardDelta first = server.play(game, 1, 1).get();
+      t.checkExpect(first.legal, true);
+      t.checkExpect(first.move, 6);
+      t.checkExpect(first.player, 1);
+      t.checkExpect(first.turn, 2);
+
+      // moves are played in the order they were sent
+      CompletableFuture<BoardDelta> again = server.play(game, 1, 1);
+      CompletableFuture<BoardDelta> blue = server.play(game, 3, 3);
+      CompletableFuture<BoardDelta> red = server.play(game, 3, 1);
+      t.checkExpect(again.get().legal, false);
+      t.checkExpect(again.get().turn, 2);
+      t.checkExpect(blue.get().player, 2);
+      t.checkExpect(red.get().winner, 1);
+
+      // nothing can be played once somebody has won
+      t.checkExpect(server.play(game, 1, 3).get().legal, false);
+
+      server.close(game);
+      t.checkExpect(server.games(), 0);
+      t.checkExpect(server.play(game, 1, 3).isCompletedExceptionally(), true);
+    }
+    catch (InterruptedException | ExecutionException e) {
+      t.checkExpect(e, null);
+    }
 
-    this.rCell2 = new RCell();
-    this.rCell3 = new RCell();
-    this.rCell4 = new RCell();
-    this.rCell5 = new RCell();
+    server.shutdown();
+  }
 
-    this.bCell2 = new BCell();
-    this.bCell3 = new BCell();
-    this.bCell4 = new BCell();
-    this.bCell5 = new BCell();
+  // testing run and percentile methods of ServerLoadTest
+  void testServerLoadTest(Tester t) {
+    GameServer server = new GameServer(3);
+    ServerLoadTest test = new ServerLoadTest(server, 7, 500);
 
-    ArrayList<Cell> row1 = new ArrayList<Cell>();
-    row1.add(this.wCell);
-    row1.add(this.rCell);
-    row1.add(this.wCell2);
+    try {
+      test.run(1);
+    }
+    catch (InterruptedException e) {
+      t.checkExpect(e, null);
+    }
 
-    ArrayList<Cell> row2 = new ArrayList<Cell>();
-    row2.add(this.bCell);
-    row2.add(this.wCell3);
-    row2.add(this.bCell2);
+    server.shutdown();
 
-    ArrayList<Cell> row3 = new ArrayList<Cell>();
-    row3.add(this.wCell4);
-    row3.add(this.rCell2);
-    row3.add(this.wCell5);
+    // every game was played to a win and closed
+    t.checkExpect(server.games(), 0);
+    t.checkExpect(test.winners[0] != 0 && test.winners[499] != 0, true);
+    t.checkExpect(test.moves[0] > 0, true);
+    t.checkExpect(test.percentile(0.5) > 0, true);
+    t.checkExpect(test.percentile(0.99) >= test.percentile(0.5), true);
+  }
 
-    this.cells = new ArrayList<ArrayList<Cell>>();
-    cells.add(row1);
-    cells.add(row2);
-    cells.add(row3);
+  // testing update, isForced, count and forcedWinner methods of
+  // VirtualConnections
+  void testVirtualConnections(Tester t) {
+    Connectivity connect = new Connectivity(7);
+    VirtualConnections vc = new VirtualConnections(7);
+
+    vc.update(connect);
+
+    // at the start every pair of neighboring groups has one link
+    t.checkExpect(vc.count(1), 0);
+    t.checkExpect(vc.count(2), 0);
+    t.checkExpect(vc.forcedWinner(), 0);
+
+    connect.claim(1, 3, 3);
+    vc.update(connect);
+    t.checkExpect(vc.count(1), 0);
+
+    // now (2, 1), (2, 3) and (4, 3) are one group, which (1, 1) and (1, 3)
+    // both join to the top and (3, 1) and (4, 2) both join to (4, 1)
+    connect.claim(1, 2, 2);
+    vc.update(connect);
+    t.checkExpect(vc.count(1), 2);
+    t.checkExpect(vc.isForced(1), false);
+  }
 
-    this.bCell2.makeTarget();
-    this.rCell2.makeTarget();
+  // testing forcingMove, partner and isDead methods of VirtualConnections
+  void testForcingMove(Tester t) {
+    BridgitSolver solver = new BridgitSolver(5);
+    solver.solveAll();
+
+    Connectivity connect = new Connectivity(5);
+    VirtualConnections vc = new VirtualConnections(5);
+    vc.update(connect);
+
+    // on 5 by 5 player 1 wins by claiming the middle
+    t.checkExpect(vc.forcingMove(1), 12);
+    t.checkExpect(vc.isForced(1), false);
+
+    connect.claim(1, 2, 2);
+    vc.update(connect);
+    t.checkExpect(vc.isForced(1), true);
+    t.checkExpect(vc.forcingMove(1), -1);
+    t.checkExpect(vc.partner(6, 1), 8);
+    t.checkExpect(vc.partner(8, 1), 6);
+    t.checkExpect(vc.partner(6, 2), -1);
+
+    BitBoard board = new BitBoard(5);
+    board.click(2, 2);
+    t.checkExpect(solver.value(board), BridgitSolver.LOSS);
+
+    // player 2 takes one link and player 1 answers with the other
+    connect.claim(2, 1, 1);
+    vc.update(connect);
+    t.checkExpect(vc.isForced(1), false);
+    t.checkExpect(vc.forcingMove(1), 8);
+    connect.claim(1, 1, 3);
+    vc.update(connect);
+    t.checkExpect(vc.isForced(1), true);
+
+    // a Cell between two Cells of one group of a player is dead
+    Connectivity seven = new Connectivity(7);
+    VirtualConnections vc7 = new VirtualConnections(7);
+
+    seven.claim(1, 4, 4);
+    seven.claim(1, 3, 3);
+    seven.claim(1, 1, 3);
+    vc7.update(seven);
+    t.checkExpect(vc7.isDead(26), false);
+
+    // (2, 5) joins the top, and (4, 5) does through (4, 3), (2, 3) and (0, 3)
+    seven.claim(1, 1, 5);
+    vc7.update(seven);
+    t.checkExpect(vc7.isDead(26), true);
+    t.checkExpect(vc7.isDead(22), false);
+    seven.claim(2, 3, 5);
+    vc7.update(seven);
+    t.checkExpect(vc7.isDead(26), false);
+  }
 
-    this.wCell.linkUp(this.emptyCell);
-    this.wCell.linkDown(this.bCell);
-    this.wCell.linkLeft(this.emptyCell);
-    this.wCell.linkRight(this.rCell);
+  // testing that Bridgit ends on a forced win with f
+  void testEndOnForcedWin(Tester t) {
+    Bridgit game = new Bridgit(5);
+
+    game.clickCell(2, 2);
+    t.checkExpect(game.vc.forcedWinner(), 1);
+
+    // clicking a claimed Cell changes nothing, so nothing is found again
+    int generation = game.vc.generation;
+    game.clickCell(2, 2);
+    game.clickCell(1, 2);
+    t.checkExpect(game.vc.generation, generation);
+    game.clickCell(1, 1);
+    t.checkExpect(game.vc.generation, generation + 1);
+    game.undo();
+
+    game.undo();
+    t.checkExpect(game.vc.forcedWinner(), 0);
+
+    game.onKeyEvent("f");
+    game.clickCell(2, 2);
+    t.checkExpect(game.endOnForcedWin, true);
+    t.checkExpect(game.vc.forcedWinner(), 1);
+  }
 
-    this.rCell.linkUp(this.emptyCell);
-    this.rCell.linkDown(this.wCell3);
-    this.rCell.linkLeft(this.wCell);
-    this.rCell.linkRight(this.wCell2);
+  // testing union, checkpoint, rollback and commit methods of
+  // RollbackUnionFind
+  void testRollbackUnionFind(Tester t) {
+    RollbackUnionFind sets = new RollbackUnionFind(6);
+
+    sets.union(0, 1);
+    int mark = sets.checkpoint();
+    sets.union(2, 3);
+    sets.union(1, 3);
+    sets.union(0, 2);
+    t.checkExpect(sets.logSize, 3);
+    t.checkExpect(sets.connected(0, 3), true);
+    t.checkExpect(sets.rank[0], 2);
+
+    // finding doesn't change the parents
+    t.checkExpect(sets.find(3), 0);
+    t.checkExpect(sets.parent[3], 2);
+
+    sets.rollback(mark);
+    t.checkExpect(sets.connected(0, 1), true);
+    t.checkExpect(sets.connected(0, 3), false);
+    t.checkExpect(sets.connected(2, 3), false);
+    t.checkExpect(sets.rank, new int[] { 1, 0, 0, 0, 0, 0 });
+
+    sets.commit();
+    sets.rollback(0);
+    t.checkExpect(sets.connected(0, 1), true);
+  }
 
-    this.wCell2.linkUp(this.emptyCell);
-    this.wCell2.linkDown(this.bCell2);
-    this.wCell2.linkLeft(this.rCell);
-    this.wCell2.linkRight(this.emptyCell);
+  // testing unclaim method of Connectivity
+  void testUnclaim(Tester t) {
+    Connectivity connect = new Connectivity(11);
+    Connectivity fresh = new Connectivity(11);
+    int[] moves = new int[121];
+    int count = new BitBoard(11).openCells(moves);
+    Random rand = new Random(5);
 
-    this.bCell.linkUp(this.wCell);
-    this.bCell.linkDown(this.wCell4);
-    this.bCell.linkLeft(this.emptyCell);
-    this.bCell.linkRight(this.wCell3);
+    t.checkExpect(connect.unclaim(), -1);
 
-    this.wCell3.linkUp(this.rCell);
-    this.wCell3.linkDown(this.rCell2);
-    this.wCell3.linkLeft(this.bCell);
-    this.wCell3.linkRight(this.bCell2);
+    for (int k = 0; k < count; k++) {
+      int move = moves[k];
+      connect.claim(1 + rand.nextInt(2), move / 11, move % 11);
+    }
 
-    this.bCell2.linkUp(this.wCell2);
-    this.bCell2.linkDown(this.wCell5);
-    this.bCell2.linkLeft(this.wCell3);
-    this.bCell2.linkRight(this.emptyCell);
+    t.checkExpect(connect.hasWon(1) || connect.hasWon(2), true);
+    t.checkExpect(connect.unclaim(), moves[count - 1]);
 
-    this.wCell4.linkUp(this.bCell);
-    this.wCell4.linkDown(this.emptyCell);
-    this.wCell4.linkLeft(this.emptyCell);
-    this.wCell4.linkRight(this.rCell2);
+    while (connect.unclaim() >= 0) {
+      // undo every claim
+    }
 
-    this.rCell2.linkUp(this.wCell3);
-    this.rCell2.linkDown(this.emptyCell);
-    this.rCell2.linkLeft(this.wCell4);
-    this.rCell2.linkRight(this.wCell5);
+    t.checkExpect(connect.owner, fresh.owner);
+    t.checkExpect(connect.key, fresh.key);
+    t.checkExpect(connect.red.parent, fresh.red.parent);
+    t.checkExpect(connect.blue.rank, fresh.blue.rank);
+    t.checkExpect(connect.hasWon(1), false);
+  }
 
-    this.wCell5.linkUp(this.bCell2);
-    this.wCell5.linkDown(this.emptyCell);
-    this.wCell5.linkLeft(this.rCell2);
-    this.wCell5.linkRight(this.emptyCell);
+  // testing unclick methods of Cell and BitBoard
+  void testUnclick(Tester t) {
+    this.init();
+    BitBoard board = new BitBoard(5);
+    BitBoard start = new BitBoard(5);
+
+    board.click(1, 1);
+    board.click(3, 3);
+    t.checkExpect(board.unclick(3, 3), 2);
+    t.checkExpect(board.unclick(3, 3), 2);
+    t.checkExpect(board.unclick(0, 1), 2);
+    t.checkExpect(board.unclick(1, 1), 1);
+    t.checkExpect(board.key, start.key);
+    t.checkExpect(board.white, start.white);
+    t.checkExpect(board.open.size(), 5);
+
+    Cell cell = this.b1.cells.get(1).get(1);
+    cell.click(1, 1, 1, this.b1.cells);
+    Cell red = this.b1.cells.get(1).get(1);
+    t.checkExpect(red.unclick(1, 1, this.b1.cells), 1);
+    t.checkExpect(this.b1.cells.get(1).get(1).path(1), false);
+    t.checkExpect(this.b1.cells.get(0).get(1).down, this.b1.cells.get(1).get(1));
+    t.checkExpect(this.b1.cells.get(1).get(1).unclick(1, 1, this.b1.cells), 0);
+  }
 
-    this.b1 = new Bridgit(3);
-    this.b2 = new Bridgit(11);
+  // testing undo, redo and onKeyEvent methods of Bridgit
+  void testUndo(Tester t) {
+    Bridgit game = new Bridgit(7);
+    Bridgit fresh = new Bridgit(7);
+
+    t.checkExpect(game.undo(), false);
+    game.clickCell(1, 1);
+    game.clickCell(3, 3);
+    game.clickCell(2, 2);
+    t.checkExpect(game.undo(), true);
+    t.checkExpect(game.currentTurn(), 1);
+    t.checkExpect(game.cells.get(2).get(2).path(1), false);
+    t.checkExpect(game.open.contains(16), true);
+    t.checkExpect(game.undo(), true);
+    t.checkExpect(game.undo(), true);
+    t.checkExpect(game.key(), fresh.key());
+    t.checkExpect(game.connect.owner, fresh.connect.owner);
+
+    t.checkExpect(game.redo(), true);
+    t.checkExpect(game.redo(), true);
+    t.checkExpect(game.currentTurn(), 1);
+    t.checkExpect(game.connect.owner[24], 2);
+    t.checkExpect(game.record.count, 2);
+
+    // a new move forgets what was undone
+    game.clickCell(5, 5);
+    t.checkExpect(game.redo(), false);
+
+    // against the computer a key undoes its move with the player's
+    Bridgit ai = new Bridgit(7, new RandomPlayer(new Random(1)), 2);
+    ai.clickCell(1, 1);
+    t.checkExpect(ai.record.count, 2);
+    ai.onKeyEvent("u");
+    t.checkExpect(ai.record.count, 0);
+    t.checkExpect(ai.currentTurn(), 1);
+    ai.onKeyEvent("y");
+    t.checkExpect(ai.record.count, 2);
+    t.checkExpect(ai.currentTurn(), 1);
+
+    // moving first the computer moves again once its first move is undone
+    Bridgit first = new Bridgit(7, new RandomPlayer(new Random(1)), 1);
+    int[] moves = new int[49];
+    t.checkExpect(first.record.count, 1);
+    t.checkExpect(first.currentTurn(), 2);
+    first.legalMoves(moves);
+    first.clickCell(moves[0] / 7, moves[0] % 7);
+    t.checkExpect(first.record.count, 3);
+    first.onKeyEvent("u");
+    t.checkExpect(first.record.count, 1);
+    t.checkExpect(first.currentTurn(), 2);
+    first.onKeyEvent("u");
+    t.checkExpect(first.record.count, 1);
+    t.checkExpect(first.currentTurn(), 2);
+    // its new move forgets what was undone
+    t.checkExpect(first.redo(), false);
   }
 
-  // testing constructor exceptions
-  void testConstructor(Tester t) {
-    t.checkConstructorException(
-        new IllegalArgumentException("the number needs to be odd and greater than 3"), "Bridgit",
-        1);
-    t.checkConstructorException(
-        new IllegalArgumentException("the number needs to be odd and greater than 3"), "Bridgit",
-        2);
+  // testing the constructor, play and winner methods of LargeBridgit
+  void testLargeBridgit(Tester t) {
+    LargeBridgit game = new LargeBridgit(5);
+    int[] moves = new int[25];
+
+    t.checkExpect(game.view, 5);
+    t.checkExpect(game.legalMoves(moves), 5);
+    t.checkExpect(game.play(0, 1), false);
+    t.checkExpect(game.play(1, 2), false);
+    t.checkExpect(game.play(1, 1), true);
+    t.checkExpect(game.play(1, 1), false);
+    t.checkExpect(game.currentTurn(), 2);
+    t.checkExpect(game.play(3, 3), true);
+    t.checkExpect(game.winner(), 0);
+    t.checkExpect(game.play(3, 1), true);
+    t.checkExpect(game.winner(), 1);
+    // nothing more can be claimed once somebody has won
+    t.checkExpect(game.play(2, 2), false);
+    t.checkExpect(game.currentTurn(), 2);
+    t.checkExpect(game.legalMoves(moves), 0);
+
     t.checkConstructorException(
-        new IllegalArgumentException("the number needs to be odd and greater than 3"), "Bridgit",
-        4);
+        new IllegalArgumentException("the number needs to be odd and greater than 3"),
+        "LargeBridgit", 1000);
+
+    // a big board starts without Cells and plays like a small one
+    LargeBridgit large = new LargeBridgit(1001);
+    t.checkExpect(large.open.size(), 500 * 500 + 499 * 499);
+    t.checkExpect(large.connect.owner[1], 1);
+    t.checkExpect(large.connect.owner[1001], 2);
+
+    // player 1 fills column 1 from the top
+    for (int i = 1; i < 999; i += 2) {
+      large.play(i, 1);
+      large.play(i, 997);
+    }
+
+    t.checkExpect(large.winner(), 0);
+    t.checkExpect(large.play(999, 1), true);
+    t.checkExpect(large.winner(), 1);
   }
 
-  void testGame(Tester t) {
-    this.init();
-    Bridgit g = this.b2;
-    g.bigBang(500, 500);
+  // testing onKeyEvent, onMouseClicked and render methods of LargeBridgit
+  void testLargeView(Tester t) {
+    LargeBridgit game = new LargeBridgit(101, 21);
+
+    game.onKeyEvent("down");
+    game.onKeyEvent("right");
+    game.onKeyEvent("right");
+    t.checkExpect(game.top, 10);
+    t.checkExpect(game.left, 20);
+    game.onKeyEvent("up");
+    game.onKeyEvent("up");
+    t.checkExpect(game.top, 0);
+
+    // the view stays on the board
+    for (int k = 0; k < 20; k++) {
+      game.onKeyEvent("right");
+    }
+    t.checkExpect(game.left, 80);
+
+    game.onKeyEvent("-");
+    t.checkExpect(game.view, 42);
+    t.checkExpect(game.left, 59);
+    game.onKeyEvent("+");
+    game.onKeyEvent("+");
+    game.onKeyEvent("+");
+    t.checkExpect(game.view, 5);
+
+    // clicks are in the view
+    game.onKeyEvent("-");
+    game.onKeyEvent("-");
+    t.checkExpect(game.view, 20);
+    game.moveView(10, 10);
+    game.render(500, 500);
+    t.checkExpect(game.stale, false);
+    t.checkExpect(game.size, 25);
+    game.onMouseClickedTest(new Posn(30, 30), 500, 500);
+    t.checkExpect(game.connect.owner[11 * 101 + 11], 1);
+    t.checkExpect(game.raster.getPixel(30, 30), Color.red);
+    game.onMouseClickedTest(new Posn(499, 499), 500, 500);
+    t.checkExpect(game.connect.owner[29 * 101 + 29], 2);
+    game.onMouseClickedTest(new Posn(600, 30), 500, 500);
+    t.checkExpect(game.currentTurn(), 1);
+
+    game.onKeyEvent("r");
+    t.checkExpect(game.connect.owner[11 * 101 + 11], 0);
+    t.checkExpect(game.top, 0);
+    t.checkExpect(game.stale, true);
   }
 
-  // testing linkUp method
-  void testLinkUp(Tester t) {
+  // testing add, remove, contains, get, clear and toArray methods of MoveList
+  void testMoveList(Tester t) {
+    MoveList moves = new MoveList(25);
+    int[] out = new int[25];
+
+    moves.add(6);
+    moves.add(8);
+    moves.add(12);
+    moves.add(8);
+    t.checkExpect(moves.size(), 3);
+    t.checkExpect(moves.contains(8), true);
+    t.checkExpect(moves.contains(16), false);
+
+    // the last move takes the place of the one removed
+    t.checkExpect(moves.remove(6), true);
+    t.checkExpect(moves.remove(6), false);
+    t.checkExpect(moves.get(0), 12);
+    t.checkExpect(moves.toArray(out), 2);
+    t.checkExpect(out[1], 8);
+
+    MoveList copy = new MoveList(moves);
+    moves.clear();
+    t.checkExpect(moves.contains(12), false);
+    t.checkExpect(copy.contains(12), true);
+    moves.add(16);
+    t.checkExpect(moves.contains(16), true);
+    t.checkExpect(moves.contains(12), false);
+
+    moves.copyFrom(copy);
+    t.checkExpect(moves.size(), 2);
+    t.checkExpect(moves.contains(16), false);
+    t.checkExpect(moves.contains(8), true);
+  }
+
+  // testing that the boards and games keep their open Cells
+  void testOpenMoves(Tester t) {
+    BitBoard board = new BitBoard(5);
+    int[] moves = new int[25];
+
+    t.checkExpect(board.open.size(), 5);
+    board.click(1, 1);
+    board.click(1, 1);
+    board.click(0, 1);
+    t.checkExpect(board.open.size(), 4);
+    t.checkExpect(board.open.contains(6), false);
+    t.checkExpect(new BitBoard(board).open.size(), 4);
+    t.checkExpect(new BitBoard(5, new Bridgit(5).cells, 1).open.size(), 5);
+
+    board.copyFrom(new BitBoard(5));
+    t.checkExpect(board.open.contains(6), true);
+
+    // a playout fills the board
+    MctsWorker worker = new MctsWorker(new MctsPlayer(1, 1, 1L), board, 1L);
+    worker.playout(board);
+    t.checkExpect(board.open.size(), 0);
+    t.checkExpect(board.openCells(moves), 0);
+
+    Bridgit game = new Bridgit(7);
+    t.checkExpect(game.open.size(), 13);
+    game.clickCell(3, 3);
+    game.clickCell(0, 0);
+    t.checkExpect(game.legalMoves(moves), 12);
+    t.checkExpect(game.open.contains(24), false);
+
     this.init();
+    t.checkExpect(this.b1.open.size(), 1);
+  }
 
-    // testing the emptyCell
-    this.emptyCell.linkUp(emptyCell);
-    t.checkExpect(this.emptyCell, new EmptyCell());
+  // testing add and clear methods of GameRecord and that games record their
+  // moves
+  void testGameRecord(Tester t) {
+    GameRecord record = new GameRecord(5);
+    record.add(6, 100);
+    record.add(18, 2000);
+
+    t.checkExpect(record.count, 2);
+    t.checkExpect(record.moves[1], 18);
+    t.checkExpect(record.millis[1], 2000);
+    record.clear();
+    t.checkExpect(record.count, 0);
+
+    BridgitGame game = new BridgitGame(5);
+    game.play(1, 1);
+    game.play(0, 1);
+    game.play(3, 3);
+    t.checkExpect(game.record.count, 2);
+    t.checkExpect(game.record.moves[1], 18);
+    game.reset();
+    t.checkExpect(game.record.count, 0);
+
+    Bridgit bridgit = new Bridgit(5);
+    bridgit.clickCell(2, 2);
+    bridgit.clickCell(2, 2);
+    t.checkExpect(bridgit.record.count, 1);
+    t.checkExpect(bridgit.record.moves[0], 12);
+  }
 
-    // testing the wCell
-    this.wCell.linkUp(emptyCell);
-    t.checkExpect(this.wCell.up, new EmptyCell());
+  // testing write, read and replay methods of the record files
+  void testRecordFile(Tester t) {
+    try {
+      Path file = java.nio.file.Files.createTempFile("bridgit", ".games");
+      BridgitGame game = new BridgitGame(11);
+      RandomPlayer random = new RandomPlayer(new Random(4));
+      long[] wins = new long[3];
+      long moves = 0;
+
+      // enough games that the buffers are filled more than once
+      try (GameRecordWriter writer = new GameRecordWriter(file, 11, true)) {
+        for (int g = 0; g < 3000; g++) {
+          wins[game.playOut(random, random)] += 1;
+          moves += game.record.count;
+          game.record.millis[0] = 300 + g;
+          writer.write(game.record);
+        }
 
-    this.wCell.linkUp(this.rCell);
-    t.checkExpect(this.wCell.up, this.rCell);
+        t.checkExpect(writer.games, 3000L);
+      }
 
-    // testing the rCell
-    this.rCell.linkUp(this.rCell);
-    t.checkExpect(this.rCell.up, this.rCell);
+      try (GameRecordReader reader = new GameRecordReader(file)) {
+        GameRecord record = new GameRecord(11);
 
-    this.rCell.linkUp(emptyCell);
-    t.checkExpect(this.rCell.up, emptyCell);
+        t.checkExpect(reader.grid, 11);
+        t.checkExpect(reader.timed, true);
+        t.checkExpect(reader.read(record), true);
+        t.checkExpect(record.millis[0], 300);
+        t.checkExpect(reader.read(record), true);
+        t.checkExpect(record.millis[0], 301);
+        t.checkExpect(record.millis[1], 0);
+      }
 
-    // testing the bCell
-    this.bCell.linkUp(emptyCell);
-    t.checkExpect(this.bCell.up, new EmptyCell());
+      int[] positions = new int[1];
+      GameReplayer replayer = new GameReplayer(11, new ReplayListener() {
+        public void moved(BitBoard board, int move, int ply) {
+          positions[0] += 1;
+        }
 
-    this.bCell.linkUp(this.bCell);
-    t.checkExpect(this.bCell.up, this.bCell);
+        public void ended(BitBoard board, int winner) {
+          // nothing to do
+        }
+      });
+
+      t.checkExpect(replayer.replay(file), 3000L);
+      t.checkExpect(replayer.moves, moves);
+      t.checkExpect(positions[0], (int) moves);
+      t.checkExpect(replayer.wins, wins);
+
+      // games on another board or with illegal moves are rejected
+      t.checkException(new IOException("the games are not on a board of 5"),
+          new GameReplayer(5, null), "replay", file);
+
+      GameRecord bad = new GameRecord(11);
+      bad.add(12, 0);
+      bad.add(12, 0);
+      t.checkException(new IOException("move 1 of game 0 is not legal"),
+          new GameReplayer(11, null), "replay", bad);
+
+      // a file of something else can't be read
+      java.nio.file.Files.write(file, new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12 });
+      t.checkConstructorException(new IOException("not a file of Bridgit games"),
+          "GameRecordReader", file);
+      java.nio.file.Files.delete(file);
+    }
+    catch (IOException e) {
+      t.checkExpect(e, null);
+    }
   }
 
-  // testing linkDown method
-  void testLinkDown(Tester t) {
-    this.init();
+  // testing filled method
+  void testFilled(Tester t) {
+    Bridgit game = new BenchmarkGames().filled(11, 0.5, new Random(1));
+    int[] moves = new int[121];
 
-    // testing the emptyCell
-    this.emptyCell.linkDown(this.rCell);
-    t.checkExpect(this.emptyCell, new EmptyCell());
+    t.checkExpect(game.legalMoves(moves), 21);
+    t.checkExpect(new BenchmarkGames().filled(11, 0, new Random(1)).legalMoves(moves), 41);
+  }
 
-    // testing the wCell
-    this.wCell.linkDown(emptyCell);
-    t.checkExpect(this.wCell.down, new EmptyCell());
+  // testing measure method
+  void testMeasure(Tester t) {
+    BridgitBenchmark bench = new BridgitBenchmark(1, 5);
+    double[] result = bench.measure(new HasWonOp(), 11, 0.5, new Random(1));
+
+    t.checkExpect(result[0] > 0, true);
+    t.checkInexact(result[0] * result[1], 1e9, 1e-6);
+    // a single check takes far less than a window, so many share one
+    t.checkExpect(bench.batch > 1, true);
+
+    // asking Connectivity doesn't allocate, making a board does
+    t.checkExpect(result[2] < 1, true);
+    t.checkExpect(bench.measure(new MakeGameOp(), 11, 0, new Random(1))[2] > 1000, true);
+
+    // clicks set up a new game when they run out of moves
+    ClickOp click = new ClickOp();
+    click.setup(11, 0.5, new Random(1));
+    t.checkExpect(click.last, 1);
+    t.checkExpect(click.ready(), true);
+    click.run();
+    t.checkExpect(click.ready(), false);
+    t.checkExpect(bench.measure(click, 11, 0.5, new Random(1))[0] > 0, true);
+  }
 
-    this.wCell.linkDown(this.rCell);
-    t.checkExpect(this.wCell.down, this.rCell);
+  // testing markDirty and markAll methods
+  void testMarkDirty(Tester t) {
+    BoardRenderer renderer = new BoardRenderer(3);
 
-    // testing the rCell
-    this.rCell.linkDown(this.rCell);
-    t.checkExpect(this.rCell.down, this.rCell);
+    renderer.markDirty(1, 2);
+    renderer.markDirty(1, 2);
+    t.checkExpect(renderer.dirtyCount, 1);
+    t.checkExpect(renderer.dirtyList[0], 5);
+    t.checkExpect(renderer.dirty[5], true);
 
-    this.rCell.linkDown(emptyCell);
-    t.checkExpect(this.rCell.down, emptyCell);
+    renderer.markAll();
+    t.checkExpect(renderer.dirtyCount, 9);
+  }
 
-    // testing the bCell
-    this.bCell.linkDown(emptyCell);
-    t.checkExpect(this.bCell.down, new EmptyCell());
+  // testing render method
+  void testRender(Tester t) {
+    this.init();
 
-    this.bCell.linkDown(this.bCell);
-    t.checkExpect(this.bCell.down, this.bCell);
+    BoardRenderer renderer = this.b1.renderer;
+    WorldImage board = renderer.render(this.b1.cells, 1, 30, 30);
+
+    t.checkExpect(board, new OverlayOffsetAlign(AlignModeX.LEFT, AlignModeY.TOP,
+        new TextImage("P1", 5, Color.red), -2, -2, renderer.raster));
+    t.checkExpect(renderer.dirtyCount, 0);
+    t.checkExpect(renderer.raster.getPixel(15, 5), Color.red);
+    t.checkExpect(renderer.raster.getPixel(5, 15), Color.blue);
+    t.checkExpect(renderer.raster.getPixel(15, 15), Color.white);
+
+    // only the clicked Cell is painted again
+    ComputedPixelImage raster = renderer.raster;
+    this.b1.clickCell(1, 1);
+    t.checkExpect(renderer.dirtyCount, 1);
+
+    renderer.render(this.b1.cells, 2, 30, 30);
+    t.checkExpect(renderer.raster == raster, true);
+    t.checkExpect(renderer.raster.getPixel(15, 15), Color.red);
+    t.checkExpect(renderer.raster.getPixel(19, 19), Color.red);
+
+    // a new size paints a new raster
+    renderer.render(this.b1.cells, 2, 60, 60);
+    t.checkExpect(renderer.raster == raster, false);
+    t.checkExpect(renderer.raster.getPixel(35, 35), Color.red);
+    t.checkExpect(renderer.raster.getPixel(5, 35), Color.blue);
+
+    // a wide canvas keeps square Cells sized by its height
+    renderer.render(this.b1.cells, 2, 90, 60);
+    t.checkExpect(renderer.raster.getWidth(), 90.0);
+    t.checkExpect(renderer.raster.getHeight(), 60.0);
+    t.checkExpect(renderer.raster.getPixel(25, 5), Color.red);
+    t.checkExpect(renderer.raster.getPixel(5, 25), Color.blue);
+    t.checkExpect(renderer.raster.getPixel(85, 55), Color.white);
   }
 
-  // testing linkLeft method
-  void testLinkLeft(Tester t) {
+  // testing the BitBoard constructors
+  void testBitBoard(Tester t) {
     this.init();
 
-    // testing the emptyCell
-    this.emptyCell.linkUp(this.wCell);
-    t.checkExpect(this.emptyCell, new EmptyCell());
-
-    // testing the wCell
-    this.wCell.linkLeft(emptyCell);
-    t.checkExpect(this.wCell.left, new EmptyCell());
+    t.checkConstructorException(
+        new IllegalArgumentException("the number needs to be odd and greater than 3"), "BitBoard",
+        4);
 
-    this.wCell.linkLeft(this.rCell);
-    t.checkExpect(this.wCell.left, this.rCell);
+    BitBoard board = new BitBoard(3);
 
-    // testing the rCell
-    this.rCell.linkLeft(this.rCell);
-    t.checkExpect(this.rCell.left, this.rCell);
+    t.checkExpect(board.words, 1);
+    t.checkExpect(board.red, new long[] { 2, 0, 2 });
+    t.checkExpect(board.blue, new long[] { 0, 5, 0 });
+    t.checkExpect(board.white, new long[] { 5, 2, 5 });
+    t.checkExpect(board.turn, 1);
 
-    this.rCell.linkLeft(emptyCell);
-    t.checkExpect(this.rCell.left, emptyCell);
+    // a board made from the Cells is the same as a new one
+    t.checkExpect(new BitBoard(3, this.cells, 1).red, board.red);
+    t.checkExpect(new BitBoard(3, this.cells, 1).white, board.white);
 
-    // testing the bCell
-    this.bCell.linkLeft(emptyCell);
-    t.checkExpect(this.bCell.left, new EmptyCell());
+    // copies don't share bits
+    BitBoard copy = new BitBoard(board);
+    copy.click(1, 1);
+    t.checkExpect(board.white, new long[] { 5, 2, 5 });
+    t.checkExpect(copy.white, new long[] { 5, 0, 5 });
 
-    this.bCell.linkLeft(this.bCell);
-    t.checkExpect(this.bCell.left, this.bCell);
+    // wide boards use more than one long for each row
+    t.checkExpect(new BitBoard(101).words, 2);
+    t.checkExpect(new BitBoard(101).owner(0, 99), 1);
+    t.checkExpect(new BitBoard(101).owner(99, 0), 2);
   }
 
-  // testing linkRight method
-  void testLinkRight(Tester t) {
-    this.init();
+  // testing owner method
+  void testOwner(Tester t) {
+    BitBoard board = new BitBoard(5);
 
-    // testing the emptyCell
-    this.emptyCell.linkRight(this.bCell);
-    t.checkExpect(this.emptyCell, new EmptyCell());
+    t.checkExpect(board.owner(0, 0), 0);
+    t.checkExpect(board.owner(0, 1), 1);
+    t.checkExpect(board.owner(1, 0), 2);
+    t.checkExpect(board.owner(1, 1), 0);
+  }
 
-    // testing the wCell
-    this.wCell.linkRight(emptyCell);
-    t.checkExpect(this.wCell.right, new EmptyCell());
+  // testing click method of BitBoard
+  void testBitBoardClick(Tester t) {
+    BitBoard board = new BitBoard(5);
 
-    this.wCell.linkRight(this.rCell);
-    t.checkExpect(this.wCell.right, this.rCell);
+    // clicking on the edges or a colored Cell doesn't do anything
+    t.checkExpect(board.click(0, 0), 1);
+    t.checkExpect(board.click(4, 2), 1);
+    t.checkExpect(board.click(1, 2), 1);
 
-    // testing the rCell
-    this.rCell.linkRight(this.rCell);
-    t.checkExpect(this.rCell.right, this.rCell);
+    t.checkExpect(board.click(1, 1), 2);
+    t.checkExpect(board.owner(1, 1), 1);
+    t.checkExpect(board.click(1, 1), 2);
 
-    this.rCell.linkRight(emptyCell);
-    t.checkExpect(this.rCell.right, emptyCell);
+    t.checkExpect(board.click(2, 2), 1);
+    t.checkExpect(board.owner(2, 2), 2);
+  }
 
-    // testing the bCell
-    this.bCell.linkRight(emptyCell);
-    t.checkExpect(this.bCell.right, new EmptyCell());
+  // testing hasWon method of BitBoard
+  void testBitBoardHasWon(Tester t) {
+    BitBoard board = new BitBoard(5);
+
+    t.checkExpect(board.hasWon(1), false);
+    t.checkExpect(board.hasWon(2), false);
+
+    board.click(1, 1);
+    board.click(1, 3);
+    board.click(3, 1);
+    t.checkExpect(board.hasWon(1), true);
+    t.checkExpect(board.hasWon(2), false);
+
+    // a random game agrees with Connectivity after every move, including on
+    // boards wider than a long
+    java.util.Random rand = new java.util.Random(7);
+    int[] sizes = { 11, 67, 101 };
+
+    for (int grid : sizes) {
+      BitBoard bits = new BitBoard(grid);
+      Connectivity connect = new Connectivity(grid);
+      boolean same = true;
+
+      for (int k = 0; k < grid * grid; k++) {
+        int row = 1 + rand.nextInt(grid - 2);
+        int column = 1 + rand.nextInt(grid - 2);
+
+        if (bits.owner(row, column) == 0) {
+          connect.claim(bits.turn, row, column);
+          bits.click(row, column);
+          same = same && bits.hasWon(1) == connect.hasWon(1)
+              && bits.hasWon(2) == connect.hasWon(2);
+        }
+      }
 
-    this.bCell.linkRight(this.bCell);
-    t.checkExpect(this.bCell.right, this.bCell);
+      t.checkExpect(same, true);
+    }
   }
 
-  // testing drawAt method
-  void testDrawAt(Tester t) {
+  // testing draw method of BitBoard
+  void testBitBoardDraw(Tester t) {
     this.init();
-    WorldImage board = new RectangleImage(100, 100, "solid", Color.white);
 
-    t.checkExpect(this.wCell.drawAt(0, 0, 4, board), new OverlayOffsetAlign(AlignModeX.LEFT,
-        AlignModeY.TOP, new RectangleImage(25, 25, "solid", Color.white), 0, 0, board));
-    t.checkExpect(this.rCell.drawAt(0, 0, 4, board), new OverlayOffsetAlign(AlignModeX.LEFT,
-        AlignModeY.TOP, new RectangleImage(25, 25, "solid", Color.red), 0, 0, board));
-    t.checkExpect(this.bCell.drawAt(0, 0, 4, board), new OverlayOffsetAlign(AlignModeX.LEFT,
-        AlignModeY.TOP, new RectangleImage(25, 25, "solid", Color.blue), 0, 0, board));
+    t.checkExpect(new BitBoard(3).draw(30, 30), this.b1.makeSceneTest(30, 30));
+
+    this.b1.clickCell(1, 1);
+    BitBoard board = new BitBoard(3);
+    board.click(1, 1);
+    t.checkExpect(board.draw(30, 30), this.b1.makeSceneTest(30, 30));
   }
 
-  // testing drawAtHelper method
-  void testDrawAtHelper(Tester t) {
-    this.init();
-    WorldImage board = new RectangleImage(100, 100, "solid", Color.white);
+  // testing copyFrom method
+  void testCopyFrom(Tester t) {
+    BitBoard board = new BitBoard(5);
+    BitBoard other = new BitBoard(5);
+
+    other.click(1, 1);
+    board.copyFrom(other);
+
+    t.checkExpect(board.red, other.red);
+    t.checkExpect(board.white, other.white);
+    t.checkExpect(board.turn, 2);
+    t.checkExpect(board.red == other.red, false);
+  }
+
+  // testing openCells method
+  void testOpenCells(Tester t) {
+    BitBoard board = new BitBoard(5);
+    int[] out = new int[25];
+
+    t.checkExpect(board.openCells(out), 5);
+    t.checkExpect(out[0], 6);
+    t.checkExpect(out[4], 18);
 
-    t.checkExpect(this.wCell.drawAtHelper(0, 0, 4, board, Color.white),
-        new OverlayOffsetAlign(AlignModeX.LEFT, AlignModeY.TOP,
-            new RectangleImage(25, 25, "solid", Color.white), 0, 0, board));
-    t.checkExpect(this.rCell.drawAtHelper(0, 0, 4, board, Color.red),
-        new OverlayOffsetAlign(AlignModeX.LEFT, AlignModeY.TOP,
-            new RectangleImage(25, 25, "solid", Color.red), 0, 0, board));
-    t.checkExpect(this.bCell.drawAtHelper(0, 0, 4, board, Color.blue),
-        new OverlayOffsetAlign(AlignModeX.LEFT, AlignModeY.TOP,
-            new RectangleImage(25, 25, "solid", Color.blue), 0, 0, board));
+    board.click(2, 2);
+    t.checkExpect(board.openCells(out), 4);
+    t.checkExpect(out[2], 16);
   }
 
-  // testing makeGame method
-  void testMakeGame(Tester t) {
-    this.init();
+  // testing playout method
+  void testPlayout(Tester t) {
+    BitBoard board = new BitBoard(7);
+    MctsWorker worker = new MctsWorker(new MctsPlayer(10, 1000, 3), board, 3);
 
-    t.checkExpect(this.b1.cells, cells);
+    int winner = worker.playout(board);
+
+    t.checkExpect(board.openCells(worker.moves), 0);
+    t.checkExpect(board.hasWon(winner), true);
+    t.checkExpect(board.hasWon(3 - winner), false);
   }
 
-  // testing makeSceneTest method
-  void testMakeSceneTest(Tester t) {
-    this.init();
+  // testing chooseMove method of MctsPlayer
+  void testMctsChooseMove(Tester t) {
+    // row 3 column 1 is the only move that wins for player 1
+    BitBoard board = new BitBoard(5);
+    board.click(1, 1);
+    board.click(3, 3);
 
-    ArrayList<Cell> row1 = new ArrayList<Cell>();
-    row1.add(this.wCell);
-    row1.add(this.rCell);
-    row1.add(this.bCell);
+    MctsPlayer player = new MctsPlayer(2000, 10000, 5);
 
-    ArrayList<ArrayList<Cell>> cells = new ArrayList<ArrayList<Cell>>();
-    cells.add(row1);
+    t.checkExpect(player.chooseMove(board), 16);
+    t.checkExpect(player.playouts, 2000);
 
-    Bridgit game1 = new Bridgit(3, cells);
+    // and player 2 has to take it after player 1 plays somewhere else
+    board.click(1, 3);
+    t.checkExpect(player.chooseMove(board), 16);
 
-    WorldScene scene = new WorldScene(400, 400);
-    WorldImage board = new RectangleImage(scene.height, scene.width, "solid", Color.white);
+    // a full board has no moves
+    new MctsWorker(player, board, 1).playout(board);
+    t.checkExpect(player.chooseMove(board), -1);
+  }
 
-    int edge = scene.height / game1.grid;
-    int edge2 = edge / 2;
-    int edge4 = edge / 4;
+  // testing chooseMove method of MctsPlayer on more than one thread
+  void testMctsParallel(Tester t) {
+    t.checkConstructorException(
+        new IllegalArgumentException("there needs to be at least one thread"), "MctsPlayer",
+        10, 10L, 0);
 
-    WorldImage rCell = new RectangleImage(133, 133, "solid", Color.red);
-    WorldImage bCell = new RectangleImage(133, 133, "solid", Color.blue);
-    WorldImage wCell = new RectangleImage(133, 133, "solid", Color.white);
+    BitBoard board = new BitBoard(5);
+    board.click(1, 1);
+    board.click(3, 3);
 
-    board = new OverlayOffsetAlign(AlignModeX.LEFT, AlignModeY.TOP, wCell, 0 * wCell.getWidth(),
-        0 * wCell.getHeight(), board);
-    board = new OverlayOffsetAlign(AlignModeX.LEFT, AlignModeY.TOP, rCell, -1 * rCell.getWidth(),
-        0 * rCell.getHeight(), board);
-    board = new OverlayOffsetAlign(AlignModeX.LEFT, AlignModeY.TOP, bCell, -2 * bCell.getWidth(),
-        0 * bCell.getHeight(), board);
+    MctsPlayer player = new MctsPlayer(4000, 10000, 4, 5);
 
-    board = new OverlayOffsetAlign(AlignModeX.LEFT, AlignModeY.TOP,
-        new TextImage("P2", edge2, Color.blue), -edge4, -edge4, board);
+    t.checkExpect(player.chooseMove(board), 16);
+    t.checkExpect(player.playouts, 4000);
+    t.checkExpect(player.report().startsWith("4000 playouts on 4 threads"), true);
+  }
 
-    scene.placeImageXY(board, 200, 200);
+  // testing claimUntried method
+  void testClaimUntried(Tester t) {
+    BitBoard board = new BitBoard(5);
+    MctsWorker worker = new MctsWorker(new MctsPlayer(10, 1000, 3), board, 3);
+    MctsNode node = new MctsNode(null, -1, 2, board, worker);
 
-    t.checkExpect(game1.makeSceneTest(400, 400), scene);
+    t.checkExpect(node.untriedCount, 5);
+
+    for (int i = 0; i < 5; i++) {
+      t.checkExpect(node.claimUntried(), i);
+    }
 
+    t.checkExpect(node.claimUntried(), -1);
+    t.checkExpect(node.select(1.0), null);
   }
 
-  // testing onMouseClickTest method
-  void testOnMouseClickTest(Tester t) {
-    this.init();
+  // testing visits and wins of MctsNode after a search
+  void testMctsVisits(Tester t) {
+    BitBoard board = new BitBoard(7);
+    MctsPlayer player = new MctsPlayer(3000, 10000, 3, 11);
+    MctsWorker[] workers = new MctsWorker[3];
 
-    // clicking on the edges doesn't do anything
-    this.b1.onMouseClickedTest(new Posn(5, 5), 30, 30);
-    this.b1.onMouseClickedTest(new Posn(5, 15), 30, 30);
-    this.b1.onMouseClickedTest(new Posn(5, 25), 30, 30);
-    this.b1.onMouseClickedTest(new Posn(15, 5), 30, 30);
-    this.b1.onMouseClickedTest(new Posn(25, 5), 30, 30);
-    this.b1.onMouseClickedTest(new Posn(25, 15), 30, 30);
-    this.b1.onMouseClickedTest(new Posn(25, 25), 30, 30);
-    this.b1.onMouseClickedTest(new Posn(15, 25), 30, 30);
-    t.checkExpect(this.b1.cells, this.cells);
+    for (int i = 0; i < 3; i++) {
+      workers[i] = new MctsWorker(player, board, i);
+    }
 
-    // the middle tile is a WCell so clicking on it will change it to
-    // a RCell since it's player 1's turn
-    this.init();
-    this.b1.onMouseClickedTest(new Posn(15, 15), 30, 30);
+    MctsNode root = new MctsNode(null, -1, 2, board, workers[0]);
+    player.search(root, workers);
 
-    Cell changeTile = this.cells.get(1).remove(1);
-    RCell newRCell = new RCell();
+    // every virtual loss was turned into a real visit by the end
+    int childVisits = 0;
 
-    newRCell.linkDown(changeTile.down);
-    changeTile.down.linkUp(newRCell);
-    newRCell.linkUp(changeTile.up);
-    changeTile.up.linkDown(newRCell);
-    newRCell.linkLeft(changeTile.left);
-    changeTile.left.linkRight(newRCell);
-    newRCell.linkRight(changeTile.right);
-    changeTile.right.linkLeft(newRCell);
+    for (int i = 0; i < root.untriedCount; i++) {
+      childVisits += root.children.get(i).visits.get();
+    }
 
-    this.cells.get(1).add(1, newRCell);
+    t.checkExpect(root.visits.get(), 3000);
+    t.checkExpect(childVisits, 3000);
 
-    t.checkExpect(this.b1.cells, this.cells);
+    // every playout was won by exactly one of the players
+    int childWins = 0;
+
+    for (int i = 0; i < root.untriedCount; i++) {
+      childWins += root.children.get(i).wins.get();
+    }
+
+    t.checkExpect(root.wins.get() + childWins, 3000);
   }
 
-  // testing onKeyEvent method
-  void testOnKeyEvent(Tester t) {
-    this.init();
+  // testing aiMove method
+  void testAiMove(Tester t) {
+    Bridgit game = new Bridgit(5, new MctsPlayer(500, 10000, 9), 2);
 
-    // clicking on a random key does nothing
-    this.b1.onKeyEvent("a");
-    t.checkExpect(this.b1.cells, this.cells);
+    t.checkExpect(game.turn, 1);
 
-    // clicking on a random key does nothing
-    this.b1.onKeyEvent("b");
-    t.checkExpect(this.b1.cells, this.cells);
+    // the computer answers every move of player 1
+    game.clickCell(1, 1);
+    t.checkExpect(game.turn, 1);
+    t.checkExpect(new BitBoard(5, game.cells, 1).openCells(new int[25]), 3);
 
-    // resets the game
-    this.b1.cells.get(1).get(1).click(0, 1, 1, this.b1.cells);
+    // and nothing happens on a click that isn't a move
+    game.clickCell(0, 0);
+    t.checkExpect(new BitBoard(5, game.cells, 1).openCells(new int[25]), 3);
 
-    this.b1.onKeyEvent("r");
-    t.checkExpect(this.b1.cells, this.cells);
+    // the computer can make the first move
+    Bridgit game2 = new Bridgit(5, new MctsPlayer(100, 10000, 9), 1);
+    t.checkExpect(game2.turn, 2);
+
+    game.ai.stopPondering();
+    game2.ai.stopPondering();
   }
 
-  // testing click method
-  void testClick(Tester t) {
-    this.init();
+  // testing chooseMove keeping the tree for the next search
+  void testTreeReuse(Tester t) {
+    MctsPlayer player = new MctsPlayer(2000, 10000, 3L);
+    BitBoard board = new BitBoard(7);
+
+    int move = player.chooseMove(board);
+    t.checkExpect(player.reused, 0);
+    t.checkExpect(player.tree.move, move);
+    board.click(move / 7, move % 7);
+    t.checkExpect(player.treeKey, board.key);
+
+    // the answer was searched last time, so the next search starts with it
+    int answer = player.tree.mostVisited().move;
+    int visits = player.tree.mostVisited().visits.get();
+    board.click(answer / 7, answer % 7);
+    player.chooseMove(board);
+    t.checkExpect(player.reused, visits);
+    t.checkExpect(player.nodes.get() <= 2000 + visits, true);
+
+    // a board that isn't in the tree starts again
+    player.chooseMove(new BitBoard(7));
+    t.checkExpect(player.reused, 0);
+  }
 
-    t.checkExpect(this.wCell.click(0, 1, 1, this.cells), 1);
-    t.checkExpect(this.rCell.click(0, 1, 1, this.cells), 0);
-    t.checkExpect(this.bCell.click(1, 1, 1, this.cells), 1);
+  // testing mapMove, mapPlayer and transform methods of BridgitSymmetry
+  void testSymmetry(Tester t) {
+    BridgitSymmetry symmetry = new BridgitSymmetry(5);
+    BitBoard board = new BitBoard(5);
+
+    t.checkExpect(symmetry.mapMove(0, 6), 6);
+    t.checkExpect(symmetry.mapMove(1, 6), 18);
+    t.checkExpect(symmetry.mapMove(2, 7), 11);
+    t.checkExpect(symmetry.mapMove(3, 7), 13);
+    t.checkExpect(symmetry.mapPlayer(2, 1), 2);
+    t.checkExpect(symmetry.mapPlayer(2, 0), 0);
+    t.checkExpect(symmetry.mapPlayer(1, 1), 1);
+
+    // every transform undoes itself and keeps the Cells of the start of the
+    // game, the flips give the first move to player 2
+    for (int k = 0; k < BridgitSymmetry.TRANSFORMS; k++) {
+      t.checkExpect(symmetry.mapMove(k, symmetry.mapMove(k, 8)), 8);
+    }
+
+    t.checkExpect(symmetry.key(board, 1), board.key);
+    t.checkExpect(symmetry.key(board, 3), board.key ^ symmetry.zobrist.turn());
+
+    board.click(1, 1);
+    BitBoard turned = symmetry.transform(board, 1);
+    t.checkExpect(turned.owner(3, 3), 1);
+    t.checkExpect(turned.turn, 2);
+    t.checkExpect(turned.key, symmetry.key(board, 1));
+
+    BitBoard flipped = symmetry.transform(board, 2);
+    t.checkExpect(flipped.owner(1, 1), 2);
+    t.checkExpect(flipped.turn, 1);
+    t.checkExpect(flipped.open.size(), 4);
+    t.checkExpect(symmetry.transform(flipped, 2).key, board.key);
   }
 
-  // testing addLinks method
-  void testAddLinks(Tester t) {
-    this.init();
+  // testing keys, claim, canonicalTransform and canonicalKey methods of
+  // BridgitSymmetry
+  void testCanonicalKey(Tester t) {
+    BridgitSymmetry symmetry = new BridgitSymmetry(7);
+    BitBoard board = new BitBoard(7);
+    long[] keys = new long[BridgitSymmetry.TRANSFORMS];
+    long[] fresh = new long[BridgitSymmetry.TRANSFORMS];
 
-    t.checkException(new RuntimeException("EmptyCell has no links"), this.emptyCell, "addLinks");
+    symmetry.keys(board, keys);
 
-    ArrayList<Tile> arr = new ArrayList<Tile>();
+    // the keys can follow the moves
+    int[] moves = { 8, 24, 22, 36, 16 };
 
-    arr.add(this.wCell.up);
-    arr.add(this.wCell.down);
-    arr.add(this.wCell.left);
-    arr.add(this.wCell.right);
+    for (int move : moves) {
+      symmetry.claim(keys, move, board.turn);
+      board.click(move / 7, move % 7);
+    }
 
-    t.checkExpect(this.wCell.addLinks(), arr);
+    symmetry.keys(board, fresh);
+    t.checkExpect(keys, fresh);
 
-    ArrayList<Tile> arr2 = new ArrayList<Tile>();
+    // every transform of a position has the same canonical key
+    long canonical = symmetry.canonicalKey(board);
 
-    arr2.add(this.bCell.up);
-    arr2.add(this.bCell.down);
-    arr2.add(this.bCell.left);
-    arr2.add(this.bCell.right);
+    for (int k = 0; k < BridgitSymmetry.TRANSFORMS; k++) {
+      t.checkExpect(symmetry.canonicalKey(symmetry.transform(board, k)), canonical);
+    }
 
-    t.checkExpect(this.bCell.addLinks(), arr2);
+    // the canonical transform takes the board to its canonical key
+    int best = symmetry.canonicalTransform(board);
+    t.checkExpect(symmetry.transform(board, best).key, canonical);
+    t.checkExpect(symmetry.canonicalTransform(keys), best);
 
-    ArrayList<Tile> arr3 = new ArrayList<Tile>();
+    // a move found on the canonical board maps back to the board
+    BitBoard canonicalBoard = symmetry.transform(board, best);
+    int move = canonicalBoard.open.get(0);
+    int back = symmetry.mapMove(best, move);
+    t.checkExpect(board.owner(back / 7, back % 7), 0);
+  }
 
-    arr3.add(this.rCell.up);
-    arr3.add(this.rCell.down);
-    arr3.add(this.rCell.left);
-    arr3.add(this.rCell.right);
+  // testing run and ownerOf methods of TrainingDataGenerator
+  void testTrainingData(Tester t) {
+    try {
+      Path dir = java.nio.file.Files.createTempDirectory("bridgit");
+      TrainingDataGenerator generator = new TrainingDataGenerator(5, 200, 2,
+          dir.resolve("train"), () -> new RandomPlayer(new Random(5)));
+      generator.chunkRecords = 16;
+      generator.recordsPerFile = 100;
+
+      t.checkExpect(generator.whites.length, 5);
+      t.checkExpect(generator.recordSize, 3);
+
+      long records = generator.run();
+      t.checkExpect(records >= 200 * 3 && records <= 200 * 5, true);
+      t.checkExpect(generator.files.size(), (int) ((records + 99) / 100));
+      t.checkExpect(generator.files.get(0).getFileName().toString(), "train-00000.bin");
+
+      long total = 0;
+      int starts = 0;
+
+      for (Path file : generator.files) {
+        ByteBuffer buffer = ByteBuffer.wrap(java.nio.file.Files.readAllBytes(file));
+        int count = buffer.getInt(12);
+
+        t.checkExpect(buffer.getInt(0), TrainingDataGenerator.MAGIC);
+        t.checkExpect(buffer.getInt(4), 5);
+        t.checkExpect(buffer.getInt(8), 3);
+        t.checkExpect(buffer.capacity(), TrainingDataGenerator.HEADER + 3 * count);
+        total += count;
+
+        for (int r = 0; r < count; r++) {
+          int position = TrainingDataGenerator.HEADER + 3 * r;
+          int claimed = 0;
+
+          for (int k = 0; k < 5; k++) {
+            if (generator.ownerOf(buffer, position, k) != 0) {
+              claimed += 1;
+            }
+          }
 
-    t.checkExpect(this.rCell.addLinks(), arr3);
+          // the player to move follows from how many are claimed, and every
+          // game has a winner
+          t.checkExpect(buffer.get(position) & 3, 1 + claimed % 2);
+          t.checkExpect((buffer.get(position) >> 2) == 1 || (buffer.get(position) >> 2) == 2,
+              true);
+
+          if (claimed == 0) {
+            starts += 1;
+          }
+        }
+
+        java.nio.file.Files.delete(file);
+      }
+
+      t.checkExpect(total, records);
+      t.checkExpect(starts, 200);
+
+      // a writer that can't open its file fails the run
+      TrainingDataGenerator broken = new TrainingDataGenerator(5, 50, 2,
+          dir.resolve("missing").resolve("train"), () -> new RandomPlayer(new Random(5)));
+      t.checkException(new java.nio.file.NoSuchFileException(
+          dir.resolve("missing").resolve("train-00000.bin").toString()), broken, "run");
+
+      // a file can't count more records than its header has room for
+      broken = new TrainingDataGenerator(5, 50, 2, dir.resolve("train"),
+          () -> new RandomPlayer(new Random(5)));
+      broken.recordsPerFile = 1L << 31;
+      t.checkException(
+          new IllegalArgumentException("a file needs room for 1 to 2^31 - 1 records"), broken,
+          "run");
+
+      // a worker that fails stops the others, after the writer finished the
+      // files of what they sent
+      AtomicInteger made = new AtomicInteger();
+      TrainingDataGenerator crashed = new TrainingDataGenerator(5, 5000, 2,
+          dir.resolve("crash"), () -> {
+            if (made.incrementAndGet() == 4) {
+              throw new IllegalStateException("no player");
+            }
+
+            return new RandomPlayer(new Random(5));
+          });
+      crashed.chunkRecords = 16;
+      t.checkException(new RuntimeException(new IllegalStateException("no player")), crashed,
+          "run");
+      t.checkExpect(crashed.gamesLeft.get() <= 0, true);
+
+      long written = 0;
+
+      for (Path file : crashed.files) {
+        ByteBuffer buffer = ByteBuffer.wrap(java.nio.file.Files.readAllBytes(file));
+
+        t.checkExpect(buffer.capacity(), TrainingDataGenerator.HEADER + 3 * buffer.getInt(12));
+        written += buffer.getInt(12);
+        java.nio.file.Files.delete(file);
+      }
+
+      t.checkExpect(written, crashed.records);
+      java.nio.file.Files.delete(dir);
+    }
+    catch (IOException e) {
+      t.checkExpect(e, null);
+    }
   }
 
-  // testing checkWin method
-  void testCheckWin(Tester t) {
-    this.init();
+  // testing start, cancel, join, share and values methods of HeatmapAnalysis
+  void testHeatmap(Tester t) {
+    ForkJoinPool pool = new ForkJoinPool(2);
+    BitBoard board = new BitBoard(7);
+
+    // player 1 wins with the Cell below their two Cells
+    board.click(1, 1);
+    board.click(5, 5);
+    board.click(3, 1);
+    board.click(3, 5);
+
+    HeatmapAnalysis analysis = new HeatmapAnalysis(board, pool, 64, 3L);
+    t.checkExpect(analysis.share(36), Double.NaN);
+    analysis.start();
+    analysis.join();
+    t.checkExpect(analysis.rounds.get(), 4);
+    t.checkExpect(analysis.plays.get(36), 64L);
+    t.checkExpect(analysis.plays.get(8), 0L);
+    t.checkExpect(analysis.share(36), 1.0);
+
+    double[] values = new double[49];
+    analysis.values(values);
+    t.checkExpect(values[36], 1.0);
+    t.checkExpect(values[8], Double.NaN);
+
+    double lowest = 1;
+
+    for (int k = 0; k < analysis.count; k++) {
+      lowest = Math.min(lowest, values[analysis.candidates[k]]);
+    }
 
-    ArrayList<Tile> arr = new ArrayList<Tile>();
+    t.checkExpect(lowest, 0.0);
 
-    arr.add(this.rCell);
+    // cancelling stops it long before all its playouts
+    HeatmapAnalysis big = new HeatmapAnalysis(new BitBoard(15), pool, 1 << 30, 3L);
+    big.start();
+    big.cancel();
+    big.join();
+    t.checkExpect(big.rounds.get() < 1 << 20, true);
+    pool.shutdown();
+  }
 
-    t.checkExpect(this.b1.checkWin(arr, 1), false);
+  // testing onKeyEvent, shadeHeat and stopHeat methods of Bridgit
+  void testHeatmapOverlay(Tester t) {
+    Bridgit game = new Bridgit(7);
+
+    game.makeScene();
+    t.checkExpect(game.heatmap, null);
+    t.checkExpect(game.renderer.heat, null);
+
+    game.onKeyEvent("h");
+    game.makeScene();
+    HeatmapAnalysis first = game.heatmap;
+    t.checkExpect(first.count, 13);
+    t.checkExpect(game.heatKey, game.key());
+    t.checkExpect(game.renderer.heat == game.heat, true);
+
+    // the next frame of the same position goes on with the same playouts
+    game.makeScene();
+    t.checkExpect(game.heatmap == first, true);
+
+    // a click cancels it and the next frame starts one for the new position
+    game.clickCell(1, 1);
+    t.checkExpect(first.cancelled, true);
+    t.checkExpect(game.heatmap, null);
+    game.makeScene();
+    t.checkExpect(game.heatmap.count, 12);
+    t.checkExpect(game.heatKey, game.key());
+
+    game.onKeyEvent("h");
+    t.checkExpect(game.heatmap, null);
+    game.makeScene();
+    t.checkExpect(game.renderer.heat, null);
+  }
 
-    // player 1 wins
-    arr.add(this.rCell);
+  // testing update, isDead, capturedBy and moves methods of DeadCellAnalysis
+  void testDeadCells(Tester t) {
+    DeadCellAnalysis analysis = new DeadCellAnalysis(5);
+    BitBoard board = new BitBoard(5);
+    int[] moves = new int[25];
+
+    analysis.update(board);
+    t.checkExpect(analysis.openCount, 5);
+    t.checkExpect(analysis.moves(moves), 5);
+
+    // player 1's two Cells join both sides of the middle WCell to the top
+    board.click(1, 1);
+    board.click(3, 3);
+    board.click(1, 3);
+    analysis.update(board);
+    t.checkExpect(analysis.isDead(12), true);
+    t.checkExpect(analysis.isDead(16), false);
+    t.checkExpect(analysis.deadCount, 1);
+    t.checkExpect(analysis.moves(moves), 1);
+    t.checkExpect(moves[0], 16);
+
+    // two links from one group of player 1 to the top are captured by them
+    DeadCellAnalysis analysis2 = new DeadCellAnalysis(7);
+    BitBoard board2 = new BitBoard(7);
+    board2.click(2, 2);
+    analysis2.update(board2);
+    t.checkExpect(analysis2.capturedBy(8), 1);
+    t.checkExpect(analysis2.capturedBy(10), 1);
+    t.checkExpect(analysis2.capturedBy(12), 0);
+    t.checkExpect(analysis2.capturedCount, 2);
+    t.checkExpect(analysis2.deadCount, 0);
+    t.checkExpect(analysis2.moves(moves), 10);
+
+    // once every Cell is dead or captured one is still left to play
+    board2.click(4, 4);
+    board2.click(2, 4);
+    board2.click(4, 2);
+    analysis2.update(board2);
+    t.checkExpect(analysis2.moves(moves) >= 1, true);
+
+    // a winning position always keeps a winning move
+    BridgitSolver solver = new BridgitSolver(5);
+    solver.solveAll();
+    Random rand = new Random(9);
+
+    for (int g = 0; g < 200; g++) {
+      BitBoard random = new BitBoard(5);
+      int plies = rand.nextInt(random.open.size());
+
+      for (int k = 0; k < plies && !random.hasWon(1) && !random.hasWon(2); k++) {
+        int move = random.open.get(rand.nextInt(random.open.size()));
+        random.click(move / 5, move % 5);
+      }
 
-    Cell changeTile = this.cells.get(1).remove(1);
-    RCell newRCell = new RCell();
+      if (!random.hasWon(1) && !random.hasWon(2)
+          && solver.value(random) == BridgitSolver.WIN) {
+        analysis.update(random);
 
-    newRCell.linkDown(changeTile.down);
-    changeTile.down.linkUp(newRCell);
-    newRCell.linkUp(changeTile.up);
-    changeTile.up.linkDown(newRCell);
-    newRCell.linkLeft(changeTile.left);
-    changeTile.left.linkRight(newRCell);
-    newRCell.linkRight(changeTile.right);
-    changeTile.right.linkLeft(newRCell);
+        int count = analysis.moves(moves);
+        int mover = random.turn;
+        boolean wins = false;
 
-    this.cells.get(1).add(1, newRCell);
+        for (int k = 0; k < count; k++) {
+          BitBoard next = new BitBoard(random);
+          next.click(moves[k] / 5, moves[k] % 5);
+          wins = wins || next.hasWon(mover) || solver.value(next) == BridgitSolver.LOSS;
+        }
 
-    this.b1.onMouseClickedTest(new Posn(15, 15), 30, 30);
+        t.checkExpect(wins, true);
+      }
+    }
 
-    t.checkExpect(this.b1.checkWin(arr, 1), true);
-    t.checkExpect(this.b1.checkWin(arr, 2), false);
+    // the search finds the same win looking at fewer positions
+    AlphaBetaPlayer pruned = new AlphaBetaPlayer(10000, 64);
+    AlphaBetaPlayer full = new AlphaBetaPlayer(10000, 64);
+    full.prune = false;
+    pruned.chooseMove(new BitBoard(5));
+    full.chooseMove(new BitBoard(5));
+    t.checkExpect(pruned.outcome(), full.outcome());
+    t.checkExpect(pruned.nodes < full.nodes, true);
+  }
 
-    // player 2 wins
-    this.init();
+  // testing chooseMove, outcome and report methods of AlphaBetaPlayer
+  void testAlphaBeta(Tester t) {
+    BridgitSolver solver = new BridgitSolver(5);
+    solver.solveAll();
 
-    arr.add(this.bCell);
+    // it finds the same wins and losses as the solver and plays the wins
+    AlphaBetaPlayer player = new AlphaBetaPlayer(10000, 64);
+    Random rand = new Random(4);
 
-    Cell changeTile2 = this.cells.get(1).remove(1);
-    BCell newBCell = new BCell();
+    for (int g = 0; g < 30; g++) {
+      BitBoard board = new BitBoard(5);
+      int plies = rand.nextInt(board.open.size());
 
-    newBCell.linkDown(changeTile2.down);
-    changeTile2.down.linkUp(newBCell);
-    newBCell.linkUp(changeTile2.up);
-    changeTile2.up.linkDown(newBCell);
-    newBCell.linkLeft(changeTile2.left);
-    changeTile2.left.linkRight(newBCell);
-    newBCell.linkRight(changeTile2.right);
-    changeTile2.right.linkLeft(newBCell);
+      for (int k = 0; k < plies && !board.hasWon(1) && !board.hasWon(2); k++) {
+        int move = board.open.get(rand.nextInt(board.open.size()));
+        board.click(move / 5, move % 5);
+      }
 
-    this.cells.get(1).add(1, newBCell);
+      if (!board.hasWon(1) && !board.hasWon(2)) {
+        BitBoard before = new BitBoard(board);
+        int move = player.chooseMove(board);
+        int mover = board.turn;
 
-    this.b1.onMouseClickedTest(new Posn(15, 15), 30, 30);
+        // the board it was given is left alone
+        t.checkExpect(board.key, before.key);
 
-    this.b1.turn = 2;
+        if (solver.value(board) == BridgitSolver.WIN) {
+          t.checkExpect(player.outcome(), 1);
+          board.click(move / 5, move % 5);
+          t.checkExpect(board.hasWon(mover) || solver.value(board) == BridgitSolver.LOSS, true);
+        }
+        else {
+          t.checkExpect(player.outcome(), -1);
+        }
+      }
+    }
 
-    t.checkExpect(this.b1.checkWin(arr, 2), true);
-    t.checkExpect(this.b1.checkWin(arr, 1), false);
+    // the time limit stops the search on a board too big to see to the end
+    AlphaBetaPlayer quick = new AlphaBetaPlayer(200, 64);
+    BitBoard big = new BitBoard(11);
+    int move = quick.chooseMove(big);
+    t.checkExpect(big.open.contains(move), true);
+    t.checkExpect(quick.depth >= 1, true);
+    t.checkExpect(quick.nanos < 600000000L, true);
+    t.checkExpect(quick.outcome(), 0);
+    t.checkExpect(quick.nodesPerSecond() > 0, true);
+    t.checkExpect(quick.report().startsWith("depth " + quick.depth + ", value "), true);
+
+    // the depth limit stops it too
+    AlphaBetaPlayer shallow = new AlphaBetaPlayer(100000, 1);
+    shallow.chooseMove(big);
+    t.checkExpect(shallow.depth, 1);
+    t.checkExpect(shallow.nodes, 1L + big.open.size());
+
+    // wins keep their distance through the table
+    t.checkExpect(player.fromTable(player.toTable(AlphaBetaPlayer.WIN - 7, 4), 6),
+        AlphaBetaPlayer.WIN - 9);
+    t.checkExpect(player.fromTable(player.toTable(-AlphaBetaPlayer.WIN + 7, 4), 2),
+        -AlphaBetaPlayer.WIN + 5);
+    t.checkExpect(player.fromTable(player.toTable(35, 4), 2), 35);
+
+    // it answers clicks like any computer player
+    Bridgit game = new Bridgit(5, new AlphaBetaPlayer(1000, 64), 2);
+    game.clickCell(1, 1);
+    t.checkExpect(game.currentTurn(), 1);
+    t.checkExpect(game.record.count, 2);
+  }
+
+  // testing the constructor and bridgit, hex, cylinder, degree and size
+  // methods of BoardTopology
+  void testBoardTopology(Tester t) {
+    BoardTopology square = BoardTopology.bridgit(5);
+    t.checkExpect(square.size(), 25);
+    t.checkExpect(square.start[1], 1);
+    t.checkExpect(square.start[5], 2);
+    t.checkExpect(square.start[0], BoardTopology.WALL);
+    t.checkExpect(square.start[6], BoardTopology.EMPTY);
+    t.checkExpect(square.degree(0), 2);
+    t.checkExpect(square.degree(2), 3);
+    t.checkExpect(square.degree(12), 4);
+    t.checkExpect(Arrays.copyOfRange(square.neighbors, square.offsets[12], square.offsets[13]),
+        new int[] { 7, 11, 13, 17 });
+    t.checkExpect(square.edges[1], BoardTopology.edgeBit(1, 0));
+    t.checkExpect(square.edges[24], BoardTopology.edgeBit(1, 1) | BoardTopology.edgeBit(2, 1));
+    t.checkException(new IllegalArgumentException("the number needs to be odd and greater than 3"),
+        square, "bridgit", 4);
+
+    BoardTopology hex = BoardTopology.hex(3);
+    t.checkExpect(hex.degree(0), 2);
+    t.checkExpect(hex.degree(2), 3);
+    t.checkExpect(hex.degree(4), 6);
+    t.checkExpect(hex.neighbors.length, 2 * (3 * 2 + 3 * 2 + 2 * 2));
+
+    BoardTopology cylinder = BoardTopology.cylinder(3);
+    t.checkExpect(cylinder.degree(0), 4);
+    t.checkExpect(cylinder.degree(3), 6);
+    t.checkExpect(cylinder.edges[3], 0);
+    t.checkExpect(cylinder.fullWinner, 2);
 
+    t.checkConstructorException(
+        new IllegalArgumentException("the board needs a start and edges for every place"),
+        "BoardTopology", 2, 2, new int[3], new int[4], BoardTopology.SQUARE, false, 0);
   }
 
-  // testing lastScene method
-  void testLastScene(Tester t) {
-    this.init();
+  // testing load and place methods of BoardTopology
+  void testLoadTopology(Tester t) {
+    try {
+      Path file = java.nio.file.Files.createTempFile("bridgit", ".board");
+      java.nio.file.Files.write(file, java.util.List.of("hex", " ..", "...", ".#r"));
+
+      BoardTopology board = BoardTopology.load(file);
+      t.checkExpect(board.width, 3);
+      t.checkExpect(board.height, 3);
+      t.checkExpect(board.start[0], BoardTopology.ABSENT);
+      t.checkExpect(board.start[7], BoardTopology.WALL);
+      t.checkExpect(board.start[8], 1);
+      t.checkExpect(board.degree(0), 0);
+      t.checkExpect(board.degree(3), 3);
+      t.checkExpect(board.edges[1], BoardTopology.edgeBit(1, 0) | BoardTopology.edgeBit(2, 0));
+      t.checkExpect(board.edges[3], BoardTopology.edgeBit(2, 0));
+
+      // a wrapped board leaves player 2 without edges
+      java.nio.file.Files.write(file, java.util.List.of("square wrap", "...", "..."));
+      board = BoardTopology.load(file);
+      t.checkExpect(board.degree(0), 3);
+      t.checkExpect(board.edges[0], BoardTopology.edgeBit(1, 0));
+      t.checkExpect(board.fullWinner, 2);
+
+      java.nio.file.Files.write(file, java.util.List.of("triangle", "..."));
+      t.checkException(new IOException("unknown board shape: triangle"), board, "load", file);
+      java.nio.file.Files.write(file, java.util.List.of("square", ".x."));
+      t.checkException(new IOException("unknown place on the board: x"), board, "load", file);
+      java.nio.file.Files.delete(file);
+    }
+    catch (IOException e) {
+      t.checkExpect(e, null);
+    }
+  }
 
-    WorldScene scene = this.b1.makeScene();
-    scene.placeImageXY(new TextImage("a", 30, Color.BLACK), scene.height / 2, scene.width / 2);
+  // testing claim, play, hasWon, winner, legalMoves and currentTurn methods
+  // of TopologyGame
+  void testTopologyGame(Tester t) {
+    // on the Bridgit board it agrees with BridgitGame move for move
+    Random rand = new Random(7);
+    int[] moves = new int[81];
+
+    for (int g = 0; g < 20; g++) {
+      TopologyGame game = new TopologyGame(BoardTopology.bridgit(9));
+      BridgitGame other = new BridgitGame(9);
+      t.checkExpect(game.legalMoves(moves), other.legalMoves(new int[81]));
+
+      while (other.winner() == 0) {
+        int count = other.legalMoves(moves);
+        int move = moves[rand.nextInt(count)];
+        t.checkExpect(game.play(move / 9, move % 9), true);
+        other.play(move / 9, move % 9);
+        t.checkExpect(game.winner(), other.winner());
+        t.checkExpect(game.currentTurn(), other.currentTurn());
+      }
+    }
 
-    t.checkExpect(this.b1.lastScene("a"), scene);
+    TopologyGame hex = new TopologyGame(BoardTopology.hex(3));
+    t.checkExpect(hex.play(0, 0), true);
+    t.checkExpect(hex.play(0, 0), false);
+    t.checkExpect(hex.play(0, 3), false);
+    t.checkExpect(hex.play(-1, 0), false);
+    hex.play(0, 1);
+    hex.play(1, 0);
+    hex.play(1, 1);
+    t.checkExpect(hex.winner(), 0);
+    hex.play(2, 0);
+    t.checkExpect(hex.hasWon(1), true);
+    t.checkExpect(hex.winner(), 1);
+    t.checkExpect(hex.legalMoves(moves), 0);
+    t.checkExpect(hex.claim(8), false);
+
+    // player 2 wins the cylinder by filling it with a ring across player 1
+    TopologyGame cylinder = new TopologyGame(BoardTopology.cylinder(3));
+    cylinder.play(0, 0);
+    cylinder.play(1, 0);
+    cylinder.play(0, 1);
+    cylinder.play(1, 1);
+    cylinder.play(0, 2);
+    cylinder.play(1, 2);
+    cylinder.play(2, 0);
+    t.checkExpect(cylinder.winner(), 0);
+    cylinder.play(2, 1);
+    cylinder.play(2, 2);
+    t.checkExpect(cylinder.hasWon(1), false);
+    t.checkExpect(cylinder.winner(), 2);
   }
 
-  // testing isTarget method
-  void testIsTarget(Tester t) {
-    this.init();
+  // testing bucket, highest, record, count, percentile and clear methods of
+  // LatencyHistogram
+  void testLatencyHistogram(Tester t) {
+    t.checkExpect(LatencyHistogram.bucket(-5), 0);
+    t.checkExpect(LatencyHistogram.bucket(15), 15);
+    t.checkExpect(LatencyHistogram.bucket(16), 16);
+    t.checkExpect(LatencyHistogram.bucket(17), 16);
+    t.checkExpect(LatencyHistogram.bucket(18), 17);
+    t.checkExpect(LatencyHistogram.bucket(32), 24);
+    t.checkExpect(LatencyHistogram.bucket(Long.MAX_VALUE), LatencyHistogram.BUCKETS - 1);
+    t.checkExpect(LatencyHistogram.highest(15), 15L);
+    t.checkExpect(LatencyHistogram.highest(16), 17L);
+    t.checkExpect(LatencyHistogram.highest(24), 35L);
+    t.checkExpect(LatencyHistogram.highest(LatencyHistogram.BUCKETS - 1), Long.MAX_VALUE);
+
+    // every value is within an eighth of the highest value of its bucket
+    Random rand = new Random(3);
+
+    for (int i = 0; i < 1000; i++) {
+      long nanos = rand.nextLong() >>> (1 + rand.nextInt(63));
+      long highest = LatencyHistogram.highest(LatencyHistogram.bucket(nanos));
+      t.checkExpect(highest >= nanos && highest - nanos <= nanos / 8, true);
+    }
 
-    t.checkExpect(this.wCell.isTarget(), false);
-    t.checkExpect(this.wCell2.isTarget(), false);
-    t.checkExpect(this.bCell.isTarget(), false);
-    t.checkExpect(this.rCell.isTarget(), false);
-    t.checkExpect(this.bCell2.isTarget(), true);
-    t.checkExpect(this.rCell2.isTarget(), true);
+    LatencyHistogram histogram = new LatencyHistogram();
+    t.checkExpect(histogram.percentile(0.5), 0L);
+
+    for (int i = 1; i <= 100; i++) {
+      histogram.record(i * 1000);
+    }
+
+    t.checkExpect(histogram.count(), 100L);
+    t.checkInexact((double) histogram.percentile(0.5), 50000.0, 0.125);
+    t.checkInexact((double) histogram.percentile(0.99), 99000.0, 0.125);
+    t.checkExpect(histogram.percentile(1) >= 100000, true);
+    histogram.clear();
+    t.checkExpect(histogram.count(), 0L);
   }
 
-  // testing makeTarget method
-  void testMakeTarget(Tester t) {
-    this.init();
+  // testing start, stop, summary and dump methods of MoveTimings
+  void testMoveTimings(Tester t) {
+    MoveTimings.clear();
+
+    Bridgit game = new Bridgit(5);
+    game.clickCell(1, 1);
+    t.checkExpect(game.drawMove, true);
+    game.makeSceneTest(500, 500);
+    MoveTimings.clear();
+
+    MoveTimings.record(MoveTimings.WIN, 2000);
+    MoveTimings.record(MoveTimings.WIN, 3000);
+    MoveTimings.record(MoveTimings.SCENE, 5000);
+    t.checkExpect(MoveTimings.PHASES[MoveTimings.WIN].count(), 2L);
+    t.checkExpect(MoveTimings.PHASES[MoveTimings.SCENE].count(), 1L);
+    t.checkExpect(MoveTimings.PHASES[MoveTimings.HIT].count(), 0L);
+    t.checkExpect(MoveTimings.PHASES[MoveTimings.WIN].percentile(1) >= 3000, true);
+
+    String[] lines = MoveTimings.summary().split("\n");
+    t.checkExpect(lines.length, 4);
+    t.checkExpect(lines[2].startsWith("win "), true);
+    t.checkExpect(lines[2].contains(" 2 "), true);
+    t.checkExpect(lines[3].startsWith("scene "), true);
+
+    try {
+      Path file = java.nio.file.Files.createTempFile("bridgit", ".timings");
+      MoveTimings.dump(file);
+      MoveTimings.dump(file);
+      t.checkExpect(java.nio.file.Files.readAllLines(file).size(), 10);
+      java.nio.file.Files.delete(file);
+
+      // the dumps go on in the background until the executor is shut down
+      ScheduledExecutorService dumper = MoveTimings.dumpEvery(file, 5);
+      long giveUp = System.currentTimeMillis() + 5000;
+
+      while (java.nio.file.Files.notExists(file) && System.currentTimeMillis() < giveUp) {
+        Thread.sleep(5);
+      }
 
-    t.checkExpect(this.wCell.target, false);
-    t.checkExpect(this.wCell2.target, false);
-    t.checkExpect(this.bCell.target, false);
-    t.checkExpect(this.rCell.target, false);
-    t.checkExpect(this.bCell2.target, true);
-    t.checkExpect(this.rCell2.target, true);
+      dumper.shutdown();
+      t.checkExpect(dumper.awaitTermination(5, TimeUnit.SECONDS), true);
+
+      String[] dumped = java.nio.file.Files.readAllLines(file).toArray(new String[0]);
+      t.checkExpect(dumped.length >= 5 && dumped.length % 5 == 0, true);
+      t.checkExpect(dumped[0].startsWith("# "), true);
+      t.checkExpect(dumped[3].contains(" 2 "), true);
+      java.nio.file.Files.delete(file);
+    }
+    catch (IOException | InterruptedException e) {
+      t.checkExpect(e, null);
+    }
+
+    MoveTimings.clear();
+    t.checkExpect(MoveTimings.PHASES[MoveTimings.WIN].count(), 0L);
   }
 
-  // testing path method
-  void testPath(Tester t) {
-    this.init();
+  // testing add and size methods of OpeningBookBuilder
+  void testBookBuilder(Tester t) {
+    OpeningBookBuilder builder = new OpeningBookBuilder(5, 2);
+    GameRecord record = new GameRecord(5);
+
+    record.add(12, 0);
+    record.add(6, 0);
+    record.add(16, 0);
+    builder.add(record);
+
+    // the first move of a game is always from the start
+    t.checkExpect(builder.stats.size(), 2);
+    t.checkExpect(builder.size(), 2);
+
+    // the same moves turned around are the same positions, but the centre
+    // leaves a board that turns onto itself, so its two answers stay apart
+    GameRecord turned = new GameRecord(5);
+    turned.add(12, 0);
+    turned.add(18, 0);
+    turned.add(8, 0);
+    builder.add(turned);
+    t.checkExpect(builder.stats.size(), 2);
+    t.checkExpect(builder.size(), 3);
+    t.checkExpect(builder.games, 2L);
+
+    BridgitSymmetry symmetry = new BridgitSymmetry(5);
+    HashMap<Integer, int[]> first = builder.stats.get(symmetry.canonicalKey(new BitBoard(5)));
+    int[] centre = first.get(symmetry.mapMove(symmetry.canonicalTransform(new BitBoard(5)), 12));
+    // neither game was finished, so neither was won
+    t.checkExpect(centre[0], 2);
+    t.checkExpect(centre[1], 0);
+
+    builder.selfPlay(20, new RandomPlayer(new Random(1)), new RandomPlayer(new Random(2)));
+    t.checkExpect(builder.games, 22L);
+  }
 
-    t.checkExpect(this.emptyCell.path(1), false);
-    t.checkExpect(this.wCell.path(1), false);
-    t.checkExpect(this.rCell.path(1), true);
-    t.checkExpect(this.rCell.path(2), false);
-    t.checkExpect(this.bCell.path(1), false);
-    t.checkExpect(this.bCell.path(2), true);
+  // testing write of OpeningBookBuilder and lookup of OpeningBook
+  void testOpeningBook(Tester t) {
+    try {
+      Path file = java.nio.file.Files.createTempFile("bridgit", ".book");
+      OpeningBookBuilder builder = new OpeningBookBuilder(7, 3);
+      builder.selfPlay(300, new RandomPlayer(new Random(1)), new RandomPlayer(new Random(2)));
+      builder.write(file);
+
+      OpeningBook book = new OpeningBook(file);
+      t.checkExpect(book.grid, 7);
+      t.checkExpect(book.entries, (long) builder.size());
+      t.checkExpect(book.table.isDirect(), true);
+
+      // the book has a move for the start, and the same move turned around
+      // for the start with player 2 to move flipped
+      BitBoard board = new BitBoard(7);
+      int move = book.lookup(board);
+      t.checkExpect(board.open.contains(move), true);
+
+      BridgitSymmetry symmetry = new BridgitSymmetry(7);
+      BitBoard flipped = symmetry.transform(board, 2);
+      t.checkExpect(book.lookup(flipped), symmetry.mapMove(2, move));
+
+      // a position that wasn't played isn't in the book
+      board.click(1, 1);
+      board.click(5, 5);
+      board.click(1, 3);
+      board.click(1, 5);
+      t.checkExpect(book.lookup(board), -1);
+      t.checkExpect(book.lookup(new BitBoard(5)), -1);
+
+      book.minGames = 1000;
+      t.checkExpect(book.lookup(new BitBoard(7)), -1);
+
+      // the player answers from the book and then searches
+      book.minGames = 1;
+      BookPlayer player = new BookPlayer(book, board2 -> -7);
+      t.checkExpect(player.chooseMove(new BitBoard(7)), move);
+      t.checkExpect(player.chooseMove(board), -7);
+      t.checkExpect(player.bookMoves, 1);
+
+      java.nio.file.Files.write(file, new byte[] { 1, 2, 3 });
+      t.checkConstructorException(new IOException("not an opening book"), "OpeningBook", file);
+      java.nio.file.Files.delete(file);
+    }
+    catch (IOException e) {
+      t.checkExpect(e, null);
+    }
+  }
+
+  // testing ponder and stopPondering methods of MctsPlayer
+  void testPonder(Tester t) {
+    MctsPlayer player = new MctsPlayer(100, 10000, 2, 5L);
+    BitBoard board = new BitBoard(7);
+
+    player.maxNodes = 300;
+    board.click(3, 3);
+    player.ponder(board);
+    t.checkExpect(player.pondering, true);
+
+    long stop = System.currentTimeMillis() + 10000;
+
+    while (player.tree.visits.get() < 3000 && System.currentTimeMillis() < stop) {
+      Thread.yield();
+    }
+
+    player.stopPondering();
+    t.checkExpect(player.pondering, false);
+    t.checkExpect(player.ponderers, null);
+
+    // the tree stayed small, with a node for each thread over at most
+    int pondered = player.tree.visits.get();
+    t.checkExpect(pondered >= 3000, true);
+    t.checkExpect(player.count(player.tree) <= 302, true);
+
+    // the answer's node is kept
+    board.click(1, 1);
+    player.chooseMove(board);
+    t.checkExpect(player.reused > 0, true);
+    t.checkExpect(player.reused < pondered, true);
+
+    // stopping when nothing is pondering does nothing
+    player.stopPondering();
+    t.checkExpect(player.ponderers, null);
+
+    // Bridgit ponders on the player's turn
+    Bridgit game = new Bridgit(5, player, 2);
+    t.checkExpect(player.pondering, true);
+    game.clickCell(2, 2);
+    t.checkExpect(game.turn, 1);
+    t.checkExpect(player.pondering, true);
+    game.onKeyEvent("r");
+    t.checkExpect(player.pondering, true);
+    game.ai.stopPondering();
+    t.checkExpect(player.pondering, false);
   }
 
 }